@@ -63,4 +63,27 @@ public @interface Options {
   String keyColumn() default "";
 
   String resultSets() default "";
+
+  /**
+   * Whether the rows are returned grouped by the id columns of the nested result map.
+   * When <code>true</code>, each completed parent object is handed to the result handler (or cursor) as soon as
+   * the next parent begins and only the current parent group is kept in memory.
+   */
+  boolean resultOrdered() default false;
+
+  /**
+   * Number of row chunks of a simple result map that may be mapped concurrently. <code>-1</code> disables it.
+   */
+  int mappingParallelism() default -1;
+
+  /**
+   * Number of rows handed to a mapping task when {@link #mappingParallelism()} is enabled.
+   */
+  int mappingChunkSize() default -1;
+
+  /**
+   * Comma separated names of the tables the statement reads or writes, used to invalidate local cache entries
+   * selectively.
+   */
+  String tables() default "";
 }
@@ -18,6 +18,7 @@ package org.apache.ibatis.binding;
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
@@ -37,6 +38,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Mapper方法
@@ -105,6 +107,8 @@ public class MapperMethod {
           result = executeForMap(sqlSession, args);
         } else if (method.returnsCursor()) {
           result = executeForCursor(sqlSession, args);
+        } else if (method.returnsPublisher()) {
+          result = executeForPublisher(sqlSession, args);
         } else {
           Object param = method.convertArgsToSqlCommandParam(args);
           result = sqlSession.selectOne(command.getName(), param);
@@ -124,6 +128,9 @@ public class MapperMethod {
       throw new BindingException("Mapper method '" + command.getName()
         + " attempted to return null from a method with a primitive return type (" + method.getReturnType() + ").");
     }
+    if (method.returnsFuture()) {
+      return CompletableFuture.completedFuture(result);
+    }
     return result;
   }
 
@@ -192,6 +199,18 @@ public class MapperMethod {
     return result;
   }
 
+  private <T> CursorPublisher<T> executeForPublisher(SqlSession sqlSession, Object[] args) {
+    CursorPublisher<T> result;
+    Object param = method.convertArgsToSqlCommandParam(args);
+    if (method.hasRowBounds()) {
+      RowBounds rowBounds = method.extractRowBounds(args);
+      result = sqlSession.selectPublisher(command.getName(), param, rowBounds);
+    } else {
+      result = sqlSession.selectPublisher(command.getName(), param);
+    }
+    return result;
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -339,6 +358,14 @@ public class MapperMethod {
      * 返回类型是否为 {@link org.apache.ibatis.cursor.Cursor}
      */
     private final boolean returnsCursor;
+    /**
+     * 返回类型是否为 {@link org.apache.ibatis.cursor.CursorPublisher}
+     */
+    private final boolean returnsPublisher;
+    /**
+     * 返回类型是否为 {@link CompletableFuture}
+     */
+    private final boolean returnsFuture;
     /**
      * 返回类型是否为 {@link java.util.Optional}
      */
@@ -373,6 +400,12 @@ public class MapperMethod {
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       // 初始化 returnType 属性
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      // CompletableFuture 按其结果类型执行，结果再包装为已完成的 CompletableFuture
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+      if (this.returnsFuture) {
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) {
         // 普通类
         this.returnType = (Class<?>) resolvedReturnType;
@@ -381,11 +414,12 @@ public class MapperMethod {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
       } else {
         // 内部类等等
-        this.returnType = method.getReturnType();
+        this.returnType = this.returnsFuture ? Object.class : method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || (this.returnsFuture && Void.class.equals(this.returnType));
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      this.returnsPublisher = CursorPublisher.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
       this.mapKey = getMapKey(method);
       this.returnsMap = this.mapKey != null;
@@ -454,6 +488,14 @@ public class MapperMethod {
       return returnsCursor;
     }
 
+    public boolean returnsPublisher() {
+      return returnsPublisher;
+    }
+
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
     /**
      * return whether return type is {@code java.util.Optional}.
      *
@@ -20,6 +20,8 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
+import org.apache.ibatis.executor.pagination.StandardPaginationDialect;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -327,14 +329,20 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setLazyLoadingEnabled(booleanValueOf(props.getProperty("lazyLoadingEnabled"), false));
     configuration.setAggressiveLazyLoading(booleanValueOf(props.getProperty("aggressiveLazyLoading"), false));
     configuration.setMultipleResultSetsEnabled(booleanValueOf(props.getProperty("multipleResultSetsEnabled"), true));
+    configuration.setMultiStatementSelectsEnabled(booleanValueOf(props.getProperty("multiStatementSelectsEnabled"), false));
     configuration.setUseColumnLabel(booleanValueOf(props.getProperty("useColumnLabel"), true));
     configuration.setUseGeneratedKeys(booleanValueOf(props.getProperty("useGeneratedKeys"), false));
     configuration.setDefaultExecutorType(ExecutorType.valueOf(props.getProperty("defaultExecutorType", "SIMPLE")));
     configuration.setDefaultStatementTimeout(integerValueOf(props.getProperty("defaultStatementTimeout"), null));
     configuration.setDefaultFetchSize(integerValueOf(props.getProperty("defaultFetchSize"), null));
+    configuration.setCursorPrefetchSize(integerValueOf(props.getProperty("cursorPrefetchSize"), 0));
+    configuration.setAdaptiveFetchSizeEnabled(booleanValueOf(props.getProperty("adaptiveFetchSizeEnabled"), false));
+    configuration.setAdaptiveFetchSizeMin(integerValueOf(props.getProperty("adaptiveFetchSizeMin"), 10));
+    configuration.setAdaptiveFetchSizeMax(integerValueOf(props.getProperty("adaptiveFetchSizeMax"), 1000));
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
     configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
+    configuration.setLocalCacheInvalidation(LocalCacheInvalidation.valueOf(props.getProperty("localCacheInvalidation", "ALL")));
     configuration.setJdbcTypeForNull(JdbcType.valueOf(props.getProperty("jdbcTypeForNull", "OTHER")));
     configuration.setLazyLoadTriggerMethods(stringSetValueOf(props.getProperty("lazyLoadTriggerMethods"), "equals,clone,hashCode,toString"));
     configuration.setSafeResultHandlerEnabled(booleanValueOf(props.getProperty("safeResultHandlerEnabled"), true));
@@ -343,10 +351,38 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setCallSettersOnNulls(booleanValueOf(props.getProperty("callSettersOnNulls"), false));
     configuration.setUseActualParamName(booleanValueOf(props.getProperty("useActualParamName"), true));
     configuration.setReturnInstanceForEmptyRow(booleanValueOf(props.getProperty("returnInstanceForEmptyRow"), false));
+    configuration.setResultSetMetadataCacheEnabled(booleanValueOf(props.getProperty("resultSetMetadataCacheEnabled"), false));
+    configuration.setCompactMapResultsEnabled(booleanValueOf(props.getProperty("compactMapResultsEnabled"), false));
+    configuration.setBatchStatementGrouping(booleanValueOf(props.getProperty("batchStatementGrouping"), false));
+    configuration.setBatchMaxPendingStatements(integerValueOf(props.getProperty("batchMaxPendingStatements"), null));
+    configuration.setBatchMaxPendingParameters(integerValueOf(props.getProperty("batchMaxPendingParameters"), null));
+    configuration.setBatchMaxPendingBytes(integerValueOf(props.getProperty("batchMaxPendingBytes"), null));
+    configuration.setBatchRetainParameterObjects(booleanValueOf(props.getProperty("batchRetainParameterObjects"), true));
+    configuration.setBatchPipelined(booleanValueOf(props.getProperty("batchPipelined"), false));
+    configuration.setDatabasePagination(booleanValueOf(props.getProperty("databasePagination"), false));
+    configuration.setPaginationDialect(paginationDialectValueOf(props.getProperty("paginationDialect")));
+    configuration.setCountCacheTtl(integerValueOf(props.getProperty("countCacheTtl"), null));
+    configuration.setBatchInsertRewriteSize(integerValueOf(props.getProperty("batchInsertRewriteSize"), null));
+    configuration.setBatchInsertMaxParameters(integerValueOf(props.getProperty("batchInsertMaxParameters"), null));
     configuration.setLogPrefix(props.getProperty("logPrefix"));
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
   }
 
+  /**
+   * 解析分页方言，可以是 {@link StandardPaginationDialect} 的名字，或者 {@link PaginationDialect} 实现类的别名
+   */
+  private PaginationDialect paginationDialectValueOf(String value) {
+    if (value == null) {
+      return null;
+    }
+    for (StandardPaginationDialect dialect : StandardPaginationDialect.values()) {
+      if (dialect.name().equalsIgnoreCase(value)) {
+        return dialect;
+      }
+    }
+    return (PaginationDialect) createInstance(value);
+  }
+
   /**
    * 解析 <environments /> 标签
    *
@@ -16,6 +16,9 @@
 package org.apache.ibatis.cursor;
 
 import java.io.Closeable;
+import java.util.Spliterator;
+
+import org.apache.ibatis.cursor.defaults.CursorSpliterator;
 
 /**
  * Cursor contract to handle fetching items lazily using an Iterator.
@@ -43,4 +46,15 @@ public interface Cursor<T> extends Closeable, Iterable<T> {
    * @return -1 if the first cursor item has not been retrieved. The index of the current item retrieved.
    */
   int getCurrentIndex();
+
+  /**
+   * Creates a {@link Spliterator} that hands out the cursor items in growing batches, so that
+   * {@code StreamSupport.stream(cursor.spliterator(), true)} processes them on all workers.
+   * The items are still fetched from the database one at a time by the thread that splits.
+   * @return an ORDERED and NONNULL spliterator over the cursor items
+   */
+  @Override
+  default Spliterator<T> spliterator() {
+    return new CursorSpliterator<>(iterator(), Long.MAX_VALUE);
+  }
 }
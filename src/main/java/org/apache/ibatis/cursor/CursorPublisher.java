@@ -0,0 +1,70 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * Reactive counterpart of {@link Cursor}: rows are read from the database only as the subscriber requests them.
+ * <p>
+ * The nested interfaces have the same methods as the ones of <code>java.util.concurrent.Flow</code> (and of Reactive
+ * Streams), so adapting them is a matter of delegating each method. Every subscription runs the query once and
+ * releases its result set and statement when it completes, fails or is cancelled.
+ *
+ * @param <T> the element type
+ */
+public interface CursorPublisher<T> {
+
+  /**
+   * Adds a subscriber. The query runs once the subscriber requests the first items.
+   *
+   * @param subscriber the subscriber
+   */
+  void subscribe(Subscriber<? super T> subscriber);
+
+  /**
+   * Receiver of the items of a {@link CursorPublisher}.
+   *
+   * @param <T> the element type
+   */
+  interface Subscriber<T> {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+
+  }
+
+  /**
+   * Link between a {@link CursorPublisher} and a {@link Subscriber}.
+   */
+  interface Subscription {
+
+    /**
+     * Requests up to <code>n</code> more items. <code>Long.MAX_VALUE</code> means an unbounded demand.
+     */
+    void request(long n);
+
+    /**
+     * Stops sending items and releases the underlying result set and statement.
+     */
+    void cancel();
+
+  }
+
+}
@@ -0,0 +1,124 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Spliterator} over the rows of a {@link org.apache.ibatis.cursor.Cursor}.
+ * <p>
+ * Rows are read from the cursor iterator by the thread that traverses this spliterator. Each split copies the next
+ * batch of rows into an array, so the rows of a parallel stream are mapped sequentially but processed on all workers.
+ * Batches start small and double at each split, which lets short results be shared between workers while long ones
+ * are split with little overhead.
+ *
+ * @param <T> the element type
+ */
+public class CursorSpliterator<T> implements Spliterator<T> {
+
+  public static final int DEFAULT_INITIAL_BATCH_SIZE = 16;
+  public static final int MAX_BATCH_SIZE = 1 << 20;
+
+  private static final int CHARACTERISTICS = Spliterator.ORDERED | Spliterator.NONNULL;
+
+  private final Iterator<T> iterator;
+  private long estimatedSize;
+  private int batchSize;
+
+  /**
+   * @param iterator the cursor iterator
+   * @param estimatedSize an upper bound of the number of rows, or {@code Long.MAX_VALUE} if unknown
+   */
+  public CursorSpliterator(Iterator<T> iterator, long estimatedSize) {
+    this(iterator, estimatedSize, DEFAULT_INITIAL_BATCH_SIZE);
+  }
+
+  public CursorSpliterator(Iterator<T> iterator, long estimatedSize, int initialBatchSize) {
+    if (initialBatchSize <= 0) {
+      throw new IllegalArgumentException("The initial batch size must be positive but was " + initialBatchSize);
+    }
+    this.iterator = iterator;
+    this.estimatedSize = estimatedSize;
+    this.batchSize = initialBatchSize;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super T> action) {
+    if (action == null) {
+      throw new NullPointerException();
+    }
+    if (!iterator.hasNext()) {
+      estimatedSize = 0;
+      return false;
+    }
+    T next = iterator.next();
+    consumed(1);
+    action.accept(next);
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super T> action) {
+    if (action == null) {
+      throw new NullPointerException();
+    }
+    while (iterator.hasNext()) {
+      T next = iterator.next();
+      consumed(1);
+      action.accept(next);
+    }
+    estimatedSize = 0;
+  }
+
+  @Override
+  public Spliterator<T> trySplit() {
+    if (!iterator.hasNext()) {
+      estimatedSize = 0;
+      return null;
+    }
+    // 估计值可能小于实际行数，至少取一行
+    int size = (int) Math.max(1, Math.min(batchSize, estimatedSize));
+    Object[] batch = new Object[size];
+    int count = 0;
+    do {
+      batch[count++] = iterator.next();
+    } while (count < size && iterator.hasNext());
+    consumed(count);
+    if (batchSize < MAX_BATCH_SIZE) {
+      batchSize = Math.min(batchSize << 1, MAX_BATCH_SIZE);
+    }
+    return Spliterators.spliterator(batch, 0, count, CHARACTERISTICS);
+  }
+
+  @Override
+  public long estimateSize() {
+    return estimatedSize;
+  }
+
+  @Override
+  public int characteristics() {
+    return CHARACTERISTICS;
+  }
+
+  private void consumed(int count) {
+    if (estimatedSize != Long.MAX_VALUE) {
+      estimatedSize = Math.max(0, estimatedSize - count);
+    }
+  }
+}
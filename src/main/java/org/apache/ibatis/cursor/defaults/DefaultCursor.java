@@ -19,6 +19,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
@@ -103,6 +104,14 @@ public class DefaultCursor<T> implements Cursor<T> {
     return cursorIterator;
   }
 
+  @Override
+  public Spliterator<T> spliterator() {
+    // RowBounds 的 limit 是剩余行数的上限
+    long estimatedSize = rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT ? Long.MAX_VALUE
+        : rowBounds.getLimit() - Math.max(0, getReadItemsCount() - rowBounds.getOffset());
+    return new CursorSpliterator<>(iterator(), estimatedSize);
+  }
+
   @Override
   public void close() {
     if (isClosed()) {
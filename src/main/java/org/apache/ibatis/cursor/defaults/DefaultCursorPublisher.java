@@ -0,0 +1,235 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+
+/**
+ * Default implementation of a {@link CursorPublisher} backed by a {@link Cursor}.
+ * <p>
+ * The cursor is opened and read on the given executor, one task per batch of requested rows, and at most one task
+ * runs at a time. When no executor is given, a shared cached pool of daemon threads is used. As the cursor uses the
+ * executor of the session that created it, that session must not be used by other threads until the subscription
+ * ends; {@link #isActive()} tells the session when to reject them.
+ *
+ * @param <T> the element type
+ */
+public class DefaultCursorPublisher<T> implements CursorPublisher<T> {
+
+  private final Supplier<Cursor<T>> cursorSupplier;
+  private final Executor executor;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+  private volatile CursorSubscription<T> subscription;
+
+  public DefaultCursorPublisher(Supplier<Cursor<T>> cursorSupplier, Executor executor) {
+    this.cursorSupplier = cursorSupplier;
+    this.executor = executor != null ? executor : DefaultExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * @return whether rows have been requested and the subscription has not ended, so the cursor may be read at any time
+   */
+  public boolean isActive() {
+    CursorSubscription<T> current = subscription;
+    return current != null && current.started && !current.done;
+  }
+
+  /**
+   * @return whether the current thread is the one reading the cursor, e.g. a subscriber running other statements of
+   *         the session from {@code onNext}
+   */
+  public boolean isReadingOnCurrentThread() {
+    CursorSubscription<T> current = subscription;
+    return current != null && current.readingThread == Thread.currentThread();
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("subscriber");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      // 游标只能被读取一次
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          // nothing to deliver
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to release
+        }
+      });
+      subscriber.onError(new IllegalStateException("A CursorPublisher supports only one subscriber."));
+      return;
+    }
+    subscription = new CursorSubscription<>(subscriber, cursorSupplier, executor);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private static final class CursorSubscription<T> implements Subscription, Runnable {
+
+    private final Subscriber<? super T> subscriber;
+    private final Supplier<Cursor<T>> cursorSupplier;
+    private final Executor executor;
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingRuns = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+    private volatile boolean started;
+    private volatile Thread readingThread;
+    // 只在 run() 中修改，其它线程通过 isActive() 读取
+    private volatile boolean done;
+
+    // 以下字段只在 run() 中访问，同一时刻只有一个任务在执行
+    private Cursor<T> cursor;
+    private Iterator<T> iterator;
+
+    CursorSubscription(Subscriber<? super T> subscriber, Supplier<Cursor<T>> cursorSupplier, Executor executor) {
+      this.subscriber = subscriber;
+      this.cursorSupplier = cursorSupplier;
+      this.executor = executor;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("Requested " + n + " items, the demand must be positive.");
+      } else {
+        requested.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      }
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      started = true;
+      if (pendingRuns.getAndIncrement() == 0) {
+        try {
+          executor.execute(this);
+        } catch (RuntimeException e) {
+          cancelled = true;
+          pendingRuns.set(0);
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      readingThread = Thread.currentThread();
+      try {
+        int missed = 1;
+        do {
+          drain();
+          missed = pendingRuns.addAndGet(-missed);
+        } while (missed != 0);
+      } finally {
+        readingThread = null;
+      }
+    }
+
+    private void drain() {
+      if (done) {
+        return;
+      }
+      if (cancelled) {
+        terminate();
+        return;
+      }
+      if (invalidRequest != null) {
+        terminate();
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      try {
+        if (iterator == null) {
+          cursor = cursorSupplier.get();
+          iterator = cursor.iterator();
+        }
+        while (requested.get() > 0 && !cancelled) {
+          if (!iterator.hasNext()) {
+            terminate();
+            subscriber.onComplete();
+            return;
+          }
+          final T item = iterator.next();
+          if (requested.get() != Long.MAX_VALUE) {
+            requested.decrementAndGet();
+          }
+          subscriber.onNext(item);
+        }
+        if (cancelled) {
+          terminate();
+        }
+      } catch (Throwable t) {
+        final boolean terminated = done;
+        terminate();
+        if (!terminated) {
+          subscriber.onError(t);
+        }
+      }
+    }
+
+    private void terminate() {
+      done = true;
+      if (cursor != null) {
+        try {
+          // 关闭 ResultSet ，Statement 随之关闭 (closeOnCompletion)
+          cursor.close();
+        } catch (Exception e) {
+          // ignore
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Executor used when none is configured: a cached pool of daemon threads, as reading rows blocks on I/O.
+   */
+  private static final class DefaultExecutorHolder {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "mybatis-cursor-publisher-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+}
@@ -0,0 +1,266 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+
+/**
+ * A {@link Cursor} that reads and maps the rows of another cursor on a thread of an executor.
+ * <p>
+ * Up to {@code prefetchSize} mapped rows are kept in a bounded queue while the consumer works on the current ones.
+ * Errors of the background thread are rethrown to the consumer once the rows read before the error are consumed.
+ * Closing the cursor stops the background thread and waits for it before closing the underlying cursor.
+ * <p>
+ * Nested selects of the result map run on the background thread, so the session that created the cursor must not be
+ * used while {@link #isPrefetching()}: {@link org.apache.ibatis.session.defaults.DefaultSqlSession} rejects its
+ * statements until the cursor has been read to the end or closed. This implementation is not thread safe.
+ */
+public class PrefetchingCursor<T> implements Cursor<T> {
+
+  private static final Object END = new Object();
+  private static final long OFFER_TIMEOUT_MILLIS = 50;
+
+  private final Cursor<T> delegate;
+  private final BlockingQueue<Object> queue;
+  private final PrefetchIterator iterator = new PrefetchIterator();
+  private final int initialIndex;
+  private final Executor executor;
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final CountDownLatch finished = new CountDownLatch(1);
+
+  private volatile boolean closing;
+  private volatile Throwable failure;
+  private boolean iteratorRetrieved;
+  private boolean closed;
+  private boolean consumed;
+  private int deliveredCount;
+
+  public PrefetchingCursor(Cursor<T> delegate, int prefetchSize) {
+    this(delegate, prefetchSize, null);
+  }
+
+  /**
+   * @param delegate the cursor to read
+   * @param prefetchSize the maximum number of rows read ahead
+   * @param executor the executor that reads the rows, or {@code null} for a shared cached pool of daemon threads
+   */
+  public PrefetchingCursor(Cursor<T> delegate, int prefetchSize, Executor executor) {
+    if (prefetchSize <= 0) {
+      throw new IllegalArgumentException("The prefetch size must be positive but was " + prefetchSize);
+    }
+    this.delegate = delegate;
+    this.queue = new ArrayBlockingQueue<>(prefetchSize);
+    this.initialIndex = delegate.getCurrentIndex();
+    this.executor = executor == null ? DefaultExecutorHolder.EXECUTOR : executor;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return iteratorRetrieved && !closed && !consumed;
+  }
+
+  /**
+   * @return whether rows may still be read from the underlying cursor by the executor
+   */
+  public boolean isPrefetching() {
+    return iteratorRetrieved && !closed && finished.getCount() > 0;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return consumed;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return initialIndex + deliveredCount;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    if (closed || consumed) {
+      throw new IllegalStateException("A Cursor is already closed.");
+    }
+    // 迭代器取出时即开始在 executor 上预读
+    executor.execute(() -> {
+      if (started.compareAndSet(false, true)) {
+        try {
+          produce();
+        } finally {
+          finished.countDown();
+        }
+      }
+    });
+    iteratorRetrieved = true;
+    return iterator;
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    closing = true;
+    if (iteratorRetrieved && !started.compareAndSet(false, true)) {
+      // 等待后台任务读完当前行后退出，避免与 ResultSet 的关闭并发；尚未开始的任务不再执行
+      boolean interrupted = false;
+      while (finished.getCount() > 0) {
+        try {
+          finished.await();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    queue.clear();
+    try {
+      delegate.close();
+    } catch (Exception e) {
+      // ignore
+    }
+  }
+
+  private void produce() {
+    try {
+      Iterator<T> rows = delegate.iterator();
+      while (!closing && rows.hasNext()) {
+        if (!offer(rows.next())) {
+          return;
+        }
+      }
+    } catch (Throwable t) {
+      failure = t;
+    }
+    offer(END);
+  }
+
+  private boolean offer(Object item) {
+    // 不中断后台线程（部分驱动会因中断而关闭连接），而是定时检查是否已关闭
+    while (!closing) {
+      try {
+        if (queue.offer(item, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+          return true;
+        }
+      } catch (InterruptedException e) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  private class PrefetchIterator implements Iterator<T> {
+
+    /**
+     * Holder for the next object to be returned.
+     */
+    private T object;
+
+    @Override
+    public boolean hasNext() {
+      if (object == null) {
+        object = take();
+      }
+      return object != null;
+    }
+
+    @Override
+    public T next() {
+      T next = object;
+      if (next == null) {
+        next = take();
+      }
+      if (next != null) {
+        object = null;
+        deliveredCount++;
+        return next;
+      }
+      throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException("Cannot remove element from Cursor");
+    }
+
+    @SuppressWarnings("unchecked")
+    private T take() {
+      if (closed || consumed) {
+        return null;
+      }
+      Object item;
+      try {
+        item = queue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new PersistenceException("Interrupted while waiting for the next row of the cursor.", e);
+      }
+      if (item != END) {
+        return (T) item;
+      }
+      Throwable t = failure;
+      if (t == null) {
+        consumed = true;
+        return null;
+      }
+      close();
+      if (t instanceof RuntimeException) {
+        throw (RuntimeException) t;
+      }
+      if (t instanceof Error) {
+        throw (Error) t;
+      }
+      throw new PersistenceException("Error fetching the next row of the cursor.  Cause: " + t, t);
+    }
+  }
+
+  /**
+   * Executor used when none is configured: a cached pool of daemon threads, as reading rows blocks on I/O.
+   */
+  private static final class DefaultExecutorHolder {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "mybatis-cursor-prefetch-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+}
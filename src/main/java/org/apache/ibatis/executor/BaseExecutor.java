@@ -18,6 +18,7 @@ package org.apache.ibatis.executor;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.Pagination;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -26,6 +27,9 @@ import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.LocalCacheInvalidation;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -34,8 +38,15 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLSyntaxErrorException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
@@ -68,6 +79,12 @@ public abstract class BaseExecutor implements Executor {
    * 本地输出类型的参数的缓存
    */
   protected PerpetualCache localOutputParameterCache;
+  /**
+   * 本地缓存中，各个查询结果对应的 MappedStatement 。用于选择性失效本地缓存
+   *
+   * @see LocalCacheInvalidation#SELECTIVE
+   */
+  protected Map<CacheKey, MappedStatement> localCacheStatements;
   protected Configuration configuration;
   /**
    * 记录嵌套查询的层级
@@ -77,12 +94,17 @@ public abstract class BaseExecutor implements Executor {
    * 是否关闭
    */
   private boolean closed;
+  /**
+   * 截止时间
+   */
+  private Deadline deadline;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
     this.deferredLoads = new ConcurrentLinkedQueue<>();
     this.localCache = new PerpetualCache("LocalCache");
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
+    this.localCacheStatements = new HashMap<>();
     this.closed = false;
     this.configuration = configuration;
     this.wrapper = this;
@@ -132,7 +154,12 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    clearLocalCache();
+    // 清空本地缓存，或者仅失效相关的查询结果
+    if (configuration.getLocalCacheInvalidation() == LocalCacheInvalidation.SELECTIVE) {
+      clearLocalCache(ms);
+    } else {
+      clearLocalCache();
+    }
     return doUpdate(ms, parameter);
   }
 
@@ -185,25 +212,127 @@ public abstract class BaseExecutor implements Executor {
       queryStack--;
     }
     if (queryStack == 0) {
-      // <6.1> 执行延迟加载
-      for (DeferredLoad deferredLoad : deferredLoads) {
-        deferredLoad.load();
-      }
-      // issue #601
-      // <6.2> 清空 deferredLoads
-      deferredLoads.clear();
-      if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
-        // issue #482
-        // <7> 如果缓存级别是 LocalCacheScope.STATEMENT(语句级别) ，则进行清理
+      afterOutermostQuery();
+    }
+    return list;
+  }
+
+  private void afterOutermostQuery() {
+    // <6.1> 执行延迟加载
+    for (DeferredLoad deferredLoad : deferredLoads) {
+      deferredLoad.load();
+    }
+    // issue #601
+    // <6.2> 清空 deferredLoads
+    deferredLoads.clear();
+    if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
+      // issue #482
+      // <7> 如果缓存级别是 LocalCacheScope.STATEMENT(语句级别) ，则进行清理
+      clearLocalCache();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<List<Object>> queryMultiple(List<MappedStatement> mappedStatements, List<Object> parameters) throws SQLException {
+    ErrorContext.instance().activity("executing multiple queries");
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    final int size = mappedStatements.size();
+    final List<BoundSql> boundSqls = new ArrayList<>(size);
+    final List<CacheKey> keys = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      MappedStatement ms = mappedStatements.get(i);
+      BoundSql boundSql = ms.getBoundSql(parameters.get(i));
+      boundSqls.add(boundSql);
+      keys.add(createCacheKey(ms, parameters.get(i), RowBounds.DEFAULT, boundSql));
+      if (queryStack == 0 && ms.isFlushCacheRequired()) {
         clearLocalCache();
       }
     }
-    return list;
+    final List<List<Object>> results = new ArrayList<>(Collections.nCopies(size, null));
+    // 未命中本地缓存，并且可以合并执行的查询
+    final MultiStatementSelect combined = new MultiStatementSelect(configuration);
+    final List<Integer> combinedIndexes = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      Object cached = localCache.getObject(keys.get(i));
+      if (cached instanceof List) {
+        results.set(i, (List<Object>) cached);
+      } else if (configuration.isMultiStatementSelectsEnabled()
+          && MultiStatementSelect.canCombine(mappedStatements.get(i), boundSqls.get(i))
+          && combined.accepts(mappedStatements.get(i))) {
+        combined.add(mappedStatements.get(i), parameters.get(i), boundSqls.get(i));
+        combinedIndexes.add(i);
+      }
+    }
+    if (combined.size() > 1) {
+      beforeCombinedQuery();
+      queryCombined(combined, combinedIndexes, keys, getConnection(combined.getStatement(0).getStatementLog()), results);
+    }
+    // 其余的查询，以及合并执行失败的查询，逐个执行
+    for (int i = 0; i < size; i++) {
+      if (results.get(i) == null) {
+        results.set(i, query(mappedStatements.get(i), parameters.get(i), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, keys.get(i), boundSqls.get(i)));
+      }
+    }
+    return results;
+  }
+
+  private void queryCombined(MultiStatementSelect combined, List<Integer> indexes, List<CacheKey> keys, Connection connection,
+      List<List<Object>> results) throws SQLException {
+    List<List<Object>> lists;
+    queryStack++;
+    try {
+      for (int index : indexes) {
+        localCache.putObject(keys.get(index), EXECUTION_PLACEHOLDER);
+      }
+      try {
+        lists = combined.execute(wrapper, connection, transaction.getTimeout());
+      } catch (SQLException e) {
+        if (!isCombinedSelectRejected(e)) {
+          throw e;
+        }
+        // 驱动不接受以分号分隔的多条语句，改为逐个执行
+        log.warn("Error executing the combined selects, executing them one after the other.  Cause: " + e);
+        return;
+      } finally {
+        for (int index : indexes) {
+          localCache.removeObject(keys.get(index));
+        }
+      }
+      for (int i = 0; i < indexes.size(); i++) {
+        CacheKey key = keys.get(indexes.get(i));
+        localCache.putObject(key, lists.get(i));
+        if (configuration.getLocalCacheInvalidation() == LocalCacheInvalidation.SELECTIVE) {
+          localCacheStatements.put(key, combined.getStatement(i));
+        }
+        results.set(indexes.get(i), lists.get(i));
+      }
+    } finally {
+      queryStack--;
+    }
+    if (queryStack == 0) {
+      afterOutermostQuery();
+    }
+  }
+
+  /**
+   * 驱动不支持，或者语法上不接受以分号分隔的多条语句 (SQLState 42 类)
+   */
+  private static boolean isCombinedSelectRejected(SQLException e) {
+    return e instanceof SQLFeatureNotSupportedException || e instanceof SQLSyntaxErrorException
+        || (e.getSQLState() != null && e.getSQLState().startsWith("42"));
   }
 
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    // 数据库端分页
+    Pagination pagination = Pagination.of(ms, boundSql, rowBounds);
+    if (pagination != null) {
+      return doQueryCursor(ms, parameter, pagination.getRowBounds(), pagination.getBoundSql());
+    }
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -229,6 +358,12 @@ public abstract class BaseExecutor implements Executor {
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
+    if (rowBounds instanceof KeysetRowBounds) {
+      KeysetRowBounds keyset = (KeysetRowBounds) rowBounds;
+      cacheKey.update(keyset.getKeyColumn());
+      cacheKey.update(keyset.getSeekAfter());
+      cacheKey.update(keyset.isDescending());
+    }
     cacheKey.update(boundSql.getSql());
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
@@ -300,9 +435,44 @@ public abstract class BaseExecutor implements Executor {
     if (!closed) {
       localCache.clear();
       localOutputParameterCache.clear();
+      localCacheStatements.clear();
     }
   }
 
+  /**
+   * Removes the local cache entries of the statements in the namespace of the given statement, or declaring one of its
+   * tables.
+   * 选择性失效本地缓存
+   *
+   * @param ms the statement that writes
+   */
+  protected void clearLocalCache(MappedStatement ms) {
+    if (closed) {
+      return;
+    }
+    // 存在未记录的缓存项（例如执行中的查询），则清空整个本地缓存
+    if (localCache.getSize() != localCacheStatements.size()) {
+      clearLocalCache();
+      return;
+    }
+    Iterator<Map.Entry<CacheKey, MappedStatement>> iterator = localCacheStatements.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<CacheKey, MappedStatement> entry = iterator.next();
+      if (entry.getValue().isAffectedBy(ms)) {
+        localCache.removeObject(entry.getKey());
+        localOutputParameterCache.removeObject(entry.getKey());
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Called before selects are executed together, as they don't go through {@link #doQuery}. Executors holding back
+   * statements execute them here, so that the selects see their changes.
+   */
+  protected void beforeCombinedQuery() throws SQLException {
+  }
+
   protected abstract int doUpdate(MappedStatement ms, Object parameter)
     throws SQLException;
 
@@ -360,14 +530,22 @@ public abstract class BaseExecutor implements Executor {
     // <1> 在缓存中，添加占位对象。此处的占位符，和延迟加载有关，可见 `DeferredLoad#canLoad()` 方法
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
     try {
-      // <2> 执行读操作
-      list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      // <2> 执行读操作。如果由数据库分页，则使用改写后的 SQL
+      Pagination pagination = Pagination.of(ms, boundSql, rowBounds);
+      if (pagination != null) {
+        list = doQuery(ms, parameter, pagination.getRowBounds(), resultHandler, pagination.getBoundSql());
+      } else {
+        list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      }
     } finally {
       // <3> 从缓存中，移除占位对象
       localCache.removeObject(key);
     }
     // <4> 添加到缓存中
     localCache.putObject(key, list);
+    if (configuration.getLocalCacheInvalidation() == LocalCacheInvalidation.SELECTIVE) {
+      localCacheStatements.put(key, ms);
+    }
     if (ms.getStatementType() == StatementType.CALLABLE) {
       // <5> 存储过程相关
       localOutputParameterCache.putObject(key, parameter);
@@ -390,6 +568,16 @@ public abstract class BaseExecutor implements Executor {
     this.wrapper = wrapper;
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
   private static class DeferredLoad {
 
     private final MetaObject resultObject;
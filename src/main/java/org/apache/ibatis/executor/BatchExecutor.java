@@ -15,22 +15,45 @@
  */
 package org.apache.ibatis.executor;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.executor.statement.StatementUtil;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -41,6 +64,10 @@ import org.apache.ibatis.transaction.Transaction;
 public class BatchExecutor extends BaseExecutor {
 
   public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
+
+  private static final Log log = LogFactory.getLog(BatchExecutor.class);
+  private static final AtomicInteger FLUSHER_COUNTER = new AtomicInteger();
+
   /**
    * Statement 数组
    */
@@ -59,6 +86,50 @@ public class BatchExecutor extends BaseExecutor {
    * 当前 MappedStatement 对象
    */
   private MappedStatement currentStatement;
+  /**
+   * 分组模式下，MappedStatement 编号 + SQL 与其在 {@link #statementList} 中位置的映射
+   */
+  private final Map<String, Integer> statementIndexes = new HashMap<>();
+  /**
+   * 分组模式下，每个表最后一个写入它的 Statement 在 {@link #statementList} 中的位置
+   */
+  private final Map<String, Integer> lastTableIndexes = new HashMap<>();
+  /**
+   * 分组模式下，最后一个不能越过的 Statement 在 {@link #statementList} 中的位置：使用 KeyGenerator 的，或未声明 tables 的
+   */
+  private int lastBarrierIndex = -1;
+  /**
+   * 未执行的操作数量
+   */
+  private int pendingParameterCount;
+  /**
+   * 未执行的操作的参数估算字节数
+   */
+  private long pendingBytes;
+  /**
+   * 自动执行的批处理结果，在下次 {@link #flushStatements()} 时返回
+   */
+  private final List<BatchResult> flushedResults = new ArrayList<>();
+  /**
+   * 改写为多行 INSERT 的操作，KEY 为其在 {@link #statementList} 中的位置，该位置的 Statement 为 null
+   */
+  private final Map<Integer, MultiRowInsert> multiRowInserts = new HashMap<>();
+  /**
+   * 流水线模式下，执行批处理的线程
+   */
+  private ExecutorService flusher;
+  /**
+   * 流水线模式下，正在后台执行的批处理。最多一个
+   */
+  private Future<List<BatchResult>> inFlight;
+  /**
+   * 流水线模式下，后台批处理执行期间提交的操作。参数已绑定在内存中，待其完成后再加入批处理
+   */
+  private final List<DeferredUpdate> deferredUpdates = new ArrayList<>();
+  /**
+   * {@link #deferredUpdates} 的参数估算字节数
+   */
+  private long deferredBytes;
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
@@ -69,42 +140,170 @@ public class BatchExecutor extends BaseExecutor {
     final Configuration configuration = ms.getConfiguration();
     // <1> 创建 StatementHandler 对象
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
+    if (inFlight != null && inFlight.isDone()) {
+      // 后台的批处理已完成，取得其结果并抛出其异常，再加入期间提交的操作
+      completeInFlight();
+    }
+    if (inFlight != null) {
+      // 连接不能并发使用：先在内存中绑定参数，待后台的批处理完成后再加入批处理
+      if (!isLimitReached(deferredUpdates.size(), deferredUpdates.size(), deferredBytes)) {
+        final DeferredUpdate deferredUpdate = DeferredUpdate.bind(ms, parameterObject, handler);
+        if (deferredUpdate != null) {
+          if (configuration.getBatchMaxPendingBytes() != null) {
+            deferredUpdate.bytes = estimateParameterBytes(handler.getBoundSql());
+          }
+          deferredUpdates.add(deferredUpdate);
+          deferredBytes += deferredUpdate.bytes;
+          return BATCH_UPDATE_RETURN_VALUE;
+        }
+      }
+      awaitInFlight();
+    }
+    return addBatch(ms, parameterObject, handler, null);
+  }
+
+  /**
+   * Adds an execution to the batch, binding its parameters with its handler, or setting those bound while a batch
+   * was in flight.
+   */
+  private int addBatch(MappedStatement ms, Object parameterObject, StatementHandler handler, DeferredUpdate deferredUpdate)
+      throws SQLException {
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      // <2> 如果匹配最后一次 currentSql 和 currentStatement ，则聚合到 BatchResult 中
-      // <2.1> 获得最后一次的 Statement 对象
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
+    final int reusableIndex = getReusableStatementIndex(ms, sql);
+    if (reusableIndex >= 0) {
+      // <2> 如果匹配可复用的 Statement ，则聚合到 BatchResult 中
+      MultiRowInsert multiRowInsert = multiRowInserts.get(reusableIndex);
+      if (multiRowInsert != null) {
+        // 改写为多行 INSERT 的操作，在执行批处理时一起插入
+        multiRowInsert.addRow(boundSql);
+        batchResultList.get(reusableIndex).addParameterObject(parameterObject);
+        return afterBatch(boundSql);
+      }
+      // <2.1> 获得可复用的 Statement 对象
+      stmt = statementList.get(reusableIndex);
       // <2.2> 设置事务超时时间
       applyTransactionTimeout(stmt);
       // <2.3> 设置 SQL 上的参数，例如 PrepareStatement 对象上的占位符
-      handler.parameterize(stmt);//fix Issues 322
-      // <2.4> 获得最后一次的 BatchResult 对象，并添加参数到其中
-      BatchResult batchResult = batchResultList.get(last);
+      parameterize(handler, stmt, deferredUpdate);//fix Issues 322
+      // <2.4> 获得对应的 BatchResult 对象，并添加参数到其中
+      BatchResult batchResult = batchResultList.get(reusableIndex);
       batchResult.addParameterObject(parameterObject);
     } else {
       // <3> 如果不匹配最后一次 currentSql 和 currentStatement ，则新建 BatchResult 对象
-      // <3.1> 获得 Connection
-      Connection connection = getConnection(ms.getStatementLog());
-      // <3.2> 创建 Statement 或 PrepareStatement 对象
-      stmt = handler.prepare(connection, transaction.getTimeout());
-      // <3.3> 设置 SQL 上的参数，例如 PrepareStatement 对象上的占位符
-      handler.parameterize(stmt);    //fix Issues 322
+      MultiRowInsert multiRowInsert = configuration.getBatchInsertRewriteSize() != null ? MultiRowInsert.create(ms, boundSql) : null;
+      if (multiRowInsert != null) {
+        // 可改写为多行 INSERT ，不创建 Statement 对象
+        multiRowInsert.addRow(boundSql);
+        multiRowInserts.put(statementList.size(), multiRowInsert);
+        stmt = null;
+      } else {
+        // <3.1> 获得 Connection
+        Connection connection = getConnection(ms.getStatementLog());
+        // <3.2> 创建 Statement 或 PrepareStatement 对象
+        stmt = handler.prepare(connection, transaction.getTimeout());
+        // <3.3> 设置 SQL 上的参数，例如 PrepareStatement 对象上的占位符
+        parameterize(handler, stmt, deferredUpdate);    //fix Issues 322
+      }
       // <3.4> 重新设置 currentSql 和 currentStatement
       currentSql = sql;
       currentStatement = ms;
       // <3.5> 添加 Statement 到 statementList 中
       statementList.add(stmt);
+      if (configuration.isBatchStatementGrouping()) {
+        addGroupingBarriers(ms, sql, statementList.size() - 1);
+      }
       // <3.6> 创建 BatchResult 对象，并添加到 batchResultList 中
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      if (stmt == null) {
+        return afterBatch(boundSql);
+      }
     }
     // <4> 批处理
     handler.batch(stmt);
+    // <5> 达到阈值时，自动执行批处理
+    return afterBatch(boundSql);
+  }
+
+  private static void parameterize(StatementHandler handler, Statement stmt, DeferredUpdate deferredUpdate) throws SQLException {
+    if (deferredUpdate != null) {
+      deferredUpdate.setParameters((PreparedStatement) stmt);
+    } else {
+      handler.parameterize(stmt);
+    }
+  }
+
+  private int afterBatch(BoundSql boundSql) throws SQLException {
+    pendingParameterCount++;
+    if (configuration.getBatchMaxPendingBytes() != null) {
+      pendingBytes += estimateParameterBytes(boundSql);
+    }
+    autoFlushIfNeeded();
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  /**
+   * Returns the position of the statement the execution can be added to, or -1 if a new statement is needed.
+   * <p>
+   * By default only the last statement is reused. With {@code batchStatementGrouping}, an INSERT declaring its
+   * tables is added to the statement of an earlier execution of the same SQL, which moves it ahead of the statements
+   * added since. It is only moved past statements declaring other tables and not generating keys: any other write,
+   * for example to the parent table of a foreign key, may depend on the order of the rows.
+   */
+  private int getReusableStatementIndex(MappedStatement ms, String sql) {
+    final int lastIndex = sql.equals(currentSql) && ms.equals(currentStatement) ? statementList.size() - 1 : -1;
+    if (!configuration.isBatchStatementGrouping() || ms.getSqlCommandType() != SqlCommandType.INSERT) {
+      return lastIndex;
+    }
+    final Integer index = statementIndexes.get(groupKey(ms, sql));
+    if (index == null || index < lastBarrierIndex) {
+      return lastIndex;
+    }
+    for (String table : getDeclaredTables(ms)) {
+      Integer lastTableIndex = lastTableIndexes.get(table);
+      if (lastTableIndex != null && lastTableIndex > index) {
+        return lastIndex;
+      }
+    }
+    return index;
+  }
+
+  private void addGroupingBarriers(MappedStatement ms, String sql, int index) {
+    final String[] tables = getDeclaredTables(ms);
+    if (tables == null || !(ms.getKeyGenerator() instanceof NoKeyGenerator)) {
+      lastBarrierIndex = index;
+    } else {
+      for (String table : tables) {
+        lastTableIndexes.put(table, index);
+      }
+    }
+    if (tables != null && ms.getSqlCommandType() == SqlCommandType.INSERT) {
+      statementIndexes.put(groupKey(ms, sql), index);
+    }
+  }
+
+  /**
+   * Returns the declared tables of the statement, or {@code null} if it declares none. Names are lower case, without
+   * quotes nor schema.
+   */
+  private static String[] getDeclaredTables(MappedStatement ms) {
+    final String[] tables = ms.getTables();
+    if (tables == null || tables.length == 0) {
+      return null;
+    }
+    final String[] names = new String[tables.length];
+    for (int i = 0; i < tables.length; i++) {
+      String name = tables[i].replaceAll("[\"`\\[\\]]", "");
+      names[i] = name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ENGLISH);
+    }
+    return names;
+  }
+
+  private static String groupKey(MappedStatement ms, String sql) {
+    return ms.getId() + '\u0000' + sql;
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -122,6 +321,11 @@ public class BatchExecutor extends BaseExecutor {
     }
   }
 
+  @Override
+  protected void beforeCombinedQuery() throws SQLException {
+    flushStatements();
+  }
+
   @Override
   protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
     flushStatements();
@@ -136,18 +340,233 @@ public class BatchExecutor extends BaseExecutor {
 
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    if (isRollback) {
+      try {
+        // 回滚时忽略后台批处理的异常
+        awaitInFlightQuietly();
+      } finally {
+        flushedResults.clear();
+        closeStatements();
+      }
+      return Collections.emptyList();
+    }
+    // 等待后台批处理完成，并抛出其异常
     try {
+      awaitInFlight();
+    } catch (SQLException | RuntimeException e) {
+      closeStatements();
+      throw e;
+    }
+    // 先返回自动刷入的 BatchResult
+    List<BatchResult> results = new ArrayList<>(flushedResults);
+    flushedResults.clear();
+    executeBatches(results);
+    return results;
+  }
+
+  /**
+   * Executes the pending statements once one of the configured thresholds is reached. The results are kept until the
+   * next call of {@link #flushStatements()}.
+   */
+  private void autoFlushIfNeeded() throws SQLException {
+    if (isLimitReached(statementList.size(), pendingParameterCount, pendingBytes)) {
+      if (configuration.isBatchPipelined() && canExecuteInBackground()) {
+        executeInBackground();
+      } else {
+        awaitInFlight();
+        executeBatches(flushedResults);
+      }
+    }
+  }
+
+  private boolean isLimitReached(int statements, int parameters, long bytes) {
+    final Integer maxStatements = configuration.getBatchMaxPendingStatements();
+    final Integer maxParameters = configuration.getBatchMaxPendingParameters();
+    final Integer maxBytes = configuration.getBatchMaxPendingBytes();
+    return (maxStatements != null && statements >= maxStatements)
+        || (maxParameters != null && parameters >= maxParameters)
+        || (maxBytes != null && bytes >= maxBytes);
+  }
+
+  /**
+   * Key generators other than JDBC's run statements through this executor once the batch is executed, which can only
+   * be done from the thread using it.
+   */
+  private boolean canExecuteInBackground() {
+    for (BatchResult batchResult : batchResultList) {
+      KeyGenerator keyGenerator = batchResult.getMappedStatement().getKeyGenerator();
+      if (!(keyGenerator instanceof NoKeyGenerator) && !(keyGenerator instanceof Jdbc3KeyGenerator)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Hands the pending statements over to the flusher thread, once the batch in flight has completed. The connection
+   * is not used by this thread until the batch has completed: the statements executed meanwhile are bound in memory,
+   * up to the pending limits, and added to the next batch once it has completed. Queries and flushes wait for it.
+   */
+  private void executeInBackground() throws SQLException {
+    awaitInFlight();
+    final List<Statement> statements = new ArrayList<>(statementList);
+    final List<BatchResult> batchResults = new ArrayList<>(batchResultList);
+    final Map<Integer, MultiRowInsert> inserts = new HashMap<>(multiRowInserts);
+    // 在调用线程上取得连接、超时时间和截止时间
+    final Map<Integer, Connection> connections = getInsertConnections(batchResults, inserts);
+    final Integer timeout = transaction.getTimeout();
+    final Deadline deadline = getDeadline();
+    resetStatements();
+    if (flusher == null) {
+      flusher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-batch-flusher-" + FLUSHER_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+    inFlight = flusher.submit(() -> {
       List<BatchResult> results = new ArrayList<>();
-      if (isRollback) {
-        return Collections.emptyList();
+      try {
+        executeBatches(statements, batchResults, inserts, connections, timeout, deadline, results);
+      } finally {
+        closeStatements(statements);
+      }
+      return results;
+    });
+  }
+
+  /**
+   * Waits until no batch is in flight, all the deferred executions added to the pending statements.
+   */
+  private void awaitInFlight() throws SQLException {
+    while (inFlight != null) {
+      completeInFlight();
+    }
+  }
+
+  /**
+   * Waits for the batch in flight and keeps its results until the next call of {@link #flushStatements()}, then adds
+   * the executions deferred meanwhile to the batch. Its failure is thrown here.
+   */
+  private void completeInFlight() throws SQLException {
+    try {
+      List<BatchResult> results = inFlight.get();
+      inFlight = null;
+      flushedResults.addAll(results);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for the batch in flight.", e);
+    } catch (ExecutionException e) {
+      inFlight = null;
+      // 批处理失败，期间提交的操作不再执行
+      clearDeferredUpdates();
+      Throwable cause = e.getCause();
+      if (cause instanceof SQLException) {
+        throw (SQLException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new ExecutorException("Error executing the batch in flight. Cause: " + cause, cause);
+    }
+    // 按提交的顺序加入批处理。若其中之一又触发了后台执行，其后的继续等待
+    final List<DeferredUpdate> updates = new ArrayList<>(deferredUpdates);
+    clearDeferredUpdates();
+    for (DeferredUpdate update : updates) {
+      if (inFlight != null) {
+        deferredUpdates.add(update);
+        deferredBytes += update.bytes;
+      } else {
+        addBatch(update.mappedStatement, update.parameterObject, update.handler, update);
       }
-      for (int i = 0, n = statementList.size(); i < n; i++) {
-        Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
-        BatchResult batchResult = batchResultList.get(i);
+    }
+  }
+
+  private void clearDeferredUpdates() {
+    deferredUpdates.clear();
+    deferredBytes = 0;
+  }
+
+  private void awaitInFlightQuietly() {
+    if (inFlight == null) {
+      return;
+    }
+    boolean interrupted = false;
+    try {
+      while (true) {
         try {
+          inFlight.get();
+          break;
+        } catch (InterruptedException e) {
+          // 必须等待其完成，才能回滚或关闭连接
+          interrupted = true;
+        } catch (ExecutionException e) {
+          log.debug("Ignoring the failure of the batch in flight on rollback. Cause: " + e.getCause());
+          break;
+        }
+      }
+    } finally {
+      inFlight = null;
+      clearDeferredUpdates();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public void close(boolean forceRollback) {
+    try {
+      super.close(forceRollback);
+    } finally {
+      if (flusher != null) {
+        flusher.shutdown();
+        flusher = null;
+      }
+    }
+  }
+
+  private void executeBatches(List<BatchResult> results) throws SQLException {
+    try {
+      executeBatches(statementList, batchResultList, multiRowInserts, getInsertConnections(batchResultList, multiRowInserts),
+          transaction.getTimeout(), getDeadline(), results);
+    } finally {
+      closeStatements();
+    }
+  }
+
+  /**
+   * 获得改写为多行 INSERT 的操作使用的连接，KEY 为其在 Statement 数组中的位置
+   */
+  private Map<Integer, Connection> getInsertConnections(List<BatchResult> batchResults, Map<Integer, MultiRowInsert> inserts)
+      throws SQLException {
+    if (inserts.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    Map<Integer, Connection> connections = new HashMap<>();
+    for (Integer index : inserts.keySet()) {
+      connections.put(index, getConnection(batchResults.get(index).getMappedStatement().getStatementLog()));
+    }
+    return connections;
+  }
+
+  private void executeBatches(List<Statement> statements, List<BatchResult> batchResults, Map<Integer, MultiRowInsert> inserts,
+      Map<Integer, Connection> connections, Integer timeout, Deadline deadline, List<BatchResult> results) throws SQLException {
+    for (int i = 0, n = statements.size(); i < n; i++) {
+      Statement stmt = statements.get(i);
+      BatchResult batchResult = batchResults.get(i);
+      MultiRowInsert multiRowInsert = inserts.get(i);
+      try {
+        MappedStatement ms = batchResult.getMappedStatement();
+        if (multiRowInsert != null) {
+          // 以多行 INSERT 执行，主键在其中设置
+          batchResult.setUpdateCounts(multiRowInsert.execute(connections.get(i), timeout, deadline,
+              configuration.getBatchInsertRewriteSize(), configuration.getBatchInsertMaxParameters()));
+        } else {
+          StatementUtil.applyTransactionTimeout(stmt, stmt.getQueryTimeout(), timeout);
+          StatementUtil.applyDeadline(stmt, deadline);
           batchResult.setUpdateCounts(stmt.executeBatch());
-          MappedStatement ms = batchResult.getMappedStatement();
           List<Object> parameterObjects = batchResult.getParameterObjects();
           KeyGenerator keyGenerator = ms.getKeyGenerator();
           if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
@@ -158,33 +577,157 @@ public class BatchExecutor extends BaseExecutor {
               keyGenerator.processAfter(this, ms, stmt, parameter);
             }
           }
-          // Close statement to close cursor #1109
-          closeStatement(stmt);
-        } catch (BatchUpdateException e) {
-          StringBuilder message = new StringBuilder();
-          message.append(batchResult.getMappedStatement().getId())
-              .append(" (batch index #")
-              .append(i + 1)
-              .append(")")
-              .append(" failed.");
-          if (i > 0) {
-            message.append(" ")
-                .append(i)
-                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
-          }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
         }
-        results.add(batchResult);
-      }
-      return results;
-    } finally {
-      for (Statement stmt : statementList) {
+        // 主键已设置，不再持有参数对象
+        if (!configuration.isBatchRetainParameterObjects()) {
+          batchResult.clearParameterObjects();
+        }
+        // Close statement to close cursor #1109
         closeStatement(stmt);
+      } catch (BatchUpdateException e) {
+        StringBuilder message = new StringBuilder();
+        message.append(batchResult.getMappedStatement().getId())
+            .append(" (batch index #")
+            .append(i + 1)
+            .append(")")
+            .append(" failed.");
+        if (i > 0) {
+          message.append(" ")
+              .append(i)
+              .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+        }
+        throw new BatchExecutorException(message.toString(), e, results, batchResult);
+      }
+      results.add(batchResult);
+    }
+  }
+
+  private void closeStatements() {
+    closeStatements(statementList);
+    resetStatements();
+    clearDeferredUpdates();
+  }
+
+  private void closeStatements(List<Statement> statements) {
+    for (Statement stmt : statements) {
+      closeStatement(stmt);
+    }
+  }
+
+  private void resetStatements() {
+    currentSql = null;
+    statementIndexes.clear();
+    multiRowInserts.clear();
+    lastTableIndexes.clear();
+    lastBarrierIndex = -1;
+    pendingParameterCount = 0;
+    pendingBytes = 0;
+    statementList.clear();
+    batchResultList.clear();
+  }
+
+  /**
+   * Estimates the memory held by the bound values of one execution, in bytes.
+   */
+  private long estimateParameterBytes(BoundSql boundSql) {
+    long bytes = 0;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() != ParameterMode.OUT) {
+        bytes += estimateValueBytes(DefaultParameterHandler.getParameterValue(configuration, boundSql,
+            boundSql.getParameterObject(), parameterMapping));
       }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
     }
+    return bytes;
+  }
+
+  private static long estimateValueBytes(Object value) {
+    if (value == null) {
+      return 8;
+    } else if (value instanceof CharSequence) {
+      return 40 + 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return 16 + ((byte[]) value).length;
+    } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+      return 16;
+    }
+    return 32;
+  }
+
+  /**
+   * An execution submitted while a batch is in flight. Its parameters are bound right away to a statement recording
+   * them in memory, and set on the real statement once the batch has completed.
+   */
+  private static final class DeferredUpdate implements InvocationHandler {
+
+    private final MappedStatement mappedStatement;
+    private final Object parameterObject;
+    private final StatementHandler handler;
+    private final List<Method> setters = new ArrayList<>();
+    private final List<Object[]> arguments = new ArrayList<>();
+    private long bytes;
+    private boolean unsupported;
+
+    private DeferredUpdate(MappedStatement mappedStatement, Object parameterObject, StatementHandler handler) {
+      this.mappedStatement = mappedStatement;
+      this.parameterObject = parameterObject;
+      this.handler = handler;
+    }
+
+    /**
+     * @return the execution with its bound parameters, or null if they cannot be bound without the connection
+     */
+    static DeferredUpdate bind(MappedStatement ms, Object parameterObject, StatementHandler handler) throws SQLException {
+      if (ms.getStatementType() != StatementType.PREPARED) {
+        return null;
+      }
+      final DeferredUpdate update = new DeferredUpdate(ms, parameterObject, handler);
+      final PreparedStatement recorder = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+          new Class<?>[] { PreparedStatement.class }, update);
+      try {
+        handler.parameterize(recorder);
+      } catch (SQLException | RuntimeException e) {
+        if (update.unsupported) {
+          return null;
+        }
+        throw e;
+      }
+      return update.unsupported ? null : update;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (Object.class.equals(method.getDeclaringClass())) {
+        return method.invoke(this, args);
+      }
+      if ("clearParameters".equals(method.getName())
+          || (method.getName().startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer)) {
+        setters.add(method);
+        arguments.add(args);
+        return null;
+      }
+      // 例如需要连接创建 Array 或 Blob 的 TypeHandler ，不能在内存中绑定
+      unsupported = true;
+      throw new SQLFeatureNotSupportedException("Cannot bind parameters while a batch is in flight: " + method.getName());
+    }
+
+    void setParameters(PreparedStatement ps) throws SQLException {
+      for (int i = 0; i < setters.size(); i++) {
+        try {
+          setters.get(i).invoke(ps, arguments.get(i));
+        } catch (InvocationTargetException e) {
+          Throwable cause = e.getTargetException();
+          if (cause instanceof SQLException) {
+            throw (SQLException) cause;
+          } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new ExecutorException("Error setting parameters.  Cause: " + cause, cause);
+        } catch (IllegalAccessException e) {
+          throw new ExecutorException("Error setting parameters.  Cause: " + e, e);
+        }
+      }
+    }
+
   }
 
 }
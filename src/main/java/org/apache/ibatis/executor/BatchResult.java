@@ -44,6 +44,10 @@ public class BatchResult {
    * 每一个元素，对应一次操作的更新数量
    */
   private int[] updateCounts;
+  /**
+   * 添加到 Statement 批处理中的操作数量
+   */
+  private int batchSize;
 
   public BatchResult(MappedStatement mappedStatement, String sql) {
     super();
@@ -84,6 +88,22 @@ public class BatchResult {
 
   public void addParameterObject(Object parameterObject) {
     this.parameterObjects.add(parameterObject);
+    this.batchSize++;
+  }
+
+  /**
+   * Releases the parameter objects, once the batch has been executed and the generated keys assigned.
+   * {@link #getBatchSize()} still reports their number.
+   */
+  public void clearParameterObjects() {
+    this.parameterObjects.clear();
+  }
+
+  /**
+   * @return the number of executions added to the batch of this statement
+   */
+  public int getBatchSize() {
+    return batchSize;
   }
 
 }
@@ -16,6 +16,8 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.ibatis.cache.Cache;
@@ -28,6 +30,7 @@ import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -109,6 +112,52 @@ public class CachingExecutor implements Executor {
     return delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
   }
 
+  @Override
+  public List<List<Object>> queryMultiple(List<MappedStatement> mappedStatements, List<Object> parameters) throws SQLException {
+    final int size = mappedStatements.size();
+    final List<List<Object>> results = new ArrayList<>(Collections.nCopies(size, null));
+    final List<Integer> missingIndexes = new ArrayList<>();
+    final List<CacheKey> missingKeys = new ArrayList<>();
+    // 先从二级缓存中获取，未命中的查询交给 delegate 一起执行
+    for (int i = 0; i < size; i++) {
+      MappedStatement ms = mappedStatements.get(i);
+      Cache cache = ms.getCache();
+      CacheKey key = null;
+      if (cache != null) {
+        flushCacheIfRequired(ms);
+        if (ms.isUseCache()) {
+          BoundSql boundSql = ms.getBoundSql(parameters.get(i));
+          ensureNoOutParams(ms, boundSql);
+          key = createCacheKey(ms, parameters.get(i), RowBounds.DEFAULT, boundSql);
+          @SuppressWarnings("unchecked")
+          List<Object> list = (List<Object>) tcm.getObject(cache, key);
+          if (list != null) {
+            results.set(i, list);
+            continue;
+          }
+        }
+      }
+      missingIndexes.add(i);
+      missingKeys.add(key);
+    }
+    if (!missingIndexes.isEmpty()) {
+      final List<MappedStatement> missingStatements = new ArrayList<>(missingIndexes.size());
+      final List<Object> missingParameters = new ArrayList<>(missingIndexes.size());
+      for (int index : missingIndexes) {
+        missingStatements.add(mappedStatements.get(index));
+        missingParameters.add(parameters.get(index));
+      }
+      final List<List<Object>> lists = delegate.queryMultiple(missingStatements, missingParameters);
+      for (int i = 0; i < missingIndexes.size(); i++) {
+        results.set(missingIndexes.get(i), lists.get(i));
+        if (missingKeys.get(i) != null) {
+          tcm.putObject(missingStatements.get(i).getCache(), missingKeys.get(i), lists.get(i));
+        }
+      }
+    }
+    return results;
+  }
+
   @Override
   public List<BatchResult> flushStatements() throws SQLException {
     return delegate.flushStatements();
@@ -173,4 +222,14 @@ public class CachingExecutor implements Executor {
     throw new UnsupportedOperationException("This method should not be called");
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    delegate.setDeadline(deadline);
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    return delegate.getDeadline();
+  }
+
 }
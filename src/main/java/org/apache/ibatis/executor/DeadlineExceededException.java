@@ -0,0 +1,37 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import org.apache.ibatis.session.Deadline;
+
+/**
+ * This exception is thrown instead of running a statement once the {@link Deadline} of the call has passed.
+ */
+public class DeadlineExceededException extends ExecutorException {
+
+  private static final long serialVersionUID = -3291468150829468183L;
+  private final transient Deadline deadline;
+
+  public DeadlineExceededException(String message, Deadline deadline) {
+    super(message + " " + deadline);
+    this.deadline = deadline;
+  }
+
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
+}
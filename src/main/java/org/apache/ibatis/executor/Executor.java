@@ -20,11 +20,13 @@ import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -92,6 +94,23 @@ public interface Executor {
    */
   <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException;
 
+  /**
+   * Query multiple.
+   * 执行多个查询，可能的话在一次往返中执行。默认逐个执行
+   *
+   * @param mappedStatements the select statements
+   * @param parameters       the parameter of each statement
+   * @return the results of each statement, in the same order
+   * @throws SQLException the sql exception
+   */
+  default List<List<Object>> queryMultiple(List<MappedStatement> mappedStatements, List<Object> parameters) throws SQLException {
+    final List<List<Object>> results = new ArrayList<>(mappedStatements.size());
+    for (int i = 0; i < mappedStatements.size(); i++) {
+      results.add(query(mappedStatements.get(i), parameters.get(i), RowBounds.DEFAULT, NO_RESULT_HANDLER));
+    }
+    return results;
+  }
+
   /**
    * Flush statements list.
    * 刷入批处理语句
@@ -191,4 +210,23 @@ public interface Executor {
    */
   void setExecutorWrapper(Executor executor);
 
+  /**
+   * Sets deadline.
+   * 设置截止时间，之后执行的语句的超时时间不超过剩余时间，过期后不再执行语句；默认不支持，忽略
+   *
+   * @param deadline the deadline, or null to remove it
+   */
+  default void setDeadline(Deadline deadline) {
+  }
+
+  /**
+   * Gets deadline.
+   * 获得截止时间
+   *
+   * @return the deadline, or null
+   */
+  default Deadline getDeadline() {
+    return null;
+  }
+
 }
@@ -0,0 +1,315 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementUtil;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Deadline;
+
+/**
+ * Executions of a single-row {@code INSERT ... VALUES (...)} statement, executed as multi-row inserts.
+ * <p>
+ * The rows are sent in chunks of {@code INSERT ... VALUES (...), (...), ...}. A chunk holds at most the configured
+ * number of rows and, when a parameter limit is set, at most as many rows as fit in that limit.
+ */
+final class MultiRowInsert {
+
+  private final MappedStatement ms;
+  private final String prefix;
+  private final String tuple;
+  private final List<BoundSql> rows = new ArrayList<>();
+
+  private MultiRowInsert(MappedStatement ms, String prefix, String tuple) {
+    this.ms = ms;
+    this.prefix = prefix;
+    this.tuple = tuple;
+  }
+
+  /**
+   * Returns a rewriter for the statement, or {@code null} if its SQL cannot be rewritten: it must be a prepared
+   * INSERT ending with a single VALUES tuple that holds all the parameters, and keys must be generated by JDBC or
+   * not at all.
+   */
+  static MultiRowInsert create(MappedStatement ms, BoundSql boundSql) {
+    if (ms.getSqlCommandType() != SqlCommandType.INSERT || ms.getStatementType() != StatementType.PREPARED) {
+      return null;
+    }
+    final KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (!(keyGenerator instanceof NoKeyGenerator) && !(keyGenerator instanceof Jdbc3KeyGenerator)) {
+      return null;
+    }
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() != ParameterMode.IN) {
+        return null;
+      }
+    }
+    final String sql = boundSql.getSql().trim();
+    final int tupleStart = findValuesTuple(sql);
+    if (tupleStart < 0) {
+      return null;
+    }
+    final String prefix = sql.substring(0, tupleStart);
+    final String tuple = sql.substring(tupleStart);
+    if (countPlaceholders(prefix) != 0 || countPlaceholders(tuple) != boundSql.getParameterMappings().size()) {
+      return null;
+    }
+    return new MultiRowInsert(ms, prefix, tuple);
+  }
+
+  void addRow(BoundSql boundSql) {
+    rows.add(boundSql);
+  }
+
+  int size() {
+    return rows.size();
+  }
+
+  /**
+   * Inserts the rows and assigns the generated keys.
+   *
+   * @return an update count per row, {@link Statement#SUCCESS_NO_INFO} when the driver reports a different total
+   */
+  int[] execute(Connection connection, Integer transactionTimeout, Deadline deadline, int maxRows, Integer maxParameters) throws SQLException {
+    final int parametersPerRow = rows.get(0).getParameterMappings().size();
+    int rowsPerChunk = Math.max(1, maxRows);
+    if (maxParameters != null && parametersPerRow > 0) {
+      rowsPerChunk = Math.max(1, Math.min(rowsPerChunk, maxParameters / parametersPerRow));
+    }
+    final int[] updateCounts = new int[rows.size()];
+    int done = 0;
+    String chunkSql = null;
+    int chunkSqlRows = -1;
+    while (done < rows.size()) {
+      final int count = Math.min(rowsPerChunk, rows.size() - done);
+      if (count != chunkSqlRows) {
+        chunkSql = buildSql(count);
+        chunkSqlRows = count;
+      }
+      try (PreparedStatement ps = prepare(connection, chunkSql, transactionTimeout, deadline)) {
+        final List<Object> parameterObjects = new ArrayList<>(count);
+        int index = 1;
+        for (int i = done; i < done + count; i++) {
+          final BoundSql row = rows.get(i);
+          index = setParameters(ms.getConfiguration().newParameterHandler(ms, row.getParameterObject(), row), row, ps, index);
+          parameterObjects.add(row.getParameterObject());
+        }
+        final int inserted = ps.executeUpdate();
+        Arrays.fill(updateCounts, done, done + count, inserted == count ? 1 : Statement.SUCCESS_NO_INFO);
+        if (ms.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+          ((Jdbc3KeyGenerator) ms.getKeyGenerator()).processBatch(ms, ps, parameterObjects);
+        }
+      } catch (BatchUpdateException e) {
+        throw e;
+      } catch (SQLException e) {
+        // 与 Statement#executeBatch 一致，以 BatchUpdateException 报告失败
+        throw new BatchUpdateException(e.getMessage(), e.getSQLState(), e.getErrorCode(), Arrays.copyOf(updateCounts, done), e);
+      }
+      done += count;
+    }
+    return updateCounts;
+  }
+
+  private String buildSql(int count) {
+    final StringBuilder sql = new StringBuilder(prefix.length() + (tuple.length() + 2) * count);
+    sql.append(prefix);
+    for (int i = 0; i < count; i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(tuple);
+    }
+    return sql.toString();
+  }
+
+  private PreparedStatement prepare(Connection connection, String sql, Integer transactionTimeout, Deadline deadline) throws SQLException {
+    StatementUtil.checkDeadline(deadline);
+    final PreparedStatement ps;
+    if (ms.getKeyGenerator() instanceof Jdbc3KeyGenerator) {
+      final String[] keyColumnNames = ms.getKeyColumns();
+      ps = keyColumnNames == null ? connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+          : connection.prepareStatement(sql, keyColumnNames);
+    } else {
+      ps = connection.prepareStatement(sql);
+    }
+    Integer queryTimeout = ms.getTimeout() != null ? ms.getTimeout() : ms.getConfiguration().getDefaultStatementTimeout();
+    if (queryTimeout != null) {
+      ps.setQueryTimeout(queryTimeout);
+    }
+    StatementUtil.applyTransactionTimeout(ps, queryTimeout, transactionTimeout);
+    try {
+      StatementUtil.applyDeadline(ps, deadline);
+    } catch (DeadlineExceededException e) {
+      ps.close();
+      throw e;
+    }
+    return ps;
+  }
+
+  /**
+   * Binds the parameters of one statement with its {@link ParameterHandler}, shifted to start at the given index, so
+   * that the statement can share a {@link PreparedStatement} with others.
+   *
+   * @return the index of the next parameter
+   */
+  static int setParameters(ParameterHandler parameterHandler, BoundSql boundSql, PreparedStatement ps, int startIndex) throws SQLException {
+    final PreparedStatement target = startIndex == 1 ? ps : (PreparedStatement) Proxy.newProxyInstance(
+        PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class },
+        new ParameterIndexOffset(ps, startIndex - 1));
+    parameterHandler.setParameters(target);
+    return startIndex + boundSql.getParameterMappings().size();
+  }
+
+  /**
+   * Adds an offset to the parameter index of the setters of a {@link PreparedStatement}.
+   */
+  private static class ParameterIndexOffset implements InvocationHandler {
+
+    private final PreparedStatement ps;
+    private final int offset;
+
+    ParameterIndexOffset(PreparedStatement ps, int offset) {
+      this.ps = ps;
+      this.offset = offset;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      // 只偏移 PreparedStatement 声明的参数设置方法，Statement 的 setFetchSize 等不变
+      if (PreparedStatement.class.equals(method.getDeclaringClass()) && method.getName().startsWith("set")
+          && args != null && args.length > 0 && args[0] instanceof Integer) {
+        args[0] = (Integer) args[0] + offset;
+      }
+      try {
+        return method.invoke(ps, args);
+      } catch (Throwable t) {
+        throw ExceptionUtil.unwrapThrowable(t);
+      }
+    }
+  }
+
+  /**
+   * Returns the position of the opening parenthesis of the VALUES tuple, or -1 unless the statement ends with exactly
+   * one tuple following a single top-level VALUES keyword.
+   */
+  static int findValuesTuple(String sql) {
+    int valuesEnd = -1;
+    int depth = 0;
+    final int length = sql.length();
+    for (int i = 0; i < length; i++) {
+      final char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return -1;
+        }
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && (c == 'v' || c == 'V') && sql.regionMatches(true, i, "values", 0, 6)
+          && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))
+          && (i + 6 == length || !isIdentifierPart(sql.charAt(i + 6)))) {
+        if (valuesEnd >= 0) {
+          return -1;
+        }
+        valuesEnd = i + 6;
+        i += 5;
+      }
+    }
+    if (valuesEnd < 0) {
+      return -1;
+    }
+    int start = valuesEnd;
+    while (start < length && Character.isWhitespace(sql.charAt(start))) {
+      start++;
+    }
+    if (start == length || sql.charAt(start) != '(') {
+      return -1;
+    }
+    depth = 0;
+    for (int i = start; i < length; i++) {
+      final char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return -1;
+        }
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        // 元组之后不能再有其它内容，例如第二个元组或 ON DUPLICATE KEY UPDATE
+        return i == length - 1 ? start : -1;
+      }
+    }
+    return -1;
+  }
+
+  private static int countPlaceholders(String sql) {
+    int count = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      final char c = sql.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = skipQuoted(sql, i);
+        if (i < 0) {
+          return -1;
+        }
+      } else if (c == '?') {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static int skipQuoted(String sql, int start) {
+    final char quote = sql.charAt(start);
+    for (int i = start + 1; i < sql.length(); i++) {
+      if (sql.charAt(i) == quote) {
+        if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+          i++;
+        } else {
+          return i;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+}
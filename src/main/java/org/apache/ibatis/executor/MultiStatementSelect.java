@@ -0,0 +1,204 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Selects executed as one prepared statement, their SQL separated by semicolons. Each result set is mapped by the
+ * {@link ResultSetHandler} of its own statement, in the order the selects were added.
+ */
+final class MultiStatementSelect {
+
+  private final Configuration configuration;
+  private final List<MappedStatement> statements = new ArrayList<>();
+  private final List<Object> parameters = new ArrayList<>();
+  private final List<BoundSql> boundSqls = new ArrayList<>();
+
+  MultiStatementSelect(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * Whether the select can share a statement with others: it must be a prepared select with IN parameters only, and
+   * map a single result set.
+   */
+  static boolean canCombine(MappedStatement ms, BoundSql boundSql) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() != StatementType.PREPARED) {
+      return false;
+    }
+    if (ms.getResultMaps().size() != 1 || ms.getResultSets() != null) {
+      return false;
+    }
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() != ParameterMode.IN) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  void add(MappedStatement ms, Object parameter, BoundSql boundSql) {
+    statements.add(ms);
+    parameters.add(parameter);
+    boundSqls.add(boundSql);
+  }
+
+  int size() {
+    return statements.size();
+  }
+
+  MappedStatement getStatement(int index) {
+    return statements.get(index);
+  }
+
+  /**
+   * @return the SQL of the selects separated by semicolons, with the parameter mappings of all of them
+   */
+  BoundSql getBoundSql() {
+    final StringBuilder sql = new StringBuilder();
+    final List<ParameterMapping> parameterMappings = new ArrayList<>();
+    for (BoundSql boundSql : boundSqls) {
+      if (sql.length() > 0) {
+        sql.append(";\n");
+      }
+      sql.append(stripTrailingSemicolons(boundSql.getSql()));
+      parameterMappings.addAll(boundSql.getParameterMappings());
+    }
+    return new BoundSql(configuration, sql.toString(), parameterMappings, parameters.get(0));
+  }
+
+  /**
+   * Whether the select can be sent with the ones already added: the statement they share is prepared with the
+   * timeout, fetch size and result set type of the first one.
+   */
+  boolean accepts(MappedStatement ms) {
+    if (statements.isEmpty()) {
+      return true;
+    }
+    final MappedStatement first = statements.get(0);
+    return Objects.equals(first.getTimeout(), ms.getTimeout())
+        && Objects.equals(first.getFetchSize(), ms.getFetchSize())
+        && first.getResultSetType() == ms.getResultSetType();
+  }
+
+  /**
+   * Executes the selects and maps their result sets. The statement is prepared by the {@link StatementHandler} of the
+   * first select, plugins included, with the SQL of all of them; the parameters of each select are then bound by its
+   * own {@link ParameterHandler} and each result set is mapped by the {@link ResultSetHandler} of its select.
+   *
+   * @return the results of each select, in the order they were added
+   */
+  List<List<Object>> execute(Executor executor, Connection connection, Integer transactionTimeout) throws SQLException {
+    final StatementHandler handler = configuration.newStatementHandler(executor, statements.get(0), parameters.get(0),
+        RowBounds.DEFAULT, null, getBoundSql());
+    Statement stmt = null;
+    try {
+      stmt = handler.prepare(connection, transactionTimeout);
+      final PreparedStatement ps = (PreparedStatement) stmt;
+      int index = 1;
+      for (int i = 0; i < statements.size(); i++) {
+        index = MultiRowInsert.setParameters(configuration.newParameterHandler(statements.get(i), parameters.get(i), boundSqls.get(i)),
+            boundSqls.get(i), ps, index);
+      }
+      return query(executor, ps);
+    } finally {
+      if (stmt != null) {
+        stmt.close();
+      }
+    }
+  }
+
+  private List<List<Object>> query(Executor executor, PreparedStatement ps) throws SQLException {
+    ResultSet rs = ps.execute() ? ps.getResultSet() : nextResultSet(ps);
+    // 每个 ResultSetHandler 只能看到自己的 ResultSet ，由这里移动到下一个
+    final List<List<Object>> results = new ArrayList<>(statements.size());
+    for (int i = 0; i < statements.size(); i++) {
+      final MappedStatement ms = statements.get(i);
+      final ParameterHandler parameterHandler = configuration.newParameterHandler(ms, parameters.get(i), boundSqls.get(i));
+      final ResultSetHandler resultSetHandler = configuration.newResultSetHandler(executor, ms, RowBounds.DEFAULT,
+          parameterHandler, null, boundSqls.get(i));
+      results.add(resultSetHandler.handleResultSets(singleResult(ps, rs)));
+      rs = rs != null ? nextResultSet(ps) : null;
+    }
+    return results;
+  }
+
+  private static ResultSet nextResultSet(Statement stmt) throws SQLException {
+    while (true) {
+      if (stmt.getMoreResults()) {
+        return stmt.getResultSet();
+      }
+      if (stmt.getUpdateCount() == -1) {
+        return null;
+      }
+    }
+  }
+
+  /**
+   * A view of the statement exposing only the given result set, so that the handler doesn't move to the results of
+   * the next select.
+   */
+  private static Statement singleResult(Statement stmt, ResultSet rs) {
+    return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[] { Statement.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getResultSet":
+              return rs;
+            case "getMoreResults":
+              return false;
+            case "getUpdateCount":
+              return -1;
+            default:
+              try {
+                return method.invoke(stmt, args);
+              } catch (Throwable t) {
+                throw ExceptionUtil.unwrapThrowable(t);
+              }
+          }
+        });
+  }
+
+  private static String stripTrailingSemicolons(String sql) {
+    int end = sql.length();
+    while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+      end--;
+    }
+    return sql.substring(0, end);
+  }
+
+}
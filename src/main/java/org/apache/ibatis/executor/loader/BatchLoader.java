@@ -0,0 +1,184 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.loader;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.defaults.DefaultSqlSession.StrictMap;
+
+/**
+ * Collects the keys of nested selects that share a batch select and loads them with as few queries as possible.
+ * <p>
+ * The batch select receives the keys of one chunk as a parameter named <code>list</code> (or <code>collection</code>)
+ * and is expected to return the rows of all of them, usually with an <code>IN</code> condition. Every row is assigned
+ * back to its key through the property mapped to the <code>batchKeyColumn</code> of the nested mapping.
+ * <p>
+ * Lazy loads may run on other threads than the one that mapped the parents, so the keys and results are guarded by
+ * the loader.
+ */
+public class BatchLoader {
+
+  public static final int DEFAULT_BATCH_SIZE = 100;
+
+  private final Configuration configuration;
+  private final MappedStatement batchStatement;
+  private final String batchKeyColumn;
+  private final int batchSize;
+  private final Map<Object, Object> pendingKeys = new LinkedHashMap<>();
+  private final Map<Object, List<Object>> loadedResults = new HashMap<>();
+  private String keyProperty;
+
+  public BatchLoader(Configuration configuration, ResultMapping resultMapping) {
+    this.configuration = configuration;
+    this.batchStatement = configuration.getMappedStatement(resultMapping.getNestedBatchQueryId());
+    this.batchKeyColumn = resultMapping.getBatchKeyColumn();
+    this.batchSize = resultMapping.getBatchSize() == null ? DEFAULT_BATCH_SIZE : resultMapping.getBatchSize();
+  }
+
+  /**
+   * Registers a key to be loaded by the next batch.
+   */
+  public synchronized void addKey(Object key) {
+    final Object normalizedKey = normalizeKey(key);
+    if (!loadedResults.containsKey(normalizedKey)) {
+      pendingKeys.putIfAbsent(normalizedKey, key);
+    }
+  }
+
+  public synchronized boolean hasPendingKeys() {
+    return !pendingKeys.isEmpty();
+  }
+
+  /**
+   * Returns the rows loaded for a key, running the batch select for every pending key first if the key has not been
+   * loaded yet.
+   *
+   * @param key the parameter the nested select would have been called with
+   * @param resultLoader provides the executor used to run the batch select
+   */
+  public synchronized List<Object> getResults(Object key, ResultLoader resultLoader) throws SQLException {
+    final Object normalizedKey = normalizeKey(key);
+    if (!loadedResults.containsKey(normalizedKey)) {
+      pendingKeys.putIfAbsent(normalizedKey, key);
+      loadPending(resultLoader);
+    }
+    final List<Object> results = loadedResults.get(normalizedKey);
+    return results == null ? new ArrayList<>() : new ArrayList<>(results);
+  }
+
+  /**
+   * Runs the batch select for all pending keys, in chunks of the configured batch size.
+   */
+  public synchronized void loadPending(ResultLoader resultLoader) throws SQLException {
+    while (!pendingKeys.isEmpty()) {
+      final Map<Object, Object> chunk = new LinkedHashMap<>();
+      final Iterator<Map.Entry<Object, Object>> iterator = pendingKeys.entrySet().iterator();
+      while (iterator.hasNext() && chunk.size() < batchSize) {
+        final Map.Entry<Object, Object> entry = iterator.next();
+        chunk.put(entry.getKey(), entry.getValue());
+        iterator.remove();
+      }
+      final List<Object> keys = new ArrayList<>(chunk.values());
+      final StrictMap<Object> parameter = new StrictMap<>();
+      parameter.put("collection", keys);
+      parameter.put("list", keys);
+      final List<Object> rows;
+      try {
+        rows = resultLoader.selectList(batchStatement, parameter);
+      } catch (SQLException | RuntimeException e) {
+        // 查询失败，键重新放回待加载队列的头部，由下次加载重试
+        final Map<Object, Object> remainingKeys = new LinkedHashMap<>(pendingKeys);
+        pendingKeys.clear();
+        pendingKeys.putAll(chunk);
+        pendingKeys.putAll(remainingKeys);
+        throw e;
+      }
+      // 查询成功后，才将键标记为已加载
+      final Map<Object, List<Object>> chunkResults = new HashMap<>();
+      for (Object key : chunk.keySet()) {
+        chunkResults.put(key, new ArrayList<>());
+      }
+      for (Object row : rows) {
+        final List<Object> results = chunkResults.get(normalizeKey(getKey(row)));
+        if (results == null) {
+          // 批量查询返回了未请求的键，忽略
+          continue;
+        }
+        results.add(row);
+      }
+      loadedResults.putAll(chunkResults);
+    }
+  }
+
+  private Object getKey(Object row) {
+    final MetaObject metaObject = configuration.newMetaObject(row);
+    if (keyProperty == null) {
+      keyProperty = resolveKeyProperty(metaObject);
+    }
+    return metaObject.getValue(keyProperty);
+  }
+
+  private String resolveKeyProperty(MetaObject metaObject) {
+    for (ResultMap resultMap : batchStatement.getResultMaps()) {
+      for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+        if (batchKeyColumn.equalsIgnoreCase(resultMapping.getColumn()) && resultMapping.getProperty() != null) {
+          return resultMapping.getProperty();
+        }
+      }
+    }
+    if (metaObject.getOriginalObject() instanceof Map) {
+      for (Object column : ((Map<?, ?>) metaObject.getOriginalObject()).keySet()) {
+        if (column instanceof String && batchKeyColumn.equalsIgnoreCase((String) column)) {
+          return (String) column;
+        }
+      }
+    }
+    final String property = metaObject.findProperty(batchKeyColumn, configuration.isMapUnderscoreToCamelCase());
+    if (property == null) {
+      throw new ExecutorException("Could not find a property for batch key column '" + batchKeyColumn
+          + "' in the results of batch select '" + batchStatement.getId() + "'.");
+    }
+    return property;
+  }
+
+  private static Object normalizeKey(Object key) {
+    // 统一整数类型，使 Integer 与 Long 等类型的相同键值可以匹配
+    if (key instanceof Byte || key instanceof Short || key instanceof Integer || key instanceof Long) {
+      return ((Number) key).longValue();
+    } else if (key instanceof BigInteger && ((BigInteger) key).bitLength() < Long.SIZE) {
+      return ((BigInteger) key).longValue();
+    } else if (key instanceof BigDecimal) {
+      final BigDecimal decimal = ((BigDecimal) key).stripTrailingZeros();
+      return decimal.scale() <= 0 && decimal.precision() - decimal.scale() < 19 ? (Object) decimal.longValue() : decimal;
+    }
+    return key;
+  }
+
+}
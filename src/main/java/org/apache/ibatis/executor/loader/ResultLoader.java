@@ -24,11 +24,13 @@ import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
@@ -49,6 +51,10 @@ public class ResultLoader {
   protected final BoundSql boundSql;
   protected final ResultExtractor resultExtractor;
   protected final long creatorThreadId;
+  /**
+   * 创建时 Executor 的截止时间，延迟加载时仍然适用
+   */
+  protected final Deadline deadline;
 
   protected boolean loaded;
   protected Object resultObject;
@@ -64,6 +70,7 @@ public class ResultLoader {
     this.boundSql = boundSql;
     this.resultExtractor = new ResultExtractor(configuration, objectFactory);
     this.creatorThreadId = Thread.currentThread().getId();
+    this.deadline = executor.getDeadline();
   }
 
   public Object loadResult() throws SQLException {
@@ -73,15 +80,36 @@ public class ResultLoader {
   }
 
   private <E> List<E> selectList() throws SQLException {
+    return selectList(mappedStatement, parameterObject, cacheKey, boundSql);
+  }
+
+  /**
+   * Runs another statement with the same executor this loader would use for its own statement.
+   */
+  <E> List<E> selectList(MappedStatement ms, Object parameter) throws SQLException {
+    return selectList(ms, parameter, null, null);
+  }
+
+  private <E> List<E> selectList(MappedStatement ms, Object parameter, CacheKey key, BoundSql sql) throws SQLException {
+    // 截止时间已过，则不再加载
+    StatementUtil.checkDeadline(deadline);
     Executor localExecutor = executor;
     if (Thread.currentThread().getId() != this.creatorThreadId || localExecutor.isClosed()) {
       localExecutor = newExecutor();
     }
+    // 使用创建时的截止时间
+    final Deadline previousDeadline = localExecutor.getDeadline();
+    localExecutor.setDeadline(deadline);
     try {
-      return localExecutor.query(mappedStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, cacheKey, boundSql);
+      if (sql == null) {
+        return localExecutor.query(ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      }
+      return localExecutor.query(ms, parameter, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, key, sql);
     } finally {
       if (localExecutor != executor) {
         localExecutor.close(false);
+      } else {
+        localExecutor.setDeadline(previousDeadline);
       }
     }
   }
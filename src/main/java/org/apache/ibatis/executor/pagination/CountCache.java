@@ -0,0 +1,92 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Counts of derived count queries, kept for a short time so that paging through results does not count them again.
+ * Shared by the sessions of a configuration; counts are dropped when a statement that may affect them commits.
+ */
+public class CountCache {
+
+  private static final int PURGE_THRESHOLD = 1024;
+
+  private final ConcurrentMap<CacheKey, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * @return the count, or {@code null} if it is not cached or has expired
+   */
+  public Long get(CacheKey key) {
+    Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(System.nanoTime())) {
+      entries.remove(key, entry);
+      return null;
+    }
+    return entry.count;
+  }
+
+  public void put(CacheKey key, MappedStatement statement, long count, long ttlMillis) {
+    long now = System.nanoTime();
+    if (entries.size() >= PURGE_THRESHOLD) {
+      // 清理过期的计数，避免无限增长
+      entries.values().removeIf(entry -> entry.isExpired(now));
+    }
+    entries.put(key, new Entry(statement, count, now + TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+  }
+
+  /**
+   * Drops the counts that the given statement may have changed.
+   *
+   * @param written the statement that wrote
+   */
+  public void invalidate(MappedStatement written) {
+    entries.values().removeIf(entry -> entry.statement.isAffectedBy(written));
+  }
+
+  public void clear() {
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private static class Entry {
+    private final MappedStatement statement;
+    private final long count;
+    private final long expiresAt;
+
+    private Entry(MappedStatement statement, long count, long expiresAt) {
+      this.statement = statement;
+      this.count = count;
+      this.expiresAt = expiresAt;
+    }
+
+    private boolean isExpired(long now) {
+      return now - expiresAt >= 0;
+    }
+  }
+
+}
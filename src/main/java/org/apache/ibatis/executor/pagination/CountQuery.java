@@ -0,0 +1,111 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Derives a {@code SELECT COUNT(*)} statement from a query, counting the rows it returns without
+ * {@link org.apache.ibatis.session.RowBounds}.
+ */
+public final class CountQuery {
+
+  public static final String COUNT_SUFFIX = "!count";
+
+  private static final Pattern LIMITING_KEYWORDS = Pattern.compile("\\b(limit|offset|fetch|top|rownum)\\b");
+
+  private CountQuery() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Returns the count statement of a query. Its SQL is the one of the query, without its last {@code ORDER BY},
+   * wrapped in a {@code SELECT COUNT(*)}.
+   */
+  public static MappedStatement createCountStatement(MappedStatement ms) {
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE) {
+      throw new ExecutorException("Cannot derive a count query from statement '" + ms.getId() + "', it is not a plain select.");
+    }
+    final Configuration configuration = ms.getConfiguration();
+    final String id = ms.getId() + COUNT_SUFFIX;
+    final SqlSource sqlSource = parameterObject -> {
+      BoundSql boundSql = ms.getBoundSql(parameterObject);
+      return boundSql.withSql(configuration, getCountSql(boundSql.getSql()), boundSql.getParameterMappings());
+    };
+    final ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", Long.class, new ArrayList<>()).build();
+    return new MappedStatement.Builder(configuration, id, sqlSource, SqlCommandType.SELECT)
+        .resource(ms.getResource())
+        .statementType(ms.getStatementType())
+        .timeout(ms.getTimeout())
+        .databaseId(ms.getDatabaseId())
+        .tables(ms.getTables() != null ? String.join(",", ms.getTables()) : null)
+        .resultMaps(Collections.singletonList(resultMap))
+        .useCache(false)
+        .build();
+  }
+
+  static String getCountSql(String sql) {
+    return "SELECT COUNT(*) FROM (" + stripOrderBy(sql.trim()) + ") COUNT_";
+  }
+
+  /**
+   * Removes the {@code ORDER BY} clause ending the statement, unless rows are limited after it.
+   */
+  static String stripOrderBy(String sql) {
+    int orderBy = -1;
+    int depth = 0;
+    for (int i = 0; i < sql.length(); i++) {
+      final char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        final int end = sql.indexOf(c, i + 1);
+        if (end < 0) {
+          return sql;
+        }
+        i = end;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && (c == 'o' || c == 'O') && sql.regionMatches(true, i, "order", 0, 5)
+          && (i == 0 || !Character.isLetterOrDigit(sql.charAt(i - 1)))) {
+        int by = i + 5;
+        while (by < sql.length() && Character.isWhitespace(sql.charAt(by))) {
+          by++;
+        }
+        if (by > i + 5 && sql.regionMatches(true, by, "by", 0, 2)) {
+          orderBy = i;
+        }
+      }
+    }
+    if (orderBy < 0 || LIMITING_KEYWORDS.matcher(sql.substring(orderBy).toLowerCase(Locale.ENGLISH)).find()) {
+      return sql;
+    }
+    return sql.substring(0, orderBy).trim();
+  }
+
+}
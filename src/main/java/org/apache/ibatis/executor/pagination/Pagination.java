@@ -0,0 +1,180 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * A query whose {@link RowBounds} are applied by the database, with the rewritten SQL and the bounds left to apply
+ * while reading the results.
+ */
+public final class Pagination {
+
+  /**
+   * The additional parameter holding the key of {@link KeysetRowBounds}
+   */
+  public static final String SEEK_AFTER_PARAMETER = "__seekAfter";
+
+  // 这些关键字出现在最外层时，不能在 SQL 之后追加或包装分页子句
+  private static final Set<String> UNPAGEABLE_KEYWORDS = new HashSet<>(Arrays.asList("LIMIT", "OFFSET", "FETCH", "TOP", "FOR"));
+
+  private final BoundSql boundSql;
+  private final RowBounds rowBounds;
+
+  private Pagination(BoundSql boundSql, RowBounds rowBounds) {
+    this.boundSql = boundSql;
+    this.rowBounds = rowBounds;
+  }
+
+  /**
+   * Returns the paginated query, or {@code null} if the bounds are to be applied while reading the results: database
+   * pagination is disabled, no dialect matches the database id, the statement is not a plain query, it has nested
+   * result maps, whose bounds count mapped objects rather than rows, or its SQL already limits its rows or ends with a
+   * {@code FOR UPDATE} or similar clause (a top-level {@code LIMIT}, {@code OFFSET}, {@code FETCH}, {@code TOP} or
+   * {@code FOR}). {@link KeysetRowBounds} are always applied to the
+   * SQL, their limit only if a dialect is available and there are no nested result maps.
+   */
+  public static Pagination of(MappedStatement ms, BoundSql boundSql, RowBounds rowBounds) {
+    if (rowBounds == null || rowBounds == RowBounds.DEFAULT) {
+      return null;
+    }
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE
+        || ms.getResultSets() != null) {
+      return null;
+    }
+    final Configuration configuration = ms.getConfiguration();
+    final PaginationDialect dialect = configuration.isDatabasePagination() ? getDialect(configuration) : null;
+    final String sql = trimSql(boundSql.getSql());
+    if (rowBounds instanceof KeysetRowBounds) {
+      final KeysetRowBounds keyset = (KeysetRowBounds) rowBounds;
+      final List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+      final StringBuilder seekSql = new StringBuilder(sql.length() + 64);
+      seekSql.append("SELECT * FROM (").append(sql).append(") SEEK_");
+      if (keyset.getSeekAfter() != null) {
+        seekSql.append(" WHERE ").append(keyset.getKeyColumn()).append(keyset.isDescending() ? " < ?" : " > ?");
+        parameterMappings.add(new ParameterMapping.Builder(configuration, SEEK_AFTER_PARAMETER, keyset.getSeekAfter().getClass()).build());
+      }
+      seekSql.append(" ORDER BY ").append(keyset.getKeyColumn());
+      if (keyset.isDescending()) {
+        seekSql.append(" DESC");
+      }
+      final int limit = keyset.getLimit();
+      final String pagedSql;
+      final RowBounds remaining;
+      if (dialect == null || limit == RowBounds.NO_ROW_LIMIT || ms.hasNestedResultMaps()) {
+        pagedSql = seekSql.toString();
+        remaining = limit == RowBounds.NO_ROW_LIMIT ? RowBounds.DEFAULT : new RowBounds(RowBounds.NO_ROW_OFFSET, limit);
+      } else {
+        pagedSql = dialect.getLimitSql(seekSql.toString(), RowBounds.NO_ROW_OFFSET, limit);
+        remaining = RowBounds.DEFAULT;
+      }
+      final BoundSql pagedBoundSql = boundSql.withSql(configuration, pagedSql, parameterMappings);
+      if (keyset.getSeekAfter() != null) {
+        pagedBoundSql.setAdditionalParameter(SEEK_AFTER_PARAMETER, keyset.getSeekAfter());
+      }
+      return new Pagination(pagedBoundSql, remaining);
+    }
+    if (dialect == null || ms.hasNestedResultMaps()
+        || (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT)
+        || hasUnpageableClause(sql)) {
+      return null;
+    }
+    final String pagedSql = dialect.getLimitSql(sql, rowBounds.getOffset(), rowBounds.getLimit());
+    return new Pagination(boundSql.withSql(configuration, pagedSql, boundSql.getParameterMappings()), RowBounds.DEFAULT);
+  }
+
+  private static PaginationDialect getDialect(Configuration configuration) {
+    final PaginationDialect dialect = configuration.getPaginationDialect();
+    return dialect != null ? dialect : StandardPaginationDialect.forDatabaseId(configuration.getDatabaseId());
+  }
+
+  /**
+   * Looks for the keywords of {@link #UNPAGEABLE_KEYWORDS} outside of parentheses, literals, quoted identifiers and
+   * comments.
+   */
+  private static boolean hasUnpageableClause(String sql) {
+    int depth = 0;
+    int i = 0;
+    final int length = sql.length();
+    while (i < length) {
+      final char c = sql.charAt(i);
+      if (c == '(') {
+        depth++;
+        i++;
+      } else if (c == ')') {
+        depth--;
+        i++;
+      } else if (c == '\'' || c == '"' || c == '`' || c == '[') {
+        // 字符串或带引号的标识符，'' 等转义会作为两段相邻的引号跳过
+        final int end = sql.indexOf(c == '[' ? ']' : c, i + 1);
+        i = end < 0 ? length : end + 1;
+      } else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+        final int end = sql.indexOf('\n', i);
+        i = end < 0 ? length : end + 1;
+      } else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+        final int end = sql.indexOf("*/", i + 2);
+        i = end < 0 ? length : end + 2;
+      } else if (Character.isLetter(c) || c == '_') {
+        final int start = i;
+        while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+          i++;
+        }
+        // 忽略 t.limit 这样的列名
+        final boolean qualified = start > 0 && sql.charAt(start - 1) == '.';
+        if (depth == 0 && !qualified && UNPAGEABLE_KEYWORDS.contains(sql.substring(start, i).toUpperCase(Locale.ENGLISH))) {
+          return true;
+        }
+      } else {
+        i++;
+      }
+    }
+    return false;
+  }
+
+  private static String trimSql(String sql) {
+    int end = sql.length();
+    while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+      end--;
+    }
+    return sql.substring(0, end);
+  }
+
+  public BoundSql getBoundSql() {
+    return boundSql;
+  }
+
+  /**
+   * @return the bounds still to apply while reading the results, {@link RowBounds#DEFAULT} when there are none
+   */
+  public RowBounds getRowBounds() {
+    return rowBounds;
+  }
+
+}
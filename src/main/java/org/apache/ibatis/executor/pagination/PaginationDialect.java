@@ -0,0 +1,34 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+/**
+ * Limits the rows returned by a query in the SQL of a given database.
+ *
+ * @see StandardPaginationDialect
+ */
+public interface PaginationDialect {
+
+  /**
+   * Returns a query returning the rows of the given one from {@code offset}, at most {@code limit} of them.
+   *
+   * @param sql the query, without trailing semicolon
+   * @param offset the number of rows to skip, may be 0
+   * @param limit the maximum number of rows, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} when not limited
+   */
+  String getLimitSql(String sql, int offset, int limit);
+
+}
@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.Locale;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The pagination syntaxes supported by most databases.
+ */
+public enum StandardPaginationDialect implements PaginationDialect {
+
+  /**
+   * {@code LIMIT n OFFSET m}: MySQL, MariaDB, PostgreSQL, H2, HSQLDB, SQLite.
+   */
+  LIMIT_OFFSET {
+    @Override
+    public String getLimitSql(String sql, int offset, int limit) {
+      StringBuilder limitSql = new StringBuilder(sql.length() + 32).append(sql);
+      // MySQL 不支持只有 OFFSET
+      limitSql.append(" LIMIT ").append(limit);
+      if (offset > 0) {
+        limitSql.append(" OFFSET ").append(offset);
+      }
+      return limitSql.toString();
+    }
+  },
+
+  /**
+   * {@code OFFSET m ROWS FETCH NEXT n ROWS ONLY} of SQL:2008: Oracle 12c, DB2, Derby, SQL Server 2012 (which requires an
+   * {@code ORDER BY}).
+   */
+  OFFSET_FETCH {
+    @Override
+    public String getLimitSql(String sql, int offset, int limit) {
+      StringBuilder limitSql = new StringBuilder(sql.length() + 48).append(sql);
+      limitSql.append(" OFFSET ").append(offset).append(" ROWS");
+      if (limit != RowBounds.NO_ROW_LIMIT) {
+        limitSql.append(" FETCH NEXT ").append(limit).append(" ROWS ONLY");
+      }
+      return limitSql.toString();
+    }
+  },
+
+  /**
+   * {@code ROWNUM} of all the versions of Oracle. A {@code ROWNUM_} column is added to the results when there is an
+   * offset.
+   */
+  ROWNUM {
+    @Override
+    public String getLimitSql(String sql, int offset, int limit) {
+      long end = (long) offset + limit;
+      if (offset == 0) {
+        return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= " + limit;
+      }
+      StringBuilder limitSql = new StringBuilder(sql.length() + 96);
+      limitSql.append("SELECT * FROM (SELECT ROW_.*, ROWNUM ROWNUM_ FROM (").append(sql).append(") ROW_");
+      if (limit != RowBounds.NO_ROW_LIMIT) {
+        limitSql.append(" WHERE ROWNUM <= ").append(end);
+      }
+      limitSql.append(") WHERE ROWNUM_ > ").append(offset);
+      return limitSql.toString();
+    }
+  };
+
+  /**
+   * Returns the dialect of a database id, either a product name as returned by the JDBC driver or a short name such
+   * as {@code mysql} or {@code oracle}, or {@code null} if it is not known.
+   */
+  public static StandardPaginationDialect forDatabaseId(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    String id = databaseId.toLowerCase(Locale.ENGLISH);
+    if (id.contains("mysql") || id.contains("mariadb") || id.contains("postgres") || id.equals("h2") || id.startsWith("h2 ")
+        || id.contains("hsql") || id.contains("sqlite")) {
+      return LIMIT_OFFSET;
+    } else if (id.contains("oracle")) {
+      return ROWNUM;
+    } else if (id.contains("db2") || id.contains("derby") || id.contains("sql server") || id.contains("sqlserver")) {
+      return OFFSET_FETCH;
+    }
+    return null;
+  }
+
+}
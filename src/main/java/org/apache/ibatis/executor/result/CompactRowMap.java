@@ -0,0 +1,282 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Map used for the rows of <code>resultType="map"</code> statements when <code>compactMapResultsEnabled</code> is
+ * set. All rows of a result set share one immutable {@link Keys} dictionary and each row only holds an array of
+ * values. Keys that are not part of the dictionary are kept in a regular map, so every {@link Map} operation is
+ * supported.
+ */
+public class CompactRowMap extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Object ABSENT = new Object();
+
+  private final Keys keys;
+  private final Object[] values;
+  private int size;
+  private Map<String, Object> extraEntries;
+  private transient Set<Map.Entry<String, Object>> entrySet;
+
+  public CompactRowMap(Keys keys) {
+    this.keys = keys;
+    this.values = new Object[keys.names.length];
+    Arrays.fill(values, ABSENT);
+  }
+
+  @Override
+  public int size() {
+    return size + (extraEntries == null ? 0 : extraEntries.size());
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    final int index = keys.indexOf(key);
+    if (index >= 0) {
+      return values[index] != ABSENT;
+    }
+    return extraEntries != null && extraEntries.containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    final int index = keys.indexOf(key);
+    if (index >= 0) {
+      final Object value = values[index];
+      return value == ABSENT ? null : value;
+    }
+    return extraEntries == null ? null : extraEntries.get(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    final int index = keys.indexOf(key);
+    if (index >= 0) {
+      final Object previous = values[index];
+      values[index] = value;
+      if (previous == ABSENT) {
+        size++;
+        return null;
+      }
+      return previous;
+    }
+    if (extraEntries == null) {
+      extraEntries = new HashMap<>();
+    }
+    return extraEntries.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    final int index = keys.indexOf(key);
+    if (index >= 0) {
+      return removeAt(index);
+    }
+    return extraEntries == null ? null : extraEntries.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(values, ABSENT);
+    size = 0;
+    extraEntries = null;
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private Object removeAt(int index) {
+    final Object previous = values[index];
+    if (previous == ABSENT) {
+      return null;
+    }
+    values[index] = ABSENT;
+    size--;
+    return previous;
+  }
+
+  private Object writeReplace() {
+    // 哨兵对象无法序列化，序列化为普通的 LinkedHashMap
+    return new LinkedHashMap<>(this);
+  }
+
+  /**
+   * Immutable key dictionary shared by the rows of one result set.
+   */
+  public static final class Keys {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+
+    public Keys(Collection<String> names) {
+      this.names = names.toArray(new String[0]);
+      final Map<String, Integer> indexes = new HashMap<>();
+      for (int i = 0; i < this.names.length; i++) {
+        indexes.putIfAbsent(this.names[i], i);
+      }
+      this.indexes = Collections.unmodifiableMap(indexes);
+    }
+
+    int indexOf(Object key) {
+      final Integer index = indexes.get(key);
+      return index == null ? -1 : index;
+    }
+
+    public int size() {
+      return names.length;
+    }
+
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+
+    @Override
+    public int size() {
+      return CompactRowMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      CompactRowMap.this.clear();
+    }
+
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+    private int nextIndex = advance(0);
+    private int lastIndex = -1;
+    private Iterator<Map.Entry<String, Object>> extraIterator;
+
+    private int advance(int from) {
+      int index = from;
+      while (index < values.length && values[index] == ABSENT) {
+        index++;
+      }
+      return index;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (nextIndex < values.length) {
+        return true;
+      }
+      if (extraIterator == null && extraEntries != null) {
+        extraIterator = extraEntries.entrySet().iterator();
+      }
+      return extraIterator != null && extraIterator.hasNext();
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (nextIndex < values.length) {
+        lastIndex = nextIndex;
+        nextIndex = advance(nextIndex + 1);
+        return new SlotEntry(lastIndex);
+      }
+      lastIndex = -1;
+      return extraIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (lastIndex >= 0) {
+        removeAt(lastIndex);
+        lastIndex = -1;
+      } else if (extraIterator != null) {
+        extraIterator.remove();
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+
+  }
+
+  private final class SlotEntry implements Map.Entry<String, Object> {
+
+    private final int index;
+
+    SlotEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return keys.names[index];
+    }
+
+    @Override
+    public Object getValue() {
+      final Object value = values[index];
+      return value == ABSENT ? null : value;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      return put(getKey(), value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Map.Entry)) {
+        return false;
+      }
+      final Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+      return getKey().equals(e.getKey()) && (getValue() == null ? e.getValue() == null : getValue().equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      final Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+
+  }
+
+}
@@ -23,17 +23,23 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.loader.BatchLoader;
+import org.apache.ibatis.executor.loader.BatchResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.CompactRowMap;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.executor.statement.AdaptiveFetchSize;
 import org.apache.ibatis.mapping.*;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.apache.ibatis.result.ColumnarResult;
+import org.apache.ibatis.result.ColumnarResultBuilder;
 import org.apache.ibatis.session.*;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
@@ -45,6 +51,9 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * 实现 ResultSetHandler 接口，默认的 ResultSetHandler 实现类。
@@ -58,6 +67,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
 
+  private static final int DEFAULT_MAPPING_CHUNK_SIZE = 1000;
+
   private final Executor executor;
   private final Configuration configuration;
   private final MappedStatement mappedStatement;
@@ -70,17 +81,30 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps 嵌套结果集
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  private final Map<RowKey, Object> nestedResultObjects = new HashMap<>();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  // 可复用的行键，每个嵌套层级一个，仅在创建新对象时复制
+  private final List<RowKey> rowKeyHolders = new ArrayList<>();
+  private int nestedLevel;
 
   // multiple resultsets 多结果集
   // 存储过程相关的多 ResultSet 涉及的属性，可以暂时忽略
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
-  // Cached Automappings 自动映射缓存
-  private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
+  // batch nested selects 批量加载嵌套查询，同一批量查询的键共用一个 BatchLoader
+  private final Map<String, BatchLoader> batchLoaders = new HashMap<>();
+  // compact map rows 同一结果集的 Map 结果共用的键字典
+  private final Map<String, CompactRowMap.Keys> compactMapKeys = new HashMap<>();
+
+  // 非延迟加载的批量嵌套查询，在整个结果集映射完成后统一加载
+  private final List<PendingBatchLoad> pendingBatchLoads = new ArrayList<>();
+  private boolean cursorResults;
+
+  // 读取的行数及首个 ResultSet 的行宽，用于调整 fetchSize
+  private int fetchedRowCount;
+  private int fetchedRowWidth;
 
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
@@ -93,10 +117,25 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
+  /**
+   * 等待批量加载的嵌套查询属性
+   */
+  private static class PendingBatchLoad {
+    private final MetaObject metaObject;
+    private final String property;
+    private final ResultLoader resultLoader;
+
+    PendingBatchLoad(MetaObject metaObject, String property, ResultLoader resultLoader) {
+      this.metaObject = metaObject;
+      this.property = property;
+      this.resultLoader = resultLoader;
+    }
+  }
+
   /**
    *
    */
-  private static class UnMappedColumnAutoMapping {
+  static class UnMappedColumnAutoMapping {
     private final String column;
     private final String property;
     private final TypeHandler<?> typeHandler;
@@ -187,13 +226,17 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     int resultMapCount = resultMaps.size();
     // <3.1> 校验至少有一个 ResultMap 对象
     validateResultMapsCount(rsw, resultMapCount);
+    final boolean adaptiveFetchSize = configuration.isAdaptiveFetchSizeEnabled() && rsw != null;
+    if (adaptiveFetchSize) {
+      fetchedRowWidth = AdaptiveFetchSize.estimateRowWidth(rsw.getResultSet().getMetaData());
+    }
     while (rsw != null && resultMapCount > resultSetCount) {
       // <4.1> 获得 ResultMap 对象
       ResultMap resultMap = resultMaps.get(resultSetCount);
       // <4.2> *** 处理 ResultSet ，将结果添加到 multipleResults 中
       handleResultSet(rsw, resultMap, multipleResults, null);
       // <4.3> 获得下一个 ResultSet 对象，并封装成 ResultSetWrapper 对象
-      rsw = getNextResultSet(stmt);
+      rsw = getNextResultSet(stmt, resultSetCount + 1);
       // <4.4> 清理
       cleanUpAfterHandlingResultSet();
       resultSetCount++;
@@ -209,13 +252,22 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           ResultMap resultMap = configuration.getResultMap(nestedResultMapId);
           handleResultSet(rsw, resultMap, null, parentMapping);
         }
-        rsw = getNextResultSet(stmt);
+        rsw = getNextResultSet(stmt, resultSetCount + 1);
         cleanUpAfterHandlingResultSet();
         resultSetCount++;
       }
     }
 
-    // <6> 如果是 multipleResults 单元素，则取首元素返回
+    // <6> 记录读取的行数，供之后的执行调整 fetchSize
+    if (adaptiveFetchSize) {
+      mappedStatement.getAdaptiveFetchSize().record(fetchedRowCount, fetchedRowWidth,
+          configuration.getAdaptiveFetchSizeMin(), configuration.getAdaptiveFetchSizeMax());
+    }
+
+    // <7> 加载等待批量加载的嵌套查询
+    loadPendingBatches();
+
+    // <8> 如果是 multipleResults 单元素，则取首元素返回
     return collapseSingleResultList(multipleResults);
   }
 
@@ -234,6 +286,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
+    cursorResults = true;
+    if (isColumnarResult(resultMap)) {
+      throw new ExecutorException("Cursor results cannot be mapped to a columnar result");
+    }
     return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
   }
 
@@ -252,10 +308,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       }
     }
     // 将 ResultSet 对象，封装成 ResultSetWrapper 对象
-    return rs != null ? new ResultSetWrapper(rs, configuration) : null;
+    return rs != null ? newResultSetWrapper(rs, 0) : null;
   }
 
-  private ResultSetWrapper getNextResultSet(Statement stmt) {
+  private ResultSetWrapper getNextResultSet(Statement stmt, int resultSetIndex) {
     // Making this method tolerant of bad JDBC drivers
     try {
       if (stmt.getConnection().getMetaData().supportsMultipleResultSets()) {
@@ -263,9 +319,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (!(!stmt.getMoreResults() && stmt.getUpdateCount() == -1)) {
           ResultSet rs = stmt.getResultSet();
           if (rs == null) {
-            return getNextResultSet(stmt);
+            return getNextResultSet(stmt, resultSetIndex);
           } else {
-            return new ResultSetWrapper(rs, configuration);
+            return newResultSetWrapper(rs, resultSetIndex);
           }
         }
       }
@@ -275,6 +331,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return null;
   }
 
+  private ResultSetWrapper newResultSetWrapper(ResultSet rs, int resultSetIndex) throws SQLException {
+    if (configuration.isResultSetMetadataCacheEnabled()) {
+      // 复用该 MappedStatement 上次执行时解析的字段布局
+      return new ResultSetWrapper(rs, configuration,
+        mappedStatement.getResultSetMetadataCache().getLayout(resultSetIndex, rs, configuration));
+    }
+    return new ResultSetWrapper(rs, configuration);
+  }
+
   private void closeResultSet(ResultSet rs) {
     try {
       if (rs != null) {
@@ -287,6 +352,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    compactMapKeys.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -301,15 +367,31 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     try {
       if (parentMapping != null) {
         handleRowValues(rsw, resultMap, null, RowBounds.DEFAULT, parentMapping);
+      } else if (isColumnarResult(resultMap)) {
+        // 列式结果，整个结果集作为一个 ColumnarResult 对象
+        ColumnarResult columnarResult = handleColumnarResult(rsw, rowBounds);
+        if (resultHandler == null) {
+          multipleResults.add(Collections.singletonList(columnarResult));
+        } else {
+          callResultHandler(resultHandler, new DefaultResultContext<>(), columnarResult);
+        }
       } else {
+        // <1> 简单映射且开启并行映射时，分块并行创建结果对象
+        final boolean parallel = canMapInParallel(rsw, resultMap);
         // <2> 如果没有自定义的 resultHandler ，则创建默认的 DefaultResultHandler 对象
         if (resultHandler == null) {
           // <2> 创建 DefaultResultHandler 对象
           DefaultResultHandler defaultResultHandler = new DefaultResultHandler(objectFactory);
           // <3> 处理 ResultSet 返回的每一行数据 Row
-          handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          if (parallel) {
+            handleRowValuesInParallel(rsw, resultMap, defaultResultHandler, rowBounds);
+          } else {
+            handleRowValues(rsw, resultMap, defaultResultHandler, rowBounds, null);
+          }
           // <4> 添加 defaultResultHandler 的处理的结果，到 multipleResults 中
           multipleResults.add(defaultResultHandler.getResultList());
+        } else if (parallel) {
+          handleRowValuesInParallel(rsw, resultMap, resultHandler, rowBounds);
         } else {
           // <3> 处理 ResultSet 返回的每一行数据 Row
           handleRowValues(rsw, resultMap, resultHandler, rowBounds, null);
@@ -321,6 +403,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  private boolean isColumnarResult(ResultMap resultMap) {
+    return ColumnarResult.class.equals(resultMap.getType());
+  }
+
+  private ColumnarResult handleColumnarResult(ResultSetWrapper rsw, RowBounds rowBounds) throws SQLException {
+    ColumnarResultBuilder builder = new ColumnarResultBuilder(rsw);
+    ResultSet resultSet = rsw.getResultSet();
+    skipRows(resultSet, rowBounds);
+    int rowCount = 0;
+    while (rowCount < rowBounds.getLimit() && !resultSet.isClosed() && resultSet.next()) {
+      fetchedRowCount++;
+      builder.addRow();
+      rowCount++;
+    }
+    return builder.build();
+  }
+
   @SuppressWarnings("unchecked")
   private List<Object> collapseSingleResultList(List<Object> multipleResults) {
     return multipleResults.size() == 1 ? (List<Object>) multipleResults.get(0) : multipleResults;
@@ -371,6 +470,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     skipRows(resultSet, rowBounds);
     // <3> 循环
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      fetchedRowCount++;
       // <4> 根据该行记录以及 ResultMap.discriminator ，决定映射使用的 ResultMap 对象
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       // <5> 根据最终确定的 ResultMap 对 ResultSet 中的该行记录进行映射，得到映射后的结果对象
@@ -408,10 +508,152 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (!rs.next()) {
           break;
         }
+        fetchedRowCount++;
       }
     }
   }
 
+  //
+  // HANDLE ROWS FOR SIMPLE RESULTMAP IN PARALLEL
+  //
+
+  private boolean canMapInParallel(ResultSetWrapper rsw, ResultMap resultMap) {
+    final Integer parallelism = mappedStatement.getMappingParallelism();
+    if (parallelism == null || parallelism < 2) {
+      return false;
+    }
+    if (resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries() || resultMap.getDiscriminator() != null
+      || !resultMap.getConstructorResultMappings().isEmpty() || hasTypeHandlerForResultObject(rsw, resultMap.getType())) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.getResultSet() != null || propertyMapping.isCompositeResult()) {
+        return false;
+      }
+    }
+    final Class<?> resultType = resultMap.getType();
+    return resultType.isInterface() || MetaClass.forClass(resultType, reflectorFactory).hasDefaultConstructor();
+  }
+
+  /**
+   * The calling thread reads the column values of each row through the type handlers into chunks, the chunks are
+   * turned into result objects on the mapping executor of the configuration and the objects are handed to the result handler in the
+   * original row order. At most {@code mappingParallelism} chunks are in flight.
+   */
+  private void handleRowValuesInParallel(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds)
+    throws SQLException {
+    final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
+    final ResultSet resultSet = rsw.getResultSet();
+    skipRows(resultSet, rowBounds);
+    final List<UnMappedColumnAutoMapping> columnMappings = createParallelColumnMappings(rsw, resultMap);
+    final int parallelism = mappedStatement.getMappingParallelism();
+    final Integer configuredChunkSize = mappedStatement.getMappingChunkSize();
+    final int chunkSize = configuredChunkSize == null || configuredChunkSize < 1 ? DEFAULT_MAPPING_CHUNK_SIZE : configuredChunkSize;
+    final Deque<Future<List<Object>>> pendingChunks = new ArrayDeque<>();
+    try {
+      List<Object[]> chunk = new ArrayList<>(chunkSize);
+      int rowCount = 0;
+      while (!resultContext.isStopped() && rowCount < rowBounds.getLimit() && !resultSet.isClosed() && resultSet.next()) {
+        fetchedRowCount++;
+        final Object[] columnValues = new Object[columnMappings.size()];
+        for (int i = 0; i < columnValues.length; i++) {
+          final UnMappedColumnAutoMapping mapping = columnMappings.get(i);
+          columnValues[i] = mapping.typeHandler.getResult(resultSet, mapping.column);
+        }
+        chunk.add(columnValues);
+        rowCount++;
+        if (chunk.size() == chunkSize) {
+          pendingChunks.add(submitChunk(resultMap, columnMappings, chunk));
+          chunk = new ArrayList<>(chunkSize);
+          if (pendingChunks.size() >= parallelism) {
+            storeChunk(resultHandler, resultContext, pendingChunks.poll());
+          }
+        }
+      }
+      if (!chunk.isEmpty()) {
+        pendingChunks.add(submitChunk(resultMap, columnMappings, chunk));
+      }
+      while (!pendingChunks.isEmpty() && !resultContext.isStopped()) {
+        storeChunk(resultHandler, resultContext, pendingChunks.poll());
+      }
+    } finally {
+      for (Future<List<Object>> pendingChunk : pendingChunks) {
+        pendingChunk.cancel(false);
+      }
+    }
+  }
+
+  private List<UnMappedColumnAutoMapping> createParallelColumnMappings(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    // 使用一个样本对象解析属性的类型，列的读取顺序与 getRowValue 一致：先自动映射，后明确映射
+    final MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultMap.getType()));
+    final List<UnMappedColumnAutoMapping> columnMappings = new ArrayList<>();
+    if (shouldApplyAutomaticMappings(resultMap, false)) {
+      columnMappings.addAll(createAutomaticMappings(rsw, resultMap, metaObject, null));
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      final String column = propertyMapping.getColumn();
+      final String property = propertyMapping.getProperty();
+      // issue #541 make property optional
+      if (property != null && column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+        columnMappings.add(new UnMappedColumnAutoMapping(column, property, propertyMapping.getTypeHandler(),
+          metaObject.getSetterType(property).isPrimitive()));
+      }
+    }
+    return columnMappings;
+  }
+
+  private Future<List<Object>> submitChunk(ResultMap resultMap, List<UnMappedColumnAutoMapping> columnMappings, List<Object[]> chunk) {
+    final Class<?> resultType = resultMap.getType();
+    return CompletableFuture.supplyAsync(() -> {
+      final List<Object> rowValues = new ArrayList<>(chunk.size());
+      for (Object[] columnValues : chunk) {
+        rowValues.add(createRowValue(resultType, columnMappings, columnValues));
+      }
+      return rowValues;
+    }, configuration.getMappingExecutor());
+  }
+
+  private Object createRowValue(Class<?> resultType, List<UnMappedColumnAutoMapping> columnMappings, Object[] columnValues) {
+    final Object rowValue = objectFactory.create(resultType);
+    final MetaObject metaObject = configuration.newMetaObject(rowValue);
+    boolean foundValues = false;
+    for (int i = 0; i < columnValues.length; i++) {
+      final UnMappedColumnAutoMapping mapping = columnMappings.get(i);
+      final Object value = columnValues[i];
+      if (value != null) {
+        foundValues = true;
+      }
+      if (value != null || (configuration.isCallSettersOnNulls() && !mapping.primitive)) {
+        // gcode issue #377, call setter on nulls (value is not 'found')
+        metaObject.setValue(mapping.property, value);
+      }
+    }
+    return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+  }
+
+  private void storeChunk(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Future<List<Object>> pendingChunk) {
+    final List<Object> rowValues;
+    try {
+      rowValues = pendingChunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for mapped rows.  Cause: " + e, e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new ExecutorException("Error mapping rows in parallel.  Cause: " + cause, cause);
+    }
+    for (Object rowValue : rowValues) {
+      if (resultContext.isStopped()) {
+        break;
+      }
+      callResultHandler(resultHandler, resultContext, rowValue);
+    }
+  }
+
   //
   // GET VALUE FROM ROW FOR SIMPLE RESULT MAP
   //
@@ -512,6 +754,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
+    // 自动映射缓存在 ResultSetWrapper 的字段布局中，可跨执行复用
+    final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = rsw.getAutoMappings();
     final String mapKey = resultMap.getId() + ":" + columnPrefix;
     List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
     if (autoMapping == null) {
@@ -668,6 +912,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else if (!constructorMappings.isEmpty()) {
       // 情况二，如果 ResultMap 中，如果定义了 `<constructor />` 节点，则通过反射调用该构造方法，创建对应结果对象
       return createParameterizedResultObject(rsw, resultType, constructorMappings, constructorArgTypes, constructorArgs, columnPrefix);
+    } else if (useCompactMap(resultMap)) {
+      // 开启 compactMapResultsEnabled 时，Map 结果只保存值数组，键字典由同一结果集的所有行共用
+      return new CompactRowMap(getCompactMapKeys(rsw, resultMap, columnPrefix));
     } else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
       // 情况三，如果有默认的无参的构造方法，则使用该构造方法，创建对应结果对象
       return objectFactory.create(resultType);
@@ -678,6 +925,40 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     throw new ExecutorException("Do not know how to create an instance of " + resultType);
   }
 
+  private boolean useCompactMap(ResultMap resultMap) {
+    if (!configuration.isCompactMapResultsEnabled() || !Map.class.equals(resultMap.getType())) {
+      return false;
+    }
+    // 延迟加载的代理需要结果类型的无参构造方法
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.getNestedQueryId() != null && propertyMapping.isLazy()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private CompactRowMap.Keys getCompactMapKeys(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
+    final String mapKey = resultMap.getId() + ":" + columnPrefix;
+    CompactRowMap.Keys keys = compactMapKeys.get(mapKey);
+    if (keys == null) {
+      // 键包括自动映射的字段和明确映射的属性，其余的键由 CompactRowMap 另行保存
+      final Set<String> names = new LinkedHashSet<>();
+      final MetaObject metaObject = configuration.newMetaObject(new HashMap<String, Object>());
+      for (UnMappedColumnAutoMapping autoMapping : createAutomaticMappings(rsw, resultMap, metaObject, columnPrefix)) {
+        names.add(autoMapping.property);
+      }
+      for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+        if (propertyMapping.getProperty() != null) {
+          names.add(propertyMapping.getProperty());
+        }
+      }
+      keys = new CompactRowMap.Keys(names);
+      compactMapKeys.put(mapKey, keys);
+    }
+    return keys;
+  }
+
   Object createParameterizedResultObject(ResultSetWrapper rsw, Class<?> resultType, List<ResultMapping> constructorMappings,
                                          List<Class<?>> constructorArgTypes, List<Object> constructorArgs, String columnPrefix) {
     // 获得到任一的属性值。即，只要一个结果对象，有一个属性非空，就会设置为 true
@@ -837,10 +1118,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         executor.deferLoad(nestedQuery, metaResultObject, property, key, targetType);
         value = DEFERRED;
       } else {
-        final ResultLoader resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        final ResultLoader resultLoader;
+        final boolean batch = propertyMapping.getNestedBatchQueryId() != null && (propertyMapping.isLazy() || canDeferBatchLoad());
+        if (batch) {
+          resultLoader = new BatchResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql,
+            getBatchLoader(propertyMapping));
+        } else {
+          resultLoader = new ResultLoader(configuration, executor, nestedQuery, nestedQueryParameterObject, targetType, key, nestedBoundSql);
+        }
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (batch) {
+          pendingBatchLoads.add(new PendingBatchLoad(metaResultObject, property, resultLoader));
+          value = DEFERRED;
         } else {
           value = resultLoader.loadResult();
         }
@@ -849,6 +1140,27 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private boolean canDeferBatchLoad() {
+    // 游标与自定义 ResultHandler 在映射完一行后立即交出结果，无法等到结果集结束再批量加载
+    return !cursorResults && resultHandler == null;
+  }
+
+  private void loadPendingBatches() throws SQLException {
+    for (PendingBatchLoad pendingBatchLoad : pendingBatchLoads) {
+      final Object value = pendingBatchLoad.resultLoader.loadResult();
+      if (value != null || (configuration.isCallSettersOnNulls()
+          && !pendingBatchLoad.metaObject.getSetterType(pendingBatchLoad.property).isPrimitive())) {
+        pendingBatchLoad.metaObject.setValue(pendingBatchLoad.property, value);
+      }
+    }
+    pendingBatchLoads.clear();
+  }
+
+  private BatchLoader getBatchLoader(ResultMapping propertyMapping) {
+    final String batchKey = propertyMapping.getNestedBatchQueryId() + "#" + propertyMapping.getBatchKeyColumn().toUpperCase(Locale.ENGLISH);
+    return batchLoaders.computeIfAbsent(batchKey, k -> new BatchLoader(configuration, propertyMapping));
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -953,8 +1265,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     skipRows(resultSet, rowBounds);
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
+      fetchedRowCount++;
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null, getRowKeyHolder(0));
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
       if (mappedStatement.isResultOrdered()) {
@@ -982,7 +1295,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
 
-  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
     final String resultMapId = resultMap.getId();
     Object rowValue = partialObject;
     if (rowValue != null) {
@@ -1006,8 +1319,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         foundValues = lazyLoader.size() > 0 || foundValues;
         rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
       }
-      if (combinedKey != CacheKey.NULL_CACHE_KEY) {
-        nestedResultObjects.put(combinedKey, rowValue);
+      if (combinedKey != RowKey.NULL_ROW_KEY) {
+        nestedResultObjects.put(combinedKey.copy(), rowValue);
       }
     }
     return rowValue;
@@ -1021,41 +1334,46 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // NESTED RESULT MAP (JOIN MAPPING)
   //
 
-  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, RowKey parentRowKey, boolean newObject) {
     boolean foundValues = false;
-    for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
-      final String nestedResultMapId = resultMapping.getNestedResultMapId();
-      if (nestedResultMapId != null && resultMapping.getResultSet() == null) {
-        try {
-          final String columnPrefix = getColumnPrefix(parentPrefix, resultMapping);
-          final ResultMap nestedResultMap = getNestedResultMap(rsw.getResultSet(), nestedResultMapId, columnPrefix);
-          if (resultMapping.getColumnPrefix() == null) {
-            // try to fill circular reference only when columnPrefix
-            // is not specified for the nested result map (issue #215)
-            Object ancestorObject = ancestorObjects.get(nestedResultMapId);
-            if (ancestorObject != null) {
-              if (newObject) {
-                linkObjects(metaObject, resultMapping, ancestorObject); // issue #385
+    final RowKey rowKeyHolder = getRowKeyHolder(++nestedLevel);
+    try {
+      for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
+        final String nestedResultMapId = resultMapping.getNestedResultMapId();
+        if (nestedResultMapId != null && resultMapping.getResultSet() == null) {
+          try {
+            final String columnPrefix = getColumnPrefix(parentPrefix, resultMapping);
+            final ResultMap nestedResultMap = getNestedResultMap(rsw.getResultSet(), nestedResultMapId, columnPrefix);
+            if (resultMapping.getColumnPrefix() == null) {
+              // try to fill circular reference only when columnPrefix
+              // is not specified for the nested result map (issue #215)
+              Object ancestorObject = ancestorObjects.get(nestedResultMapId);
+              if (ancestorObject != null) {
+                if (newObject) {
+                  linkObjects(metaObject, resultMapping, ancestorObject); // issue #385
+                }
+                continue;
               }
-              continue;
             }
-          }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
-          Object rowValue = nestedResultObjects.get(combinedKey);
-          boolean knownValue = rowValue != null;
-          instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
-          if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
-            rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue);
-            if (rowValue != null && !knownValue) {
-              linkObjects(metaObject, resultMapping, rowValue);
-              foundValues = true;
+            final RowKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix, rowKeyHolder);
+            final RowKey combinedKey = combineKeys(rowKey, parentRowKey);
+            Object rowValue = nestedResultObjects.get(combinedKey);
+            boolean knownValue = rowValue != null;
+            instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
+            if (anyNotNullColumnHasValue(resultMapping, columnPrefix, rsw)) {
+              rowValue = getRowValue(rsw, nestedResultMap, combinedKey, columnPrefix, rowValue);
+              if (rowValue != null && !knownValue) {
+                linkObjects(metaObject, resultMapping, rowValue);
+                foundValues = true;
+              }
             }
+          } catch (SQLException e) {
+            throw new ExecutorException("Error getting nested result map values for '" + resultMapping.getProperty() + "'.  Cause: " + e, e);
           }
-        } catch (SQLException e) {
-          throw new ExecutorException("Error getting nested result map values for '" + resultMapping.getProperty() + "'.  Cause: " + e, e);
         }
       }
+    } finally {
+      nestedLevel--;
     }
     return foundValues;
   }
@@ -1102,37 +1420,38 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
+  private RowKey getRowKeyHolder(int level) {
+    while (rowKeyHolders.size() <= level) {
+      rowKeyHolders.add(new RowKey());
+    }
+    return rowKeyHolders.get(level);
+  }
+
+  private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix, RowKey rowKeyHolder) throws SQLException {
+    final RowKey rowKey = rowKeyHolder.reset();
+    rowKey.update(resultMap.getId());
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
     if (resultMappings.isEmpty()) {
       if (Map.class.isAssignableFrom(resultMap.getType())) {
-        createRowKeyForMap(rsw, cacheKey);
+        createRowKeyForMap(rsw, rowKey);
       } else {
-        createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
+        createRowKeyForUnmappedProperties(resultMap, rsw, rowKey, columnPrefix);
       }
     } else {
-      createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
+      createRowKeyForMappedProperties(resultMap, rsw, rowKey, resultMappings, columnPrefix);
     }
-    if (cacheKey.getUpdateCount() < 2) {
-      return CacheKey.NULL_CACHE_KEY;
+    if (rowKey.getUpdateCount() < 2) {
+      return RowKey.NULL_ROW_KEY;
     }
-    return cacheKey;
+    return rowKey;
   }
 
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
+  private RowKey combineKeys(RowKey rowKey, RowKey parentRowKey) {
     if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-      }
-      combinedKey.update(parentRowKey);
-      return combinedKey;
+      rowKey.append(parentRowKey);
+      return rowKey;
     }
-    return CacheKey.NULL_CACHE_KEY;
+    return RowKey.NULL_ROW_KEY;
   }
 
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1143,30 +1462,33 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return resultMappings;
   }
 
-  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, RowKey rowKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+    List<String> mappedColumnNames = null;
     for (ResultMapping resultMapping : resultMappings) {
       if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
         // Issue #392
         final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-        createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey, nestedResultMap.getConstructorResultMappings(),
+        createRowKeyForMappedProperties(nestedResultMap, rsw, rowKey, nestedResultMap.getConstructorResultMappings(),
           prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
       } else if (resultMapping.getNestedQueryId() == null) {
         final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
         final TypeHandler<?> th = resultMapping.getTypeHandler();
-        List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        if (mappedColumnNames == null) {
+          mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        }
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
           final Object value = th.getResult(rsw.getResultSet(), column);
           if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-            cacheKey.update(column);
-            cacheKey.update(value);
+            rowKey.update(column);
+            rowKey.update(value);
           }
         }
       }
     }
   }
 
-  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
+  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, RowKey rowKey, String columnPrefix) throws SQLException {
     final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
@@ -1182,20 +1504,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
         String value = rsw.getResultSet().getString(column);
         if (value != null) {
-          cacheKey.update(column);
-          cacheKey.update(value);
+          rowKey.update(column);
+          rowKey.update(value);
         }
       }
     }
   }
 
-  private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
+  private void createRowKeyForMap(ResultSetWrapper rsw, RowKey rowKey) throws SQLException {
     List<String> columnNames = rsw.getColumnNames();
     for (String columnName : columnNames) {
       final String value = rsw.getResultSet().getString(columnName);
       if (value != null) {
-        cacheKey.update(columnName);
-        cacheKey.update(value);
+        rowKey.update(columnName);
+        rowKey.update(value);
       }
     }
   }
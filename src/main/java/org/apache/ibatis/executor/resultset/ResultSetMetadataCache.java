@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Column layouts of the result sets returned by one mapped statement, kept across executions.
+ * <p>
+ * A cached layout is reused as long as the column count, the column labels and the JDBC types reported by the driver
+ * are unchanged. It carries the column names, JDBC types and class names read from the {@link ResultSetMetaData} as
+ * well as everything that is derived from them: type handlers, mapped and unmapped column names and auto-mappings.
+ */
+public final class ResultSetMetadataCache {
+
+  private final Map<Integer, ColumnLayout> layouts = new ConcurrentHashMap<>();
+
+  ColumnLayout getLayout(int resultSetIndex, ResultSet rs, Configuration configuration) throws SQLException {
+    final ResultSetMetaData metaData = rs.getMetaData();
+    ColumnLayout layout = layouts.get(resultSetIndex);
+    if (layout == null || !layout.matches(metaData, configuration)) {
+      layout = new ColumnLayout(metaData, configuration);
+      layouts.put(resultSetIndex, layout);
+    }
+    return layout;
+  }
+
+  public void clear() {
+    layouts.clear();
+  }
+
+  static final class ColumnLayout {
+
+    final List<String> columnNames = new ArrayList<>();
+    final List<String> classNames = new ArrayList<>();
+    final List<JdbcType> jdbcTypes = new ArrayList<>();
+    final int[] columnTypes;
+    final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new ConcurrentHashMap<>();
+    final Map<String, List<String>> mappedColumnNamesMap = new ConcurrentHashMap<>();
+    final Map<String, List<String>> unMappedColumnNamesMap = new ConcurrentHashMap<>();
+    final Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappings = new ConcurrentHashMap<>();
+
+    ColumnLayout(ResultSetMetaData metaData, Configuration configuration) throws SQLException {
+      final int columnCount = metaData.getColumnCount();
+      this.columnTypes = new int[columnCount];
+      for (int i = 1; i <= columnCount; i++) {
+        columnNames.add(getColumnName(metaData, i, configuration));
+        columnTypes[i - 1] = metaData.getColumnType(i);
+        jdbcTypes.add(JdbcType.forCode(columnTypes[i - 1]));
+        classNames.add(metaData.getColumnClassName(i));
+      }
+    }
+
+    boolean matches(ResultSetMetaData metaData, Configuration configuration) throws SQLException {
+      final int columnCount = metaData.getColumnCount();
+      if (columnCount != columnTypes.length) {
+        return false;
+      }
+      for (int i = 1; i <= columnCount; i++) {
+        if (columnTypes[i - 1] != metaData.getColumnType(i)
+            || !columnNames.get(i - 1).equals(getColumnName(metaData, i, configuration))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static String getColumnName(ResultSetMetaData metaData, int column, Configuration configuration) throws SQLException {
+      return configuration.isUseColumnLabel() ? metaData.getColumnLabel(column) : metaData.getColumnName(column);
+    }
+  }
+
+}
@@ -15,15 +15,16 @@
  */
 package org.apache.ibatis.executor.resultset;
 
+import org.apache.ibatis.executor.resultset.ResultSetMetadataCache.ColumnLayout;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.*;
 
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * ResultSetWrapper ResultSet 包装 提供工具方法
@@ -37,31 +38,37 @@ public class ResultSetWrapper {
   /**
    * 字段名集合
    */
-  private final List<String> columnNames = new ArrayList<>();
+  private final List<String> columnNames;
   /**
    * 字段类型集合
    */
-  private final List<String> classNames = new ArrayList<>();
+  private final List<String> classNames;
   /**
    * 字段JdbcType集合
    */
-  private final List<JdbcType> jdbcTypes = new ArrayList<>();
-  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
-  private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
-  private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final List<JdbcType> jdbcTypes;
+  private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap;
+  private final Map<String, List<String>> mappedColumnNamesMap;
+  private final Map<String, List<String>> unMappedColumnNamesMap;
+  private final Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappings;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
+    // 编历结果元数据
+    this(rs, configuration, new ColumnLayout(rs.getMetaData(), configuration));
+  }
+
+  ResultSetWrapper(ResultSet rs, Configuration configuration, ColumnLayout layout) {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
     this.resultSet = rs;
-    // 编历结果元数据
-    final ResultSetMetaData metaData = rs.getMetaData();
-    final int columnCount = metaData.getColumnCount();
-    for (int i = 1; i <= columnCount; i++) {
-      columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
-      jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
-      classNames.add(metaData.getColumnClassName(i));
-    }
+    // 字段信息及其衍生的映射信息都来自 ColumnLayout ，可在同一 MappedStatement 的多次执行间共享
+    this.columnNames = layout.columnNames;
+    this.classNames = layout.classNames;
+    this.jdbcTypes = layout.jdbcTypes;
+    this.typeHandlerMap = layout.typeHandlerMap;
+    this.mappedColumnNamesMap = layout.mappedColumnNamesMap;
+    this.unMappedColumnNamesMap = layout.unMappedColumnNamesMap;
+    this.autoMappings = layout.autoMappings;
   }
 
   public ResultSet getResultSet() {
@@ -109,7 +116,7 @@ public class ResultSetWrapper {
     //  先从缓存的 typeHandlerMap 中，获得指定字段名的指定 JavaType 类型的 TypeHandler 对象
     Map<Class<?>, TypeHandler<?>> columnHandlers = typeHandlerMap.get(columnName);
     if (columnHandlers == null) {
-      columnHandlers = new HashMap<>();
+      columnHandlers = new ConcurrentHashMap<>();
       typeHandlerMap.put(columnName, columnHandlers);
     } else {
       handler = columnHandlers.get(propertyType);
@@ -189,6 +196,10 @@ public class ResultSetWrapper {
     return unMappedColumnNames;
   }
 
+  Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> getAutoMappings() {
+    return autoMappings;
+  }
+
   private String getMapKey(ResultMap resultMap, String columnPrefix) {
     return resultMap.getId() + ":" + columnPrefix;
   }
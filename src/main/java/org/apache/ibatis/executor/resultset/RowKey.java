@@ -0,0 +1,129 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+import java.util.StringJoiner;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * Identity of a row for nested result maps.
+ * <p>
+ * Unlike {@link org.apache.ibatis.cache.CacheKey}, a row key is a reusable holder: the result set handler keeps
+ * one instance per nesting level, resets it for every row and only takes a {@link #copy()} when a new object
+ * is stored. Combining a key with its parent appends the parent values behind a separator, so no intermediate
+ * key objects are created.
+ */
+final class RowKey {
+
+  static final RowKey NULL_ROW_KEY = new RowKey(new Object[0], 0, 0);
+
+  private static final Object SEPARATOR = new Object();
+  private static final int DEFAULT_HASHCODE = 17;
+  private static final int DEFAULT_CAPACITY = 8;
+
+  private Object[] values;
+  private int size;
+  private int hashcode;
+
+  RowKey() {
+    this(new Object[DEFAULT_CAPACITY], 0, DEFAULT_HASHCODE);
+  }
+
+  private RowKey(Object[] values, int size, int hashcode) {
+    this.values = values;
+    this.size = size;
+    this.hashcode = hashcode;
+  }
+
+  RowKey reset() {
+    Arrays.fill(values, 0, size, null);
+    size = 0;
+    hashcode = DEFAULT_HASHCODE;
+    return this;
+  }
+
+  void update(Object value) {
+    if (this == NULL_ROW_KEY) {
+      throw new IllegalStateException("The null row key cannot be updated.");
+    }
+    if (size == values.length) {
+      values = Arrays.copyOf(values, size << 1);
+    }
+    values[size++] = value;
+    hashcode = 31 * hashcode + (value == null ? 1 : ArrayUtil.hashCode(value));
+  }
+
+  /**
+   * Appends the values of the parent key, making this key the combined key of a nested row.
+   */
+  void append(RowKey parentKey) {
+    update(SEPARATOR);
+    for (int i = 0; i < parentKey.size; i++) {
+      update(parentKey.values[i]);
+    }
+  }
+
+  int getUpdateCount() {
+    return size;
+  }
+
+  /**
+   * Returns an immutable snapshot of this key that is safe to keep after the holder is reset.
+   */
+  RowKey copy() {
+    if (this == NULL_ROW_KEY) {
+      return this;
+    }
+    return new RowKey(Arrays.copyOf(values, size), size, hashcode);
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof RowKey)) {
+      return false;
+    }
+    final RowKey rowKey = (RowKey) object;
+    if (hashcode != rowKey.hashcode || size != rowKey.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (!ArrayUtil.equals(values[i], rowKey.values[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    return hashcode;
+  }
+
+  @Override
+  public String toString() {
+    StringJoiner returnValue = new StringJoiner(":");
+    for (int i = 0; i < size; i++) {
+      returnValue.add(values[i] == SEPARATOR ? "|" : ArrayUtil.toString(values[i]));
+    }
+    return returnValue.toString();
+  }
+
+}
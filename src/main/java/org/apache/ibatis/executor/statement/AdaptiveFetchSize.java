@@ -0,0 +1,133 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+/**
+ * Fetch size derived from the results observed for one mapped statement, kept across executions.
+ * <p>
+ * Each execution records the number of rows read and an estimate of the row width. The fetch size is the smoothed
+ * row count plus a margin, so that most executions read their rows in a single round trip, reduced so that one fetch
+ * stays within {@link #MAX_FETCH_BYTES}, and finally bounded by the configured minimum and maximum.
+ */
+public final class AdaptiveFetchSize {
+
+  /**
+   * Upper bound of the estimated bytes transferred by one fetch.
+   */
+  public static final long MAX_FETCH_BYTES = 1024 * 1024;
+
+  private static final double SMOOTHING = 0.25;
+  private static final int MAX_COLUMN_WIDTH = 4096;
+  private static final int UNKNOWN_COLUMN_WIDTH = 256;
+
+  private long executionCount;
+  private double averageRowCount;
+  private double averageRowWidth;
+  private Integer fetchSize;
+
+  /**
+   * Records the result of one execution and adjusts the fetch size of the later ones.
+   *
+   * @param rowCount the number of rows read
+   * @param rowWidth the estimated width of a row, in bytes
+   * @param minFetchSize the lower bound of the fetch size
+   * @param maxFetchSize the upper bound of the fetch size
+   */
+  public synchronized void record(int rowCount, int rowWidth, int minFetchSize, int maxFetchSize) {
+    if (executionCount == 0) {
+      averageRowCount = rowCount;
+      averageRowWidth = rowWidth;
+    } else {
+      averageRowCount += (rowCount - averageRowCount) * SMOOTHING;
+      averageRowWidth += (rowWidth - averageRowWidth) * SMOOTHING;
+    }
+    executionCount++;
+    // 多取一行，使驱动在同一次往返中就能确认结果集已结束
+    long size = (long) Math.ceil(averageRowCount * (1 + SMOOTHING)) + 1;
+    size = Math.min(size, MAX_FETCH_BYTES / Math.max(1, (long) averageRowWidth));
+    size = Math.min(size, maxFetchSize);
+    fetchSize = (int) Math.max(size, minFetchSize);
+  }
+
+  /**
+   * @return the fetch size for the next execution, or {@code null} if no execution has been recorded yet
+   */
+  public synchronized Integer getFetchSize() {
+    return fetchSize;
+  }
+
+  public synchronized long getExecutionCount() {
+    return executionCount;
+  }
+
+  public synchronized double getAverageRowCount() {
+    return averageRowCount;
+  }
+
+  public synchronized double getAverageRowWidth() {
+    return averageRowWidth;
+  }
+
+  public synchronized void reset() {
+    executionCount = 0;
+    averageRowCount = 0;
+    averageRowWidth = 0;
+    fetchSize = null;
+  }
+
+  /**
+   * Estimates the width of a row, in bytes, from the column types and display sizes reported by the driver.
+   */
+  public static int estimateRowWidth(ResultSetMetaData metaData) throws SQLException {
+    int width = 0;
+    final int columnCount = metaData.getColumnCount();
+    for (int i = 1; i <= columnCount; i++) {
+      width += estimateColumnWidth(metaData, i);
+    }
+    return width;
+  }
+
+  private static int estimateColumnWidth(ResultSetMetaData metaData, int column) throws SQLException {
+    switch (metaData.getColumnType(column)) {
+      case Types.BIT:
+      case Types.BOOLEAN:
+      case Types.TINYINT:
+        return 1;
+      case Types.SMALLINT:
+        return 2;
+      case Types.INTEGER:
+      case Types.REAL:
+        return 4;
+      case Types.BIGINT:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+      case Types.DATE:
+      case Types.TIME:
+      case Types.TIMESTAMP:
+        return 8;
+      default:
+        int displaySize = metaData.getColumnDisplaySize(column);
+        if (displaySize <= 0) {
+          return UNKNOWN_COLUMN_WIDTH;
+        }
+        return Math.min(displaySize, MAX_COLUMN_WIDTH);
+    }
+  }
+}
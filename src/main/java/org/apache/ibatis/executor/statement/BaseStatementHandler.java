@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.executor.statement;
 
+import org.apache.ibatis.executor.DeadlineExceededException;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
@@ -25,6 +26,7 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.type.TypeHandlerRegistry;
@@ -88,6 +90,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
   @Override
   public Statement prepare(Connection connection, Integer transactionTimeout) throws SQLException {
     ErrorContext.instance().sql(boundSql.getSql());
+    // 截止时间已过，则不再创建 Statement 对象
+    StatementUtil.checkDeadline(getDeadline());
     Statement statement = null;
     try {
       // <1> 创建 Statement 对象
@@ -97,7 +101,7 @@ public abstract class BaseStatementHandler implements StatementHandler {
       // 设置 fetchSize
       setFetchSize(statement);
       return statement;
-    } catch (SQLException e) {
+    } catch (SQLException | DeadlineExceededException e) {
       // 发生异常，进行关闭
       closeStatement(statement);
       throw e;
@@ -125,6 +129,12 @@ public abstract class BaseStatementHandler implements StatementHandler {
     }
     // 设置事务超时时间
     StatementUtil.applyTransactionTimeout(stmt, queryTimeout, transactionTimeout);
+    // 不超过截止时间的剩余时间
+    StatementUtil.applyDeadline(stmt, getDeadline());
+  }
+
+  private Deadline getDeadline() {
+    return executor != null ? executor.getDeadline() : null;
   }
 
   protected void setFetchSize(Statement stmt) throws SQLException {
@@ -134,6 +144,14 @@ public abstract class BaseStatementHandler implements StatementHandler {
       stmt.setFetchSize(fetchSize);
       return;
     }
+    // 获得根据之前执行结果调整的 fetchSize 。非空，则进行设置
+    if (configuration.isAdaptiveFetchSizeEnabled()) {
+      Integer adaptiveFetchSize = mappedStatement.getAdaptiveFetchSize().getFetchSize();
+      if (adaptiveFetchSize != null) {
+        stmt.setFetchSize(adaptiveFetchSize);
+        return;
+      }
+    }
     // 获得 defaultFetchSize 。非空，则进行设置
     Integer defaultFetchSize = configuration.getDefaultFetchSize();
     if (defaultFetchSize != null) {
@@ -17,6 +17,10 @@ package org.apache.ibatis.executor.statement;
 
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.DeadlineExceededException;
+import org.apache.ibatis.session.Deadline;
 
 /**
  * Utility for {@link java.sql.Statement}.
@@ -55,4 +59,45 @@ public class StatementUtil {
     }
   }
 
+  /**
+   * Apply a deadline.
+   * <p>
+   * Update a query timeout so that the statement does not run past the deadline.
+   * </p>
+   * @param statement a target statement
+   * @param deadline a deadline, may be null
+   * @throws SQLException if a database access error occurs, this method is called on a closed <code>Statement</code>
+   * @throws DeadlineExceededException if the deadline has passed
+   * @since 3.5.2
+   */
+  public static void applyDeadline(Statement statement, Deadline deadline) throws SQLException {
+    if (deadline == null) {
+      return;
+    }
+    // 只读取一次剩余时间，避免检查之后到期而设置为 0 （即不限制超时时间）
+    long remainingNanos = deadline.getRemainingNanos();
+    if (remainingNanos <= 0) {
+      throw new DeadlineExceededException("The deadline of the call has passed, the statement was not executed.", deadline);
+    }
+    // 向上取整为秒，至少为 1 秒
+    long remainingSeconds = (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    int remaining = (int) Math.max(1, Math.min(Integer.MAX_VALUE, remainingSeconds));
+    int queryTimeout = statement.getQueryTimeout();
+    if (queryTimeout == 0 || remaining < queryTimeout) {
+      statement.setQueryTimeout(remaining);
+    }
+  }
+
+  /**
+   * Check a deadline.
+   * @param deadline a deadline, may be null
+   * @throws DeadlineExceededException if the deadline has passed
+   * @since 3.5.2
+   */
+  public static void checkDeadline(Deadline deadline) {
+    if (deadline != null && deadline.isExpired()) {
+      throw new DeadlineExceededException("The deadline of the call has passed, the statement was not executed.", deadline);
+    }
+  }
+
 }
@@ -88,4 +88,13 @@ public class BoundSql {
   public Object getAdditionalParameter(String name) {
     return metaParameters.getValue(name);
   }
+
+  /**
+   * Returns a copy with another SQL and parameter mappings, keeping the parameter object and the additional parameters.
+   */
+  public BoundSql withSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings) {
+    BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+    boundSql.additionalParameters.putAll(additionalParameters);
+    return boundSql;
+  }
 }
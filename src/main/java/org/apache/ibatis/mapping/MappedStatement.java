@@ -23,6 +23,8 @@ import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.resultset.ResultSetMetadataCache;
+import org.apache.ibatis.executor.statement.AdaptiveFetchSize;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
@@ -56,6 +58,14 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  private Integer mappingParallelism;
+  private Integer mappingChunkSize;
+  /**
+   * 声明的表，用于选择性失效本地缓存
+   */
+  private String[] tables;
+  private ResultSetMetadataCache resultSetMetadataCache;
+  private AdaptiveFetchSize adaptiveFetchSize;
 
   MappedStatement() {
     // constructor disabled
@@ -80,6 +90,8 @@ public final class MappedStatement {
       }
       mappedStatement.statementLog = LogFactory.getLog(logId);
       mappedStatement.lang = configuration.getDefaultScriptingLanguageInstance();
+      mappedStatement.resultSetMetadataCache = new ResultSetMetadataCache();
+      mappedStatement.adaptiveFetchSize = new AdaptiveFetchSize();
     }
 
     public Builder resource(String resource) {
@@ -174,6 +186,30 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder mappingParallelism(Integer mappingParallelism) {
+      mappedStatement.mappingParallelism = mappingParallelism;
+      return this;
+    }
+
+    public Builder mappingChunkSize(Integer mappingChunkSize) {
+      mappedStatement.mappingChunkSize = mappingChunkSize;
+      return this;
+    }
+
+    /**
+     * @param tables the comma separated names of the tables the statement reads or writes
+     */
+    public Builder tables(String tables) {
+      String[] names = delimitedStringToArray(tables);
+      if (names != null) {
+        for (int i = 0; i < names.length; i++) {
+          names[i] = names[i].trim();
+        }
+      }
+      mappedStatement.tables = names;
+      return this;
+    }
+
     /**
      * @deprecated Use {@link #resultSets}
      */
@@ -285,6 +321,64 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  /**
+   * Number of chunks of rows that may be mapped concurrently. <code>null</code> (or a value lower than 2) maps every
+   * row on the calling thread.
+   */
+  public Integer getMappingParallelism() {
+    return mappingParallelism;
+  }
+
+  public Integer getMappingChunkSize() {
+    return mappingChunkSize;
+  }
+
+  public String[] getTables() {
+    return tables;
+  }
+
+  /**
+   * Whether the results of this statement may be changed by the given statement: both are in the same namespace, or
+   * they declare a common table.
+   *
+   * @param written the statement that writes
+   */
+  public boolean isAffectedBy(MappedStatement written) {
+    if (getNamespace(this).equals(getNamespace(written))) {
+      return true;
+    }
+    if (tables == null || written.tables == null) {
+      return false;
+    }
+    for (String table : tables) {
+      for (String writtenTable : written.tables) {
+        if (table.equalsIgnoreCase(writtenTable)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static String getNamespace(MappedStatement ms) {
+    int index = ms.id.lastIndexOf('.');
+    return index < 0 ? ms.id : ms.id.substring(0, index);
+  }
+
+  /**
+   * Column layouts of the result sets returned by this statement, reused by later executions.
+   */
+  public ResultSetMetadataCache getResultSetMetadataCache() {
+    return resultSetMetadataCache;
+  }
+
+  /**
+   * Row counts and widths observed for this statement and the fetch size chosen from them.
+   */
+  public AdaptiveFetchSize getAdaptiveFetchSize() {
+    return adaptiveFetchSize;
+  }
+
   /**
    * @deprecated Use {@link #getResultSets()}
    */
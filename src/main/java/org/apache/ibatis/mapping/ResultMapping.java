@@ -45,6 +45,9 @@ public class ResultMapping {
   private String resultSet;
   private String foreignColumn;
   private boolean lazy;
+  private String nestedBatchQueryId;
+  private Integer batchSize;
+  private String batchKeyColumn;
 
   ResultMapping() {
   }
@@ -132,6 +135,21 @@ public class ResultMapping {
       return this;
     }
 
+    public Builder nestedBatchQueryId(String nestedBatchQueryId) {
+      resultMapping.nestedBatchQueryId = nestedBatchQueryId;
+      return this;
+    }
+
+    public Builder batchSize(Integer batchSize) {
+      resultMapping.batchSize = batchSize;
+      return this;
+    }
+
+    public Builder batchKeyColumn(String batchKeyColumn) {
+      resultMapping.batchKeyColumn = batchKeyColumn;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -167,6 +185,18 @@ public class ResultMapping {
           throw new IllegalStateException("There should be the same number of columns and foreignColumns in property " + resultMapping.property);
         }
       }
+      if (resultMapping.nestedBatchQueryId != null) {
+        if (resultMapping.nestedQueryId == null) {
+          throw new IllegalStateException("Cannot define batchSelect without select in property " + resultMapping.property);
+        }
+        if (resultMapping.batchKeyColumn == null || resultMapping.column == null || !resultMapping.composites.isEmpty()) {
+          throw new IllegalStateException("Batch select in property " + resultMapping.property
+              + " requires a single column and a batchKeyColumn naming the key column of the batch select results");
+        }
+        if (resultMapping.batchSize != null && resultMapping.batchSize < 1) {
+          throw new IllegalStateException("The batchSize of property " + resultMapping.property + " must be greater than zero");
+        }
+      }
     }
 
     private void resolveTypeHandler() {
@@ -251,6 +281,18 @@ public class ResultMapping {
     this.lazy = lazy;
   }
 
+  public String getNestedBatchQueryId() {
+    return nestedBatchQueryId;
+  }
+
+  public Integer getBatchSize() {
+    return batchSize;
+  }
+
+  public String getBatchKeyColumn() {
+    return batchKeyColumn;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -298,6 +340,9 @@ public class ResultMapping {
     sb.append(", resultSet='").append(resultSet).append('\'');
     sb.append(", foreignColumn='").append(foreignColumn).append('\'');
     sb.append(", lazy=").append(lazy);
+    sb.append(", nestedBatchQueryId='").append(nestedBatchQueryId).append('\'');
+    sb.append(", batchSize=").append(batchSize);
+    sb.append(", batchKeyColumn='").append(batchKeyColumn).append('\'');
     sb.append('}');
     return sb.toString();
   }
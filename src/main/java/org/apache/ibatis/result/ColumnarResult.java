@@ -0,0 +1,201 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.result;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+
+/**
+ * Result of a statement whose result type is <code>columnar</code>: every column of the result set is kept as one
+ * array instead of building an object per row.
+ * <p>
+ * Integer, big integer, floating point and boolean columns are stored as <code>int[]</code>, <code>long[]</code>,
+ * <code>double[]</code> and <code>boolean[]</code>, SQL <code>NULL</code> values of these columns are reported by
+ * {@link #isNull(String, int)}. Any other column is read through the registered type handler and stored as an
+ * <code>Object[]</code>, including <code>DECIMAL</code> and <code>NUMERIC</code> columns, which are not narrowed to
+ * <code>double</code> so as not to lose precision. Column names are case insensitive.
+ */
+public final class ColumnarResult implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<String> columnNames;
+  private final Map<String, Integer> columnIndexes;
+  private final Class<?>[] columnTypes;
+  private final Object[] columns;
+  private final BitSet[] nulls;
+  private final int rowCount;
+
+  ColumnarResult(List<String> columnNames, Class<?>[] columnTypes, Object[] columns, BitSet[] nulls, int rowCount) {
+    this.columnNames = Collections.unmodifiableList(columnNames);
+    this.columnIndexes = new HashMap<>();
+    for (int i = 0; i < columnNames.size(); i++) {
+      columnIndexes.putIfAbsent(columnNames.get(i).toUpperCase(Locale.ENGLISH), i);
+    }
+    this.columnTypes = columnTypes;
+    this.columns = columns;
+    this.nulls = nulls;
+    this.rowCount = rowCount;
+  }
+
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  public boolean hasColumn(String column) {
+    return columnIndexes.containsKey(column.toUpperCase(Locale.ENGLISH));
+  }
+
+  /**
+   * Returns <code>int.class</code>, <code>long.class</code>, <code>double.class</code>, <code>boolean.class</code>
+   * or <code>Object.class</code> depending on how the column is stored. <code>DECIMAL</code> and
+   * <code>NUMERIC</code> columns are stored as <code>Object.class</code>.
+   */
+  public Class<?> getColumnType(String column) {
+    return columnTypes[indexOf(column)];
+  }
+
+  /**
+   * Returns a <code>TINYINT</code>, <code>SMALLINT</code> or <code>INTEGER</code> column.
+   */
+  public int[] getIntColumn(String column) {
+    return (int[]) getColumn(column, int.class);
+  }
+
+  /**
+   * Returns a <code>BIGINT</code> column, or an integer column widened to <code>long</code>.
+   */
+  public long[] getLongColumn(String column) {
+    final int index = indexOf(column);
+    if (columnTypes[index] == int.class) {
+      final int[] values = (int[]) columns[index];
+      final long[] widened = new long[values.length];
+      for (int i = 0; i < values.length; i++) {
+        widened[i] = values[i];
+      }
+      return widened;
+    }
+    return (long[]) getColumn(column, long.class);
+  }
+
+  /**
+   * Returns a <code>FLOAT</code>, <code>REAL</code> or <code>DOUBLE</code> column, or an integer column widened to
+   * <code>double</code>. <code>DECIMAL</code> and <code>NUMERIC</code> columns are stored as <code>Object[]</code> of
+   * <code>BigDecimal</code> and must be read with {@link #getObjectColumn(String)}.
+   */
+  public double[] getDoubleColumn(String column) {
+    final int index = indexOf(column);
+    if (columnTypes[index] == int.class) {
+      return Arrays.stream((int[]) columns[index]).asDoubleStream().toArray();
+    } else if (columnTypes[index] == long.class) {
+      return Arrays.stream((long[]) columns[index]).asDoubleStream().toArray();
+    }
+    return (double[]) getColumn(column, double.class);
+  }
+
+  /**
+   * Returns a <code>BIT</code> or <code>BOOLEAN</code> column.
+   */
+  public boolean[] getBooleanColumn(String column) {
+    return (boolean[]) getColumn(column, boolean.class);
+  }
+
+  /**
+   * Returns the column as objects. Primitive columns are boxed, with <code>null</code> for SQL <code>NULL</code>. This
+   * is the only accessor of the columns stored as <code>Object[]</code>, e.g. <code>DECIMAL</code>,
+   * <code>NUMERIC</code>, character and date columns.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T[] getObjectColumn(String column) {
+    final int index = indexOf(column);
+    if (columnTypes[index] == Object.class) {
+      return (T[]) columns[index];
+    }
+    final Object[] boxed = new Object[rowCount];
+    for (int row = 0; row < rowCount; row++) {
+      boxed[row] = getValue(index, row);
+    }
+    return (T[]) boxed;
+  }
+
+  /**
+   * Returns the value of one cell, boxed for primitive columns.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T getValue(String column, int row) {
+    return (T) getValue(indexOf(column), row);
+  }
+
+  public boolean isNull(String column, int row) {
+    final int index = indexOf(column);
+    if (columnTypes[index] == Object.class) {
+      return ((Object[]) columns[index])[row] == null;
+    }
+    return nulls[index] != null && nulls[index].get(row);
+  }
+
+  private Object getValue(int index, int row) {
+    if (row < 0 || row >= rowCount) {
+      throw new IndexOutOfBoundsException("Row " + row + " is out of range [0, " + rowCount + ")");
+    }
+    final Class<?> type = columnTypes[index];
+    if (type == Object.class) {
+      return ((Object[]) columns[index])[row];
+    }
+    if (nulls[index] != null && nulls[index].get(row)) {
+      return null;
+    }
+    if (type == int.class) {
+      return ((int[]) columns[index])[row];
+    } else if (type == long.class) {
+      return ((long[]) columns[index])[row];
+    } else if (type == double.class) {
+      return ((double[]) columns[index])[row];
+    } else {
+      return ((boolean[]) columns[index])[row];
+    }
+  }
+
+  private Object getColumn(String column, Class<?> type) {
+    final int index = indexOf(column);
+    if (columnTypes[index] != type) {
+      throw new ExecutorException("Column '" + column + "' is stored as " + columnTypes[index].getSimpleName()
+        + " and cannot be read as " + type.getSimpleName() + ".");
+    }
+    return columns[index];
+  }
+
+  private int indexOf(String column) {
+    final Integer index = columnIndexes.get(column.toUpperCase(Locale.ENGLISH));
+    if (index == null) {
+      throw new ExecutorException("Column '" + column + "' not found in columnar result. Available columns: " + columnNames);
+    }
+    return index;
+  }
+
+}
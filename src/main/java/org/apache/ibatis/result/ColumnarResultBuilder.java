@@ -0,0 +1,153 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.result;
+
+import java.lang.reflect.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.apache.ibatis.executor.resultset.ResultSetWrapper;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Reads the rows of a result set straight into growable column buffers and builds a {@link ColumnarResult}.
+ */
+public class ColumnarResultBuilder {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private final ResultSet resultSet;
+  private final List<String> columnNames;
+  private final Class<?>[] columnTypes;
+  private final TypeHandler<?>[] typeHandlers;
+  private final Object[] columns;
+  private final BitSet[] nulls;
+  private int rowCount;
+
+  public ColumnarResultBuilder(ResultSetWrapper rsw) {
+    this.resultSet = rsw.getResultSet();
+    this.columnNames = rsw.getColumnNames();
+    final int columnCount = columnNames.size();
+    this.columnTypes = new Class<?>[columnCount];
+    this.typeHandlers = new TypeHandler<?>[columnCount];
+    this.columns = new Object[columnCount];
+    this.nulls = new BitSet[columnCount];
+    final List<JdbcType> jdbcTypes = rsw.getJdbcTypes();
+    for (int i = 0; i < columnCount; i++) {
+      columnTypes[i] = resolveColumnType(jdbcTypes.get(i));
+      if (columnTypes[i] == Object.class) {
+        // 非基本类型的字段，使用 TypeHandler 读取
+        typeHandlers[i] = rsw.getTypeHandler(Object.class, columnNames.get(i));
+        columns[i] = new Object[INITIAL_CAPACITY];
+      } else {
+        columns[i] = Array.newInstance(columnTypes[i], INITIAL_CAPACITY);
+      }
+    }
+  }
+
+  private static Class<?> resolveColumnType(JdbcType jdbcType) {
+    if (jdbcType == null) {
+      return Object.class;
+    }
+    switch (jdbcType) {
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+        return int.class;
+      case BIGINT:
+        return long.class;
+      case FLOAT:
+      case REAL:
+      case DOUBLE:
+        return double.class;
+      case BIT:
+      case BOOLEAN:
+        return boolean.class;
+      default:
+        return Object.class;
+    }
+  }
+
+  /**
+   * Appends the current row of the result set.
+   */
+  public void addRow() throws SQLException {
+    final int row = rowCount;
+    if (row == capacity()) {
+      grow();
+    }
+    for (int i = 0; i < columns.length; i++) {
+      final int columnIndex = i + 1;
+      final Class<?> type = columnTypes[i];
+      if (type == int.class) {
+        ((int[]) columns[i])[row] = resultSet.getInt(columnIndex);
+      } else if (type == long.class) {
+        ((long[]) columns[i])[row] = resultSet.getLong(columnIndex);
+      } else if (type == double.class) {
+        ((double[]) columns[i])[row] = resultSet.getDouble(columnIndex);
+      } else if (type == boolean.class) {
+        ((boolean[]) columns[i])[row] = resultSet.getBoolean(columnIndex);
+      } else {
+        ((Object[]) columns[i])[row] = typeHandlers[i].getResult(resultSet, columnNames.get(i));
+        continue;
+      }
+      if (resultSet.wasNull()) {
+        if (nulls[i] == null) {
+          nulls[i] = new BitSet();
+        }
+        nulls[i].set(row);
+      }
+    }
+    rowCount++;
+  }
+
+  public ColumnarResult build() {
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = copyOf(columns[i], rowCount);
+    }
+    return new ColumnarResult(columnNames, columnTypes, columns, nulls, rowCount);
+  }
+
+  private int capacity() {
+    return columns.length == 0 ? Integer.MAX_VALUE : Array.getLength(columns[0]);
+  }
+
+  private void grow() {
+    final int newCapacity = capacity() * 2;
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = copyOf(columns[i], newCapacity);
+    }
+  }
+
+  private static Object copyOf(Object column, int length) {
+    if (column instanceof int[]) {
+      return Arrays.copyOf((int[]) column, length);
+    } else if (column instanceof long[]) {
+      return Arrays.copyOf((long[]) column, length);
+    } else if (column instanceof double[]) {
+      return Arrays.copyOf((double[]) column, length);
+    } else if (column instanceof boolean[]) {
+      return Arrays.copyOf((boolean[]) column, length);
+    } else {
+      return Arrays.copyOf((Object[]) column, length);
+    }
+  }
+
+}
@@ -30,7 +30,6 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeException;
 import org.apache.ibatis.type.TypeHandler;
-import org.apache.ibatis.type.TypeHandlerRegistry;
 
 /**
  * @author Clinton Begin
@@ -38,7 +37,6 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
  */
 public class DefaultParameterHandler implements ParameterHandler {
 
-  private final TypeHandlerRegistry typeHandlerRegistry;
   /**
    * MappedStatement 对象
    */
@@ -56,7 +54,6 @@ public class DefaultParameterHandler implements ParameterHandler {
   public DefaultParameterHandler(MappedStatement mappedStatement, Object parameterObject, BoundSql boundSql) {
     this.mappedStatement = mappedStatement;
     this.configuration = mappedStatement.getConfiguration();
-    this.typeHandlerRegistry = mappedStatement.getConfiguration().getTypeHandlerRegistry();
     this.parameterObject = parameterObject;
     this.boundSql = boundSql;
   }
@@ -74,18 +71,7 @@ public class DefaultParameterHandler implements ParameterHandler {
       for (int i = 0; i < parameterMappings.size(); i++) {
         ParameterMapping parameterMapping = parameterMappings.get(i);
         if (parameterMapping.getMode() != ParameterMode.OUT) {
-          Object value;
-          String propertyName = parameterMapping.getProperty();
-          if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
-            value = boundSql.getAdditionalParameter(propertyName);
-          } else if (parameterObject == null) {
-            value = null;
-          } else if (typeHandlerRegistry.hasTypeHandler(parameterObject.getClass())) {
-            value = parameterObject;
-          } else {
-            MetaObject metaObject = configuration.newMetaObject(parameterObject);
-            value = metaObject.getValue(propertyName);
-          }
+          Object value = getParameterValue(configuration, boundSql, parameterObject, parameterMapping);
           // <4> 获得 typeHandler、jdbcType 属性
           TypeHandler typeHandler = parameterMapping.getTypeHandler();
           JdbcType jdbcType = parameterMapping.getJdbcType();
@@ -103,4 +89,28 @@ public class DefaultParameterHandler implements ParameterHandler {
     }
   }
 
+  /**
+   * 获得参数映射的值：额外参数优先，其次是参数对象本身（有对应的 TypeHandler 时）或其属性
+   *
+   * @param configuration the configuration
+   * @param boundSql the bound SQL holding the additional parameters
+   * @param parameterObject the parameter object
+   * @param parameterMapping the parameter mapping
+   * @return the value to bind
+   */
+  public static Object getParameterValue(Configuration configuration, BoundSql boundSql, Object parameterObject,
+      ParameterMapping parameterMapping) {
+    String propertyName = parameterMapping.getProperty();
+    if (boundSql.hasAdditionalParameter(propertyName)) { // issue #448 ask first for additional params
+      return boundSql.getAdditionalParameter(propertyName);
+    } else if (parameterObject == null) {
+      return null;
+    } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+      return parameterObject;
+    } else {
+      MetaObject metaObject = configuration.newMetaObject(parameterObject);
+      return metaObject.getValue(propertyName);
+    }
+  }
+
 }
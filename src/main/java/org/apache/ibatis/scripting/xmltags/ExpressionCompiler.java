@@ -0,0 +1,550 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * Compiles the common expressions of dynamic SQL tests into cached evaluations, instead of interpreting them with
+ * OGNL: property paths, zero-argument method calls, <code>null</code>, boolean, string and number literals,
+ * comparisons, <code>!</code>/<code>not</code>, <code>and</code>/<code>or</code> and parentheses.
+ * <p>
+ * The evaluations follow the OGNL semantics. Any expression outside this grammar, and any evaluation meeting a value
+ * they don't cover (for example comparing a string with a number, or a property without getter), is evaluated by
+ * {@link OgnlCache}. Exceptions thrown while evaluating are not retried with OGNL: those of the invoked getters and
+ * methods are wrapped in a {@link BuilderException} as {@link OgnlCache} does, the others are thrown as they are.
+ *
+ * @see OgnlCache
+ */
+public final class ExpressionCompiler {
+
+  /**
+   * 编译后的表达式，无法处理时返回 {@link #UNSUPPORTED} ，交给 OGNL 执行
+   */
+  private interface Evaluation {
+    Object evaluate(Object root) throws Exception;
+  }
+
+  private static final Object UNSUPPORTED = new Object();
+  private static final Evaluation NOT_COMPILED = root -> UNSUPPORTED;
+  private static final Evaluation ROOT = root -> root;
+
+  private static final ReflectorFactory REFLECTOR_FACTORY = new DefaultReflectorFactory();
+  private static final DynamicContext.ContextAccessor CONTEXT_ACCESSOR = new DynamicContext.ContextAccessor();
+  private static final Map<String, Evaluation> expressionCache = new ConcurrentHashMap<>();
+  private static final Map<Class<?>, Map<String, Optional<Method>>> methodCache = new ConcurrentHashMap<>();
+
+  private ExpressionCompiler() {
+    // Prevent Instantiation of Static Class
+  }
+
+  public static Object getValue(String expression, Object root) {
+    Evaluation evaluation = expressionCache.computeIfAbsent(expression, ExpressionCompiler::compile);
+    final Object value;
+    try {
+      value = evaluation.evaluate(root);
+    } catch (RuntimeException e) {
+      // 与 OGNL 一样，直接抛出属性访问器的异常
+      throw e;
+    } catch (Exception e) {
+      // 与 OgnlCache 一样包装调用 getter 或方法时的异常
+      Throwable cause = ExceptionUtil.unwrapThrowable(e);
+      throw new BuilderException("Error evaluating expression '" + expression + "'. Cause: " + cause, cause);
+    }
+    return value != UNSUPPORTED ? value : OgnlCache.getValue(expression, root);
+  }
+
+  private static Evaluation compile(String expression) {
+    try {
+      Parser parser = new Parser(expression);
+      Evaluation evaluation = parser.parseOr();
+      return parser.atEnd() ? evaluation : NOT_COMPILED;
+    } catch (NotCompilableException e) {
+      return NOT_COMPILED;
+    }
+  }
+
+  private static Evaluation and(Evaluation left, Evaluation right) {
+    return root -> {
+      Object value = left.evaluate(root);
+      return value == UNSUPPORTED || !booleanValue(value) ? value : right.evaluate(root);
+    };
+  }
+
+  private static Evaluation or(Evaluation left, Evaluation right) {
+    return root -> {
+      Object value = left.evaluate(root);
+      return value == UNSUPPORTED || booleanValue(value) ? value : right.evaluate(root);
+    };
+  }
+
+  private static Evaluation not(Evaluation operand) {
+    return root -> {
+      Object value = operand.evaluate(root);
+      return value == UNSUPPORTED ? value : !booleanValue(value);
+    };
+  }
+
+  private static Evaluation equal(Evaluation left, Evaluation right, boolean expected) {
+    return root -> {
+      Object value1 = left.evaluate(root);
+      Object value2 = value1 == UNSUPPORTED ? UNSUPPORTED : right.evaluate(root);
+      if (value2 == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      Boolean equal = equal(value1, value2);
+      return equal == null ? UNSUPPORTED : equal == expected;
+    };
+  }
+
+  private static Evaluation compare(Evaluation left, Evaluation right, IntPredicate predicate) {
+    return root -> {
+      Object value1 = left.evaluate(root);
+      Object value2 = value1 == UNSUPPORTED ? UNSUPPORTED : right.evaluate(root);
+      if (value2 == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      Integer comparison = compare(value1, value2);
+      return comparison == null ? UNSUPPORTED : predicate.test(comparison);
+    };
+  }
+
+  private static Evaluation property(Evaluation target, String name) {
+    return root -> {
+      Object object = target.evaluate(root);
+      return object == UNSUPPORTED || object == null ? UNSUPPORTED : getProperty(object, name);
+    };
+  }
+
+  private static Evaluation method(Evaluation target, String name) {
+    return root -> {
+      Object object = target.evaluate(root);
+      if (object == UNSUPPORTED || object == null) {
+        return UNSUPPORTED;
+      }
+      Optional<Method> method = methodCache.computeIfAbsent(object.getClass(), type -> new ConcurrentHashMap<>())
+          .computeIfAbsent(name, methodName -> findMethod(object.getClass(), methodName));
+      return method.isPresent() ? method.get().invoke(object) : UNSUPPORTED;
+    };
+  }
+
+  private static Evaluation literal(Object value) {
+    return root -> value;
+  }
+
+  /**
+   * Same as {@code OgnlOps.booleanValue}.
+   */
+  private static boolean booleanValue(Object value) {
+    if (value == null) {
+      return false;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof String) {
+      return Boolean.parseBoolean((String) value);
+    }
+    if (value instanceof Character) {
+      return (Character) value != 0;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue() != 0;
+    }
+    return true;
+  }
+
+  /**
+   * Same as {@code OgnlOps.equal}, or <code>null</code> when the values need conversions left to OGNL.
+   */
+  private static Boolean equal(Object value1, Object value2) {
+    if (value1 == null || value2 == null) {
+      return value1 == value2;
+    }
+    if (value1 == value2 || value1.equals(value2)) {
+      return true;
+    }
+    Integer comparison = compare(value1, value2);
+    if (comparison == null) {
+      return null;
+    }
+    return comparison == 0
+        || value1 instanceof Number && value2 instanceof Number
+        && ((Number) value1).doubleValue() == ((Number) value2).doubleValue();
+  }
+
+  /**
+   * Same as {@code OgnlOps.compareWithConversion} for strings, integral and floating point numbers, or
+   * <code>null</code> for other values.
+   */
+  private static Integer compare(Object value1, Object value2) {
+    if (value1 instanceof String && value2 instanceof String) {
+      return ((String) value1).compareTo((String) value2);
+    }
+    if (isIntegral(value1) && isIntegral(value2)) {
+      return Long.compare(((Number) value1).longValue(), ((Number) value2).longValue());
+    }
+    if ((isIntegral(value1) || isFloatingPoint(value1)) && (isIntegral(value2) || isFloatingPoint(value2))) {
+      double double1 = ((Number) value1).doubleValue();
+      double double2 = ((Number) value2).doubleValue();
+      return double1 == double2 ? 0 : double1 < double2 ? -1 : 1;
+    }
+    return null;
+  }
+
+  private static boolean isIntegral(Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+  }
+
+  private static boolean isFloatingPoint(Object value) {
+    return value instanceof Double || value instanceof Float;
+  }
+
+  /**
+   * Reads the property as the OGNL property accessors do, or returns {@link #UNSUPPORTED} for the cases left to them.
+   */
+  private static Object getProperty(Object object, String name) throws Exception {
+    if (object instanceof DynamicContext.ContextMap) {
+      return CONTEXT_ACCESSOR.getProperty(null, object, name);
+    }
+    if (object instanceof Map) {
+      switch (name) {
+        case "size":
+        case "isEmpty":
+        case "keys":
+        case "keySet":
+        case "values":
+          return UNSUPPORTED;
+        default:
+          return ((Map<?, ?>) object).get(name);
+      }
+    }
+    if (object instanceof List || object instanceof Set) {
+      return "size".equals(name) ? ((Collection<?>) object).size() : UNSUPPORTED;
+    }
+    if (object.getClass().isArray()) {
+      return "length".equals(name) ? Array.getLength(object) : UNSUPPORTED;
+    }
+    if (object instanceof Iterator || object instanceof Enumeration) {
+      return UNSUPPORTED;
+    }
+    Reflector reflector = REFLECTOR_FACTORY.findForClass(object.getClass());
+    if (reflector.hasGetter(name)) {
+      return reflector.getGetInvoker(name).invoke(object, null);
+    }
+    return UNSUPPORTED;
+  }
+
+  /**
+   * Finds the public method without parameters, declared by a public class or interface, so that it can be invoked on
+   * instances of non public classes (for example the list of <code>Arrays.asList()</code>).
+   */
+  private static Optional<Method> findMethod(Class<?> type, String name) {
+    if (type == null) {
+      return Optional.empty();
+    }
+    if (Modifier.isPublic(type.getModifiers())) {
+      try {
+        return Optional.of(type.getMethod(name));
+      } catch (NoSuchMethodException e) {
+        return Optional.empty();
+      }
+    }
+    for (Class<?> interfaceType : type.getInterfaces()) {
+      Optional<Method> method = findMethod(interfaceType, name);
+      if (method.isPresent()) {
+        return method;
+      }
+    }
+    return findMethod(type.getSuperclass(), name);
+  }
+
+  private static class NotCompilableException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    NotCompilableException() {
+      super(null, null, false, false);
+    }
+  }
+
+  /**
+   * Recursive descent parser of the supported grammar, with the OGNL precedence: <code>or</code>, <code>and</code>,
+   * comparisons, then unary <code>!</code>.
+   */
+  private static class Parser {
+
+    private final String expression;
+    private int position;
+
+    Parser(String expression) {
+      this.expression = expression;
+    }
+
+    boolean atEnd() {
+      skipWhitespace();
+      return position == expression.length();
+    }
+
+    Evaluation parseOr() {
+      Evaluation evaluation = parseAnd();
+      while (accept("||") || acceptKeyword("or")) {
+        evaluation = or(evaluation, parseAnd());
+      }
+      return evaluation;
+    }
+
+    private Evaluation parseAnd() {
+      Evaluation evaluation = parseComparison();
+      while (accept("&&") || acceptKeyword("and")) {
+        evaluation = and(evaluation, parseComparison());
+      }
+      return evaluation;
+    }
+
+    private Evaluation parseComparison() {
+      Evaluation left = parseUnary();
+      Evaluation evaluation;
+      if (accept("==") || acceptKeyword("eq")) {
+        evaluation = equal(left, parseUnary(), true);
+      } else if (accept("!=") || acceptKeyword("neq")) {
+        evaluation = equal(left, parseUnary(), false);
+      } else if (accept("<=") || acceptKeyword("lte")) {
+        evaluation = compare(left, parseUnary(), comparison -> comparison <= 0);
+      } else if (accept(">=") || acceptKeyword("gte")) {
+        evaluation = compare(left, parseUnary(), comparison -> comparison >= 0);
+      } else if (accept("<") || acceptKeyword("lt")) {
+        evaluation = compare(left, parseUnary(), comparison -> comparison < 0);
+      } else if (accept(">") || acceptKeyword("gt")) {
+        evaluation = compare(left, parseUnary(), comparison -> comparison > 0);
+      } else {
+        return left;
+      }
+      // 连续的比较交给 OGNL
+      if (peek("==") || peek("!=") || peek("<") || peek(">")) {
+        throw new NotCompilableException();
+      }
+      return evaluation;
+    }
+
+    private Evaluation parseUnary() {
+      if ((peek("!") && !peek("!=")) || peekKeyword("not")) {
+        if (!accept("!")) {
+          acceptKeyword("not");
+        }
+        return not(parseUnary());
+      }
+      return parsePrimary();
+    }
+
+    private Evaluation parsePrimary() {
+      skipWhitespace();
+      if (position == expression.length()) {
+        throw new NotCompilableException();
+      }
+      char c = expression.charAt(position);
+      if (c == '(') {
+        position++;
+        Evaluation evaluation = parseOr();
+        expect(")");
+        return evaluation;
+      }
+      if (c == '\'' || c == '"') {
+        return literal(parseString(c));
+      }
+      if (Character.isDigit(c) || c == '-' && position + 1 < expression.length()
+          && Character.isDigit(expression.charAt(position + 1))) {
+        return literal(parseNumber());
+      }
+      if (!Character.isJavaIdentifierStart(c)) {
+        throw new NotCompilableException();
+      }
+      String identifier = parseIdentifier();
+      switch (identifier) {
+        case "null":
+          return literal(null);
+        case "true":
+          return literal(Boolean.TRUE);
+        case "false":
+          return literal(Boolean.FALSE);
+        default:
+          break;
+      }
+      Evaluation evaluation = member(ROOT, identifier);
+      while (accept(".")) {
+        skipWhitespace();
+        if (position == expression.length() || !Character.isJavaIdentifierStart(expression.charAt(position))) {
+          throw new NotCompilableException();
+        }
+        evaluation = member(evaluation, parseIdentifier());
+      }
+      return evaluation;
+    }
+
+    private Evaluation member(Evaluation target, String name) {
+      if (isKeyword(name)) {
+        throw new NotCompilableException();
+      }
+      if (accept("(")) {
+        // 只支持无参数的方法
+        expect(")");
+        return method(target, name);
+      }
+      return property(target, name);
+    }
+
+    private String parseString(char quote) {
+      int end = expression.indexOf(quote, position + 1);
+      if (end < 0) {
+        throw new NotCompilableException();
+      }
+      String value = expression.substring(position + 1, end);
+      // 转义字符，以及单引号中的单个字符（OGNL 中为 Character）交给 OGNL
+      if (value.indexOf('\\') >= 0 || quote == '\'' && value.length() == 1) {
+        throw new NotCompilableException();
+      }
+      position = end + 1;
+      return value;
+    }
+
+    private Object parseNumber() {
+      int start = position;
+      if (expression.charAt(position) == '-') {
+        position++;
+      }
+      skipDigits();
+      boolean decimal = false;
+      if (position + 1 < expression.length() && expression.charAt(position) == '.'
+          && Character.isDigit(expression.charAt(position + 1))) {
+        decimal = true;
+        position++;
+        skipDigits();
+      }
+      // 带后缀的数字（如 1L 、 1.5f 、 1H ）交给 OGNL
+      if (position < expression.length() && (Character.isJavaIdentifierPart(expression.charAt(position))
+          || expression.charAt(position) == '.')) {
+        throw new NotCompilableException();
+      }
+      String number = expression.substring(start, position);
+      try {
+        if (decimal) {
+          return Double.valueOf(number);
+        }
+        return Integer.valueOf(number);
+      } catch (NumberFormatException e) {
+        throw new NotCompilableException();
+      }
+    }
+
+    private void skipDigits() {
+      while (position < expression.length() && Character.isDigit(expression.charAt(position))) {
+        position++;
+      }
+    }
+
+    private String parseIdentifier() {
+      int start = position++;
+      while (position < expression.length() && Character.isJavaIdentifierPart(expression.charAt(position))) {
+        position++;
+      }
+      return expression.substring(start, position);
+    }
+
+    private boolean isKeyword(String identifier) {
+      switch (identifier) {
+        case "and":
+        case "or":
+        case "not":
+        case "eq":
+        case "neq":
+        case "lt":
+        case "lte":
+        case "gt":
+        case "gte":
+        case "in":
+        case "instanceof":
+        case "new":
+        case "shl":
+        case "shr":
+        case "ushr":
+        case "band":
+        case "bor":
+        case "xor":
+          return true;
+        default:
+          return false;
+      }
+    }
+
+    private void expect(String token) {
+      if (!accept(token)) {
+        throw new NotCompilableException();
+      }
+    }
+
+    private boolean peek(String token) {
+      skipWhitespace();
+      return expression.startsWith(token, position);
+    }
+
+    private boolean accept(String token) {
+      if (peek(token)) {
+        position += token.length();
+        return true;
+      }
+      return false;
+    }
+
+    private boolean peekKeyword(String keyword) {
+      if (!peek(keyword)) {
+        return false;
+      }
+      int end = position + keyword.length();
+      return end == expression.length() || !Character.isJavaIdentifierPart(expression.charAt(end));
+    }
+
+    private boolean acceptKeyword(String keyword) {
+      if (peekKeyword(keyword)) {
+        position += keyword.length();
+        return true;
+      }
+      return false;
+    }
+
+    private void skipWhitespace() {
+      while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+        position++;
+      }
+    }
+  }
+
+}
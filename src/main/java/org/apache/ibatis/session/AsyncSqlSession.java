@@ -0,0 +1,97 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.apache.ibatis.executor.BatchResult;
+
+/**
+ * Asynchronous facade of a {@link SqlSession}.
+ * <p>
+ * Every call is queued and run on the executor set with {@link Configuration#setAsyncExecutor}, one at a time and in
+ * the order of the calls, so statements and transaction demarcation keep the semantics of the underlying session.
+ * The connection is only acquired by the first statement, on an executor thread, so no call blocks the caller.
+ * <p>
+ * Mappers returned by {@link #getMapper(Class)} run their methods the same way. Methods declared to return a
+ * {@link CompletableFuture} complete asynchronously; other methods wait for their turn and block the caller.
+ */
+public interface AsyncSqlSession {
+
+  <T> CompletableFuture<T> selectOne(String statement);
+
+  <T> CompletableFuture<T> selectOne(String statement, Object parameter);
+
+  <E> CompletableFuture<List<E>> selectList(String statement);
+
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter);
+
+  <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds);
+
+  <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, String mapKey);
+
+  <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey);
+
+  CompletableFuture<Integer> insert(String statement);
+
+  CompletableFuture<Integer> insert(String statement, Object parameter);
+
+  CompletableFuture<Integer> update(String statement);
+
+  CompletableFuture<Integer> update(String statement, Object parameter);
+
+  CompletableFuture<Integer> delete(String statement);
+
+  CompletableFuture<Integer> delete(String statement, Object parameter);
+
+  CompletableFuture<Void> commit();
+
+  CompletableFuture<Void> commit(boolean force);
+
+  CompletableFuture<Void> rollback();
+
+  CompletableFuture<Void> rollback(boolean force);
+
+  CompletableFuture<List<BatchResult>> flushStatements();
+
+  /**
+   * Closes the underlying session once the calls queued before are done.
+   */
+  CompletableFuture<Void> close();
+
+  /**
+   * Runs an arbitrary unit of work against the underlying session, in turn with the other calls.
+   * The session must not be used outside of the callback.
+   * @param <T> the result type
+   * @param action the work to run
+   * @return the result of the action
+   */
+  <T> CompletableFuture<T> execute(Function<SqlSession, T> action);
+
+  /**
+   * Retrieves a mapper whose methods run on the executor of this session.
+   * @param <T> the mapper type
+   * @param type Mapper interface class
+   * @return a mapper bound to this session
+   */
+  <T> T getMapper(Class<T> type);
+
+  Configuration getConfiguration();
+
+}
@@ -0,0 +1,105 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.function.Consumer;
+
+/**
+ * Options of {@link SqlSession#bulkLoad(String, java.util.Iterator, BulkLoadOptions)}.
+ */
+public final class BulkLoadOptions {
+
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+  public static final BulkLoadOptions DEFAULT = new Builder().build();
+
+  private final int batchSize;
+  private final int commitInterval;
+  private final Consumer<Object> generatedKeyHandler;
+  private final Consumer<BulkLoadResult> progressListener;
+
+  private BulkLoadOptions(Builder builder) {
+    this.batchSize = builder.batchSize;
+    this.commitInterval = builder.commitInterval;
+    this.generatedKeyHandler = builder.generatedKeyHandler;
+    this.progressListener = builder.progressListener;
+  }
+
+  public static class Builder {
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private int commitInterval;
+    private Consumer<Object> generatedKeyHandler;
+    private Consumer<BulkLoadResult> progressListener;
+
+    /**
+     * Number of rows after which the pending statements are flushed. Defaults to {@value #DEFAULT_BATCH_SIZE}.
+     */
+    public Builder batchSize(int batchSize) {
+      if (batchSize <= 0) {
+        throw new IllegalArgumentException("Parameter 'batchSize' must be positive");
+      }
+      this.batchSize = batchSize;
+      return this;
+    }
+
+    /**
+     * Number of rows after which the transaction is committed, 0 to leave it to the caller, which is the default.
+     */
+    public Builder commitInterval(int commitInterval) {
+      if (commitInterval < 0) {
+        throw new IllegalArgumentException("Parameter 'commitInterval' must not be negative");
+      }
+      this.commitInterval = commitInterval;
+      return this;
+    }
+
+    /**
+     * Receives each parameter object once its row has been inserted, with the generated keys assigned.
+     */
+    public Builder generatedKeyHandler(Consumer<Object> generatedKeyHandler) {
+      this.generatedKeyHandler = generatedKeyHandler;
+      return this;
+    }
+
+    /**
+     * Receives the progress of the load after each flush.
+     */
+    public Builder progressListener(Consumer<BulkLoadResult> progressListener) {
+      this.progressListener = progressListener;
+      return this;
+    }
+
+    public BulkLoadOptions build() {
+      return new BulkLoadOptions(this);
+    }
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public int getCommitInterval() {
+    return commitInterval;
+  }
+
+  public Consumer<Object> getGeneratedKeyHandler() {
+    return generatedKeyHandler;
+  }
+
+  public Consumer<BulkLoadResult> getProgressListener() {
+    return progressListener;
+  }
+
+}
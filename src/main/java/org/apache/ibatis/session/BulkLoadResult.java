@@ -0,0 +1,83 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Progress, or outcome, of a bulk load.
+ *
+ * @see SqlSession#bulkLoad(String, java.util.Iterator, BulkLoadOptions)
+ */
+public final class BulkLoadResult {
+
+  private final long rowCount;
+  private final long updateCount;
+  private final int batchCount;
+  private final int commitCount;
+  private final long elapsedNanos;
+
+  public BulkLoadResult(long rowCount, long updateCount, int batchCount, int commitCount, long elapsedNanos) {
+    this.rowCount = rowCount;
+    this.updateCount = updateCount;
+    this.batchCount = batchCount;
+    this.commitCount = commitCount;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  /**
+   * @return the number of parameter objects the statement has been executed with
+   */
+  public long getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * @return the number of rows reported as affected by the driver
+   */
+  public long getUpdateCount() {
+    return updateCount;
+  }
+
+  /**
+   * @return the number of flushes of pending statements
+   */
+  public int getBatchCount() {
+    return batchCount;
+  }
+
+  public int getCommitCount() {
+    return commitCount;
+  }
+
+  public long getElapsedMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+  }
+
+  /**
+   * @return the number of rows per second
+   */
+  public double getThroughput() {
+    return elapsedNanos == 0 ? 0 : rowCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "BulkLoadResult{rowCount=" + rowCount + ", updateCount=" + updateCount + ", batchCount=" + batchCount
+        + ", commitCount=" + commitCount + ", elapsedMillis=" + getElapsedMillis() + "}";
+  }
+
+}
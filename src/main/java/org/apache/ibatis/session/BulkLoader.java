@@ -0,0 +1,113 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+
+/**
+ * Runs the bulk loads of {@link SqlSession#bulkLoad(String, Iterator, BulkLoadOptions)} through the public methods of
+ * the session: the pending statements are flushed every {@code batchSize} rows and, when a {@code commitInterval} is
+ * set, the transaction is committed every {@code commitInterval} rows.
+ */
+final class BulkLoader {
+
+  private final SqlSession sqlSession;
+  private final BulkLoadOptions options;
+  private final long start = System.nanoTime();
+  /**
+   * 未刷入的参数对象，刷入后其主键已设置
+   */
+  private final List<Object> pending = new ArrayList<>();
+  private long rowCount;
+  private long updateCount;
+  private int batchCount;
+  private int commitCount;
+  private long uncommittedRowCount;
+
+  BulkLoader(SqlSession sqlSession, BulkLoadOptions options) {
+    this.sqlSession = sqlSession;
+    this.options = options;
+  }
+
+  BulkLoadResult load(String statement, Iterator<?> parameters) {
+    while (parameters.hasNext()) {
+      execute(statement, parameters.next());
+    }
+    flush();
+    if (options.getCommitInterval() > 0 && uncommittedRowCount > 0) {
+      commit();
+    }
+    return snapshot();
+  }
+
+  private void execute(String statement, Object parameter) {
+    int updated = sqlSession.update(statement, parameter);
+    // 非批处理的 Executor 直接返回更新数量
+    if (updated != BatchExecutor.BATCH_UPDATE_RETURN_VALUE && updated > 0) {
+      updateCount += updated;
+    }
+    pending.add(parameter);
+    rowCount++;
+    uncommittedRowCount++;
+    if (options.getCommitInterval() > 0 && uncommittedRowCount >= options.getCommitInterval()) {
+      flush();
+      commit();
+    } else if (pending.size() >= options.getBatchSize()) {
+      flush();
+    }
+  }
+
+  private void flush() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    for (BatchResult batchResult : sqlSession.flushStatements()) {
+      if (batchResult.getUpdateCounts() != null) {
+        for (int count : batchResult.getUpdateCounts()) {
+          if (count > 0) {
+            updateCount += count;
+          }
+        }
+      }
+    }
+    batchCount++;
+    Consumer<Object> generatedKeyHandler = options.getGeneratedKeyHandler();
+    if (generatedKeyHandler != null) {
+      pending.forEach(generatedKeyHandler);
+    }
+    pending.clear();
+    if (options.getProgressListener() != null) {
+      options.getProgressListener().accept(snapshot());
+    }
+  }
+
+  private void commit() {
+    sqlSession.commit();
+    commitCount++;
+    uncommittedRowCount = 0;
+  }
+
+  private BulkLoadResult snapshot() {
+    return new BulkLoadResult(rowCount, updateCount, batchCount, commitCount, System.nanoTime() - start);
+  }
+
+}
@@ -25,6 +25,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -51,6 +53,9 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.CountCache;
+import org.apache.ibatis.executor.pagination.CountQuery;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
@@ -82,6 +87,7 @@ import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
+import org.apache.ibatis.result.ColumnarResult;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
@@ -106,21 +112,44 @@ public class Configuration {
   protected boolean mapUnderscoreToCamelCase;
   protected boolean aggressiveLazyLoading;
   protected boolean multipleResultSetsEnabled = true;
+  protected boolean multiStatementSelectsEnabled;
   protected boolean useGeneratedKeys;
   protected boolean useColumnLabel = true;
   protected boolean cacheEnabled = true;
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
+  protected boolean resultSetMetadataCacheEnabled;
+  protected boolean compactMapResultsEnabled;
+  protected boolean batchStatementGrouping;
+  protected boolean batchRetainParameterObjects = true;
+  protected boolean batchPipelined;
+  protected boolean databasePagination;
+  protected PaginationDialect paginationDialect;
+  protected Integer countCacheTtl;
+  protected Integer batchMaxPendingStatements;
+  protected Integer batchMaxPendingParameters;
+  protected Integer batchInsertRewriteSize;
+  protected Integer batchInsertMaxParameters;
+  protected Integer batchMaxPendingBytes;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
   protected Class<? extends VFS> vfsImpl;
   protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+  protected LocalCacheInvalidation localCacheInvalidation = LocalCacheInvalidation.ALL;
+  protected java.util.concurrent.Executor cursorPublisherExecutor;
+  protected java.util.concurrent.Executor asyncExecutor;
+  protected java.util.concurrent.Executor mappingExecutor = ForkJoinPool.commonPool();
+  protected java.util.concurrent.Executor cursorPrefetchExecutor;
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected int cursorPrefetchSize;
+  protected boolean adaptiveFetchSizeEnabled;
+  protected int adaptiveFetchSizeMin = 10;
+  protected int adaptiveFetchSizeMax = 1000;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
   protected AutoMappingUnknownColumnBehavior autoMappingUnknownColumnBehavior = AutoMappingUnknownColumnBehavior.NONE;
@@ -155,6 +184,11 @@ public class Configuration {
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
+  /**
+   * 查询语句编号与其派生的 COUNT 语句的映射
+   */
+  protected final Map<String, MappedStatement> countStatements = new ConcurrentHashMap<>();
+  protected final CountCache countCache = new CountCache();
 
   protected final Set<String> loadedResources = new HashSet<>();
   protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
@@ -207,6 +241,8 @@ public class Configuration {
     typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
     typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
+    typeAliasRegistry.registerAlias("COLUMNAR", ColumnarResult.class);
+
     languageRegistry.setDefaultDriverClass(XMLLanguageDriver.class);
     languageRegistry.register(RawLanguageDriver.class);
   }
@@ -267,6 +303,167 @@ public class Configuration {
     this.returnInstanceForEmptyRow = returnEmptyInstance;
   }
 
+  public boolean isResultSetMetadataCacheEnabled() {
+    return resultSetMetadataCacheEnabled;
+  }
+
+  /**
+   * Keeps the column layout of the result sets of each statement across executions, reused as long as the driver
+   * reports the same column count, labels and JDBC types. Disabled by default, as a layout is then reused even though
+   * the column class names, which may select other type handlers, changed.
+   */
+  public void setResultSetMetadataCacheEnabled(boolean resultSetMetadataCacheEnabled) {
+    this.resultSetMetadataCacheEnabled = resultSetMetadataCacheEnabled;
+  }
+
+  public boolean isCompactMapResultsEnabled() {
+    return compactMapResultsEnabled;
+  }
+
+  public void setCompactMapResultsEnabled(boolean compactMapResultsEnabled) {
+    this.compactMapResultsEnabled = compactMapResultsEnabled;
+  }
+
+  public boolean isBatchStatementGrouping() {
+    return batchStatementGrouping;
+  }
+
+  /**
+   * Lets the batch executor add an INSERT declaring its tables to the statement of any earlier execution of the same
+   * SQL instead of only the last one, so that interleaved inserts are batched as well. This reorders the executions:
+   * the INSERT runs before the statements added since its group, unless one of them generates keys, declares no
+   * tables, or declares one of its tables. The tables of an INSERT must include those it references, for example the
+   * parent table of a foreign key.
+   */
+  public void setBatchStatementGrouping(boolean batchStatementGrouping) {
+    this.batchStatementGrouping = batchStatementGrouping;
+  }
+
+  public boolean isBatchRetainParameterObjects() {
+    return batchRetainParameterObjects;
+  }
+
+  /**
+   * Keeps the parameter objects in the {@link org.apache.ibatis.executor.BatchResult}s once the batch has been
+   * executed and the generated keys assigned. Enabled by default.
+   */
+  public void setBatchRetainParameterObjects(boolean batchRetainParameterObjects) {
+    this.batchRetainParameterObjects = batchRetainParameterObjects;
+  }
+
+  public Integer getBatchInsertRewriteSize() {
+    return batchInsertRewriteSize;
+  }
+
+  /**
+   * Lets the batch executor execute the batched executions of a single-row {@code INSERT ... VALUES (...)} as
+   * multi-row inserts holding at most this number of rows. Disabled when {@code null}, which is the default.
+   */
+  public void setBatchInsertRewriteSize(Integer batchInsertRewriteSize) {
+    this.batchInsertRewriteSize = batchInsertRewriteSize;
+  }
+
+  public Integer getBatchInsertMaxParameters() {
+    return batchInsertMaxParameters;
+  }
+
+  /**
+   * Limits the number of bind parameters of a rewritten multi-row insert, for drivers that cap it.
+   */
+  public void setBatchInsertMaxParameters(Integer batchInsertMaxParameters) {
+    this.batchInsertMaxParameters = batchInsertMaxParameters;
+  }
+
+  public boolean isBatchPipelined() {
+    return batchPipelined;
+  }
+
+  /**
+   * Lets the batch executor execute the batches flushed on reaching a pending limit on a background thread, while
+   * the caller goes on with its next statements. The connection is never used concurrently: their parameters are
+   * bound in memory, up to the pending limits, and added to the next batch once the one in flight has completed.
+   * Queries and flushes wait for the batch in flight, and its failure is thrown by the first statement, query or
+   * flush after it has completed.
+   */
+  public void setBatchPipelined(boolean batchPipelined) {
+    this.batchPipelined = batchPipelined;
+  }
+
+  public boolean isDatabasePagination() {
+    return databasePagination;
+  }
+
+  /**
+   * Lets the database skip and limit the rows of the {@link RowBounds} of queries, by rewriting their SQL with the
+   * {@link #getPaginationDialect() pagination dialect}, instead of skipping them while reading the results.
+   */
+  public void setDatabasePagination(boolean databasePagination) {
+    this.databasePagination = databasePagination;
+  }
+
+  public PaginationDialect getPaginationDialect() {
+    return paginationDialect;
+  }
+
+  /**
+   * Sets the pagination dialect. When {@code null}, which is the default, it is chosen by {@link #getDatabaseId()}.
+   */
+  public void setPaginationDialect(PaginationDialect paginationDialect) {
+    this.paginationDialect = paginationDialect;
+  }
+
+  public Integer getCountCacheTtl() {
+    return countCacheTtl;
+  }
+
+  /**
+   * Keeps the results of the count queries derived by {@link SqlSession#selectCount(String, Object)} for this number
+   * of milliseconds, shared by all sessions. Counts are dropped when a statement of the same namespace, or declaring a
+   * common table, commits; a session with uncommitted writes does not use them. Not cached when {@code null}, which
+   * is the default.
+   */
+  public void setCountCacheTtl(Integer countCacheTtl) {
+    this.countCacheTtl = countCacheTtl;
+  }
+
+  public CountCache getCountCache() {
+    return countCache;
+  }
+
+  public Integer getBatchMaxPendingStatements() {
+    return batchMaxPendingStatements;
+  }
+
+  /**
+   * Sets the number of pending statements that makes the batch executor execute them. Not set by default.
+   */
+  public void setBatchMaxPendingStatements(Integer batchMaxPendingStatements) {
+    this.batchMaxPendingStatements = batchMaxPendingStatements;
+  }
+
+  public Integer getBatchMaxPendingParameters() {
+    return batchMaxPendingParameters;
+  }
+
+  /**
+   * Sets the number of pending executions that makes the batch executor execute the statements. Not set by default.
+   */
+  public void setBatchMaxPendingParameters(Integer batchMaxPendingParameters) {
+    this.batchMaxPendingParameters = batchMaxPendingParameters;
+  }
+
+  public Integer getBatchMaxPendingBytes() {
+    return batchMaxPendingBytes;
+  }
+
+  /**
+   * Sets the estimated size, in bytes, of the pending parameter values that makes the batch executor execute the
+   * statements. Not set by default.
+   */
+  public void setBatchMaxPendingBytes(Integer batchMaxPendingBytes) {
+    this.batchMaxPendingBytes = batchMaxPendingBytes;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -380,6 +577,21 @@ public class Configuration {
     this.multipleResultSetsEnabled = multipleResultSetsEnabled;
   }
 
+  public boolean isMultiStatementSelectsEnabled() {
+    return multiStatementSelectsEnabled;
+  }
+
+  /**
+   * Enables sending the selects of {@link SqlSession#selectMultiple(MultiSelect)} as one statement, their SQL separated
+   * by semicolons. Enable it only when the driver accepts several statements in one prepared statement (for example
+   * MySQL with allowMultiQueries=true, PostgreSQL or SQL Server): if the driver rejects the statement as unsupported or
+   * as a syntax error, the selects run one after the other, other errors are thrown. Only selects with the same timeout, fetch size and result set type are combined. When disabled, the
+   * selects run one after the other.
+   */
+  public void setMultiStatementSelectsEnabled(boolean multiStatementSelectsEnabled) {
+    this.multiStatementSelectsEnabled = multiStatementSelectsEnabled;
+  }
+
   public Set<String> getLazyLoadTriggerMethods() {
     return lazyLoadTriggerMethods;
   }
@@ -434,6 +646,62 @@ public class Configuration {
     this.defaultFetchSize = defaultFetchSize;
   }
 
+  public boolean isAdaptiveFetchSizeEnabled() {
+    return adaptiveFetchSizeEnabled;
+  }
+
+  /**
+   * Enables the fetch size derived from the row counts and widths observed for each statement. A fetch size set on
+   * the statement still takes precedence, and {@link #getDefaultFetchSize()} is used until a first execution has been
+   * recorded.
+   */
+  public void setAdaptiveFetchSizeEnabled(boolean adaptiveFetchSizeEnabled) {
+    this.adaptiveFetchSizeEnabled = adaptiveFetchSizeEnabled;
+  }
+
+  public int getAdaptiveFetchSizeMin() {
+    return adaptiveFetchSizeMin;
+  }
+
+  public void setAdaptiveFetchSizeMin(int adaptiveFetchSizeMin) {
+    this.adaptiveFetchSizeMin = adaptiveFetchSizeMin;
+  }
+
+  public int getAdaptiveFetchSizeMax() {
+    return adaptiveFetchSizeMax;
+  }
+
+  public void setAdaptiveFetchSizeMax(int adaptiveFetchSizeMax) {
+    this.adaptiveFetchSizeMax = adaptiveFetchSizeMax;
+  }
+
+  public int getCursorPrefetchSize() {
+    return cursorPrefetchSize;
+  }
+
+  /**
+   * Sets the number of rows a cursor maps ahead of its consumer on a thread of the
+   * {@link #setCursorPrefetchExecutor(java.util.concurrent.Executor) cursor prefetch executor}. The session of the
+   * cursor rejects other statements until it has been read to the end or closed. Zero, the default, reads the rows on
+   * the consumer thread.
+   */
+  public void setCursorPrefetchSize(int cursorPrefetchSize) {
+    this.cursorPrefetchSize = cursorPrefetchSize;
+  }
+
+  public java.util.concurrent.Executor getCursorPrefetchExecutor() {
+    return cursorPrefetchExecutor;
+  }
+
+  /**
+   * Sets the executor that reads the rows of cursors ahead of their consumer, with {@code cursorPrefetchSize}. Each
+   * cursor holds one of its threads until read to the end or closed. When not set, a shared cached pool of daemon
+   * threads is used.
+   */
+  public void setCursorPrefetchExecutor(java.util.concurrent.Executor cursorPrefetchExecutor) {
+    this.cursorPrefetchExecutor = cursorPrefetchExecutor;
+  }
+
   public boolean isUseColumnLabel() {
     return useColumnLabel;
   }
@@ -442,6 +710,45 @@ public class Configuration {
     this.useColumnLabel = useColumnLabel;
   }
 
+  public java.util.concurrent.Executor getCursorPublisherExecutor() {
+    return cursorPublisherExecutor;
+  }
+
+  /**
+   * Sets the executor that opens and reads the cursors of {@link org.apache.ibatis.cursor.CursorPublisher}s. Each
+   * subscription holds one of its threads while rows are read, blocking on JDBC calls. When not set, a shared cached
+   * pool of daemon threads is used.
+   */
+  public void setCursorPublisherExecutor(java.util.concurrent.Executor cursorPublisherExecutor) {
+    this.cursorPublisherExecutor = cursorPublisherExecutor;
+  }
+
+  public java.util.concurrent.Executor getMappingExecutor() {
+    return mappingExecutor;
+  }
+
+  /**
+   * Sets the executor that turns the rows of statements with a {@code mappingParallelism} into result objects.
+   * Defaults to the common fork join pool. The {@link org.apache.ibatis.reflection.factory.ObjectFactory} and the
+   * setters of the result types are called concurrently on its threads, so a dedicated pool is preferable when they
+   * may block.
+   */
+  public void setMappingExecutor(java.util.concurrent.Executor mappingExecutor) {
+    this.mappingExecutor = mappingExecutor;
+  }
+
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the executor that runs the statements of {@link AsyncSqlSession}s. When not set, a shared cached pool of
+   * daemon threads is used. On runtimes that support them, a virtual-thread-per-task executor is a good fit.
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
   public LocalCacheScope getLocalCacheScope() {
     return localCacheScope;
   }
@@ -450,6 +757,20 @@ public class Configuration {
     this.localCacheScope = localCacheScope;
   }
 
+  public LocalCacheInvalidation getLocalCacheInvalidation() {
+    return localCacheInvalidation;
+  }
+
+  /**
+   * Sets which local cache entries an insert, update or delete invalidates. With
+   * {@link LocalCacheInvalidation#SELECTIVE}, only the entries of statements in the namespace of the written statement,
+   * or declaring one of its tables, are removed, so that unrelated lookups stay cached for the session.
+   * Commit, rollback and statements with flushCache="true" still clear the whole local cache.
+   */
+  public void setLocalCacheInvalidation(LocalCacheInvalidation localCacheInvalidation) {
+    this.localCacheInvalidation = localCacheInvalidation;
+  }
+
   public JdbcType getJdbcTypeForNull() {
     return jdbcTypeForNull;
   }
@@ -745,6 +1066,13 @@ public class Configuration {
     return mappedStatements.get(id);
   }
 
+  /**
+   * Returns the {@code SELECT COUNT(*)} statement derived from a query, created on first use.
+   */
+  public MappedStatement getCountStatement(MappedStatement ms) {
+    return countStatements.computeIfAbsent(ms.getId(), id -> CountQuery.createCountStatement(ms));
+  }
+
   public Map<String, XNode> getSqlFragments() {
     return sqlFragments;
   }
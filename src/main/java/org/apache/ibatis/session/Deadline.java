@@ -0,0 +1,73 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time by which the statements of a call must be done.
+ * <p>
+ * Set on a {@link SqlSession}, it bounds the query timeout of every statement the session runs afterwards, including
+ * nested selects and lazy loads of the objects it returned: each statement gets the remaining time, and no statement
+ * is run once the deadline has passed.
+ *
+ * @see SqlSession#setDeadline(Deadline)
+ * @see org.apache.ibatis.executor.DeadlineExceededException
+ */
+public final class Deadline {
+
+  private final long deadlineNanos;
+  private final long timeoutNanos;
+
+  private Deadline(long timeoutNanos) {
+    this.timeoutNanos = timeoutNanos;
+    this.deadlineNanos = System.nanoTime() + timeoutNanos;
+  }
+
+  /**
+   * Returns a deadline that passes after the given time, counted from now.
+   */
+  public static Deadline after(long timeout, TimeUnit unit) {
+    if (timeout < 0) {
+      throw new IllegalArgumentException("Deadline timeout must not be negative: " + timeout);
+    }
+    return new Deadline(unit.toNanos(timeout));
+  }
+
+  /**
+   * @return the time left, in nanoseconds; zero or negative once the deadline has passed
+   */
+  public long getRemainingNanos() {
+    return deadlineNanos - System.nanoTime();
+  }
+
+  public boolean isExpired() {
+    return getRemainingNanos() <= 0;
+  }
+
+  /**
+   * @return the timeout this deadline was created with, in milliseconds
+   */
+  public long getTimeoutMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "Deadline{timeout=" + getTimeoutMillis() + "ms, remaining=" + TimeUnit.NANOSECONDS.toMillis(getRemainingNanos()) + "ms}";
+  }
+
+}
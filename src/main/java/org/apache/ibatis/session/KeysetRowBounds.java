@@ -0,0 +1,60 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * Bounds of a page of results following the key of the last row of the previous page, instead of skipping the rows
+ * of the previous pages. The query is wrapped as {@code SELECT * FROM (query) WHERE keyColumn > ? ORDER BY keyColumn},
+ * so deep pages cost as much as the first one.
+ */
+public class KeysetRowBounds extends RowBounds {
+
+  private final String keyColumn;
+  private final Object seekAfter;
+  private final boolean descending;
+
+  /**
+   * @param keyColumn a unique column of the results, the rows are ordered by
+   * @param seekAfter the key of the last row of the previous page, {@code null} for the first page
+   * @param limit the number of rows of the page
+   */
+  public KeysetRowBounds(String keyColumn, Object seekAfter, int limit) {
+    this(keyColumn, seekAfter, false, limit);
+  }
+
+  public KeysetRowBounds(String keyColumn, Object seekAfter, boolean descending, int limit) {
+    super(NO_ROW_OFFSET, limit);
+    if (keyColumn == null) {
+      throw new IllegalArgumentException("Parameter 'keyColumn' must not be null");
+    }
+    this.keyColumn = keyColumn;
+    this.seekAfter = seekAfter;
+    this.descending = descending;
+  }
+
+  public String getKeyColumn() {
+    return keyColumn;
+  }
+
+  public Object getSeekAfter() {
+    return seekAfter;
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+}
@@ -0,0 +1,34 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * Which local cache entries an insert, update or delete invalidates.
+ *
+ * @see Configuration#setLocalCacheInvalidation(LocalCacheInvalidation)
+ */
+public enum LocalCacheInvalidation {
+  /**
+   * All entries.
+   * 清空整个本地缓存
+   */
+  ALL,
+  /**
+   * Entries of statements in the same namespace, or declaring a table the statement declares.
+   * 仅失效相同命名空间，或声明了相同表的语句的缓存
+   */
+  SELECTIVE
+}
@@ -17,10 +17,14 @@ package org.apache.ibatis.session;
 
 import java.io.Closeable;
 import java.sql.Connection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.defaults.DefaultCursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -48,6 +52,29 @@ public interface SqlSession extends Closeable {
    */
   <T> T selectOne(String statement, Object parameter);
 
+  /**
+   * Counts the rows of a query, with a {@code SELECT COUNT(*)} derived from it.
+   * @param statement Unique identifier matching the select statement whose rows to count.
+   * @return the number of rows the statement returns
+   * @since 3.5.2
+   */
+  default long selectCount(String statement) {
+    return selectCount(statement, null);
+  }
+
+  /**
+   * Counts the rows of a query, with a {@code SELECT COUNT(*)} derived from it. The last {@code ORDER BY} of the
+   * query is removed. With the {@code countCacheTtl} setting, the count is kept for the given parameter values until
+   * a statement that may change it commits. The default implementation selects the rows and counts them.
+   * @param statement Unique identifier matching the select statement whose rows to count.
+   * @param parameter A parameter object to pass to the statement.
+   * @return the number of rows the statement returns
+   * @since 3.5.2
+   */
+  default long selectCount(String statement, Object parameter) {
+    return selectList(statement, parameter).size();
+  }
+
   /**
    * Retrieve a list of mapped objects from the statement key and parameter.
    * @param <E> the returned list element type
@@ -76,6 +103,16 @@ public interface SqlSession extends Closeable {
    */
   <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Retrieves the lists of mapped objects of several selects. With the {@code multiStatementSelectsEnabled} setting
+   * and a driver that supports it, the selects that are not cached are sent in one statement and each result set is
+   * mapped with the result map of its select; otherwise they are executed one after the other.
+   * @param selects the statements and parameters of the selects
+   * @return the list of mapped objects of each select, in the order they were added
+   * @since 3.5.2
+   */
+  List<List<?>> selectMultiple(MultiSelect selects);
+
   /**
    * The selectMap is a special case in that it is designed to convert a list
    * of results into a Map based on one of the properties in the resulting
@@ -143,6 +180,44 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * A CursorPublisher offers the same results as a Cursor, except the rows are read on another thread
+   * as the subscriber requests them.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @return CursorPublisher of mapped objects
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement) {
+    return selectPublisher(statement, null);
+  }
+
+  /**
+   * A CursorPublisher offers the same results as a Cursor, except the rows are read on another thread
+   * as the subscriber requests them.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return CursorPublisher of mapped objects
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    return selectPublisher(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  /**
+   * A CursorPublisher offers the same results as a Cursor, except the rows are read on another thread
+   * as the subscriber requests them.
+   * @param <T> the returned element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return CursorPublisher of mapped objects
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    // 查询在订阅者请求数据后，才在 cursorPublisherExecutor 的线程上执行
+    return new DefaultCursorPublisher<>(() -> selectCursor(statement, parameter, rowBounds),
+        getConfiguration().getCursorPublisherExecutor());
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -216,6 +291,54 @@ public interface SqlSession extends Closeable {
    */
   int delete(String statement, Object parameter);
 
+  /**
+   * Executes an insert, update or delete statement with each of the parameter objects, flushing the pending
+   * statements every {@value BulkLoadOptions#DEFAULT_BATCH_SIZE} rows. Meant for sessions using
+   * {@link ExecutorType#BATCH}.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameters The parameter objects, one per row.
+   * @return the number of rows and how long it took
+   * @since 3.5.2
+   */
+  default BulkLoadResult bulkLoad(String statement, Iterator<?> parameters) {
+    return bulkLoad(statement, parameters, BulkLoadOptions.DEFAULT);
+  }
+
+  /**
+   * Executes an insert, update or delete statement with each of the parameter objects.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameters The parameter objects, one per row.
+   * @param options How often to flush and commit, and the callbacks to notify.
+   * @return the number of rows and how long it took
+   * @since 3.5.2
+   */
+  default BulkLoadResult bulkLoad(String statement, Iterator<?> parameters, BulkLoadOptions options) {
+    return new BulkLoader(this, options).load(statement, parameters);
+  }
+
+  /**
+   * Executes an insert, update or delete statement with each of the parameter objects. The stream is not closed.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameters The parameter objects, one per row.
+   * @return the number of rows and how long it took
+   * @since 3.5.2
+   */
+  default BulkLoadResult bulkLoad(String statement, Stream<?> parameters) {
+    return bulkLoad(statement, parameters.iterator(), BulkLoadOptions.DEFAULT);
+  }
+
+  /**
+   * Executes an insert, update or delete statement with each of the parameter objects. The stream is not closed.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameters The parameter objects, one per row.
+   * @param options How often to flush and commit, and the callbacks to notify.
+   * @return the number of rows and how long it took
+   * @since 3.5.2
+   */
+  default BulkLoadResult bulkLoad(String statement, Stream<?> parameters, BulkLoadOptions options) {
+    return bulkLoad(statement, parameters.iterator(), options);
+  }
+
   /**
    * Flushes batch statements and commits database connection.
    * Note that database connection will not be committed if no updates/deletes/inserts were called.
@@ -261,6 +384,25 @@ public interface SqlSession extends Closeable {
    */
   void clearCache();
 
+  /**
+   * Sets the deadline of the following calls: each statement they run, including nested selects and later lazy loads
+   * of the objects they return, is given the remaining time as query timeout, and fails with a
+   * {@link org.apache.ibatis.executor.DeadlineExceededException} once the deadline has passed.
+   * Set a new deadline before each call to give every call its own budget. Ignored by default.
+   * @param deadline the deadline, or null to remove it
+   * @since 3.5.2
+   */
+  default void setDeadline(Deadline deadline) {
+  }
+
+  /**
+   * @return the deadline set with {@link #setDeadline(Deadline)}, or null
+   * @since 3.5.2
+   */
+  default Deadline getDeadline() {
+    return null;
+  }
+
   /**
    * Retrieves current configuration.
    * @return Configuration
@@ -17,6 +17,8 @@ package org.apache.ibatis.session;
 
 import java.sql.Connection;
 
+import org.apache.ibatis.session.defaults.DefaultAsyncSqlSession;
+
 /**
  * Creates an {@link SqlSession} out of a connection or a DataSource
  *
@@ -40,6 +42,21 @@ public interface SqlSessionFactory {
 
   SqlSession openSession(ExecutorType execType, Connection connection);
 
+  /**
+   * Opens an {@link AsyncSqlSession} whose statements run on {@link Configuration#getAsyncExecutor()}.
+   */
+  default AsyncSqlSession openAsyncSession() {
+    return new DefaultAsyncSqlSession(openSession(), getConfiguration().getAsyncExecutor());
+  }
+
+  default AsyncSqlSession openAsyncSession(boolean autoCommit) {
+    return new DefaultAsyncSqlSession(openSession(autoCommit), getConfiguration().getAsyncExecutor());
+  }
+
+  default AsyncSqlSession openAsyncSession(ExecutorType execType) {
+    return new DefaultAsyncSqlSession(openSession(execType), getConfiguration().getAsyncExecutor());
+  }
+
   Configuration getConfiguration();
 
 }
@@ -21,11 +21,14 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.stream.Stream;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -116,6 +119,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionFactory.openSession();
   }
 
+  @Override
+  public AsyncSqlSession openAsyncSession() {
+    return sqlSessionFactory.openAsyncSession();
+  }
+
+  @Override
+  public AsyncSqlSession openAsyncSession(boolean autoCommit) {
+    return sqlSessionFactory.openAsyncSession(autoCommit);
+  }
+
+  @Override
+  public AsyncSqlSession openAsyncSession(ExecutorType execType) {
+    return sqlSessionFactory.openAsyncSession(execType);
+  }
+
   @Override
   public SqlSession openSession(boolean autoCommit) {
     return sqlSessionFactory.openSession(autoCommit);
@@ -166,6 +184,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectOne(statement, parameter);
   }
 
+  @Override
+  public long selectCount(String statement) {
+    return sqlSessionProxy.selectCount(statement);
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    return sqlSessionProxy.selectCount(statement, parameter);
+  }
+
   @Override
   public <K, V> Map<K, V> selectMap(String statement, String mapKey) {
     return sqlSessionProxy.selectMap(statement, mapKey);
@@ -196,6 +224,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
   }
 
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement) {
+    return sqlSessionProxy.selectPublisher(statement);
+  }
+
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    return sqlSessionProxy.selectPublisher(statement, parameter);
+  }
+
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    return sqlSessionProxy.selectPublisher(statement, parameter, rowBounds);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return sqlSessionProxy.selectList(statement);
@@ -210,6 +253,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
   public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
     return sqlSessionProxy.selectList(statement, parameter, rowBounds);
   }
+  @Override
+  public List<List<?>> selectMultiple(MultiSelect selects) {
+    return sqlSessionProxy.selectMultiple(selects);
+  }
+
 
   @Override
   public void select(String statement, ResultHandler handler) {
@@ -256,6 +304,26 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.delete(statement, parameter);
   }
 
+  @Override
+  public BulkLoadResult bulkLoad(String statement, Iterator<?> parameters) {
+    return sqlSessionProxy.bulkLoad(statement, parameters);
+  }
+
+  @Override
+  public BulkLoadResult bulkLoad(String statement, Iterator<?> parameters, BulkLoadOptions options) {
+    return sqlSessionProxy.bulkLoad(statement, parameters, options);
+  }
+
+  @Override
+  public BulkLoadResult bulkLoad(String statement, Stream<?> parameters) {
+    return sqlSessionProxy.bulkLoad(statement, parameters);
+  }
+
+  @Override
+  public BulkLoadResult bulkLoad(String statement, Stream<?> parameters, BulkLoadOptions options) {
+    return sqlSessionProxy.bulkLoad(statement, parameters, options);
+  }
+
   @Override
   public <T> T getMapper(Class<T> type) {
     return getConfiguration().getMapper(type, this);
@@ -279,6 +347,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     sqlSession.clearCache();
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    final SqlSession sqlSession = localSqlSession.get();
+    if (sqlSession == null) {
+      throw new SqlSessionException("Error:  Cannot set the deadline.  No managed session is started.");
+    }
+    sqlSession.setDeadline(deadline);
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    final SqlSession sqlSession = localSqlSession.get();
+    return sqlSession == null ? null : sqlSession.getDeadline();
+  }
+
   @Override
   public void commit() {
     final SqlSession sqlSession = localSqlSession.get();
@@ -0,0 +1,278 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+
+/**
+ * Default implementation of {@link AsyncSqlSession}. Calls are chained one after the other, each one being run on
+ * the executor once the previous one has completed, normally or not.
+ * <p>
+ * Blocking mapper methods called from within a call of the same session run directly; called from within a call of
+ * another async session they are rejected, as waiting there may exhaust a bounded executor.
+ */
+public class DefaultAsyncSqlSession implements AsyncSqlSession {
+
+  /**
+   * 当前线程正在执行的异步会话
+   */
+  private static final ThreadLocal<DefaultAsyncSqlSession> RUNNING = new ThreadLocal<>();
+
+  private final SqlSession sqlSession;
+  private final Executor executor;
+  private final Object lock = new Object();
+  private CompletableFuture<?> tail = CompletableFuture.completedFuture(null);
+
+  public DefaultAsyncSqlSession(SqlSession sqlSession, Executor executor) {
+    this.sqlSession = sqlSession;
+    this.executor = executor == null ? DefaultExecutorHolder.EXECUTOR : executor;
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement) {
+    return execute(session -> session.selectOne(statement));
+  }
+
+  @Override
+  public <T> CompletableFuture<T> selectOne(String statement, Object parameter) {
+    return execute(session -> session.selectOne(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement) {
+    return execute(session -> session.selectList(statement));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter) {
+    return execute(session -> session.selectList(statement, parameter));
+  }
+
+  @Override
+  public <E> CompletableFuture<List<E>> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    return execute(session -> session.selectList(statement, parameter, rowBounds));
+  }
+
+  @Override
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, String mapKey) {
+    return execute(session -> session.selectMap(statement, mapKey));
+  }
+
+  @Override
+  public <K, V> CompletableFuture<Map<K, V>> selectMap(String statement, Object parameter, String mapKey) {
+    return execute(session -> session.selectMap(statement, parameter, mapKey));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement) {
+    return execute(session -> session.insert(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> insert(String statement, Object parameter) {
+    return execute(session -> session.insert(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement) {
+    return execute(session -> session.update(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> update(String statement, Object parameter) {
+    return execute(session -> session.update(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement) {
+    return execute(session -> session.delete(statement));
+  }
+
+  @Override
+  public CompletableFuture<Integer> delete(String statement, Object parameter) {
+    return execute(session -> session.delete(statement, parameter));
+  }
+
+  @Override
+  public CompletableFuture<Void> commit() {
+    return run(SqlSession::commit);
+  }
+
+  @Override
+  public CompletableFuture<Void> commit(boolean force) {
+    return run(session -> session.commit(force));
+  }
+
+  @Override
+  public CompletableFuture<Void> rollback() {
+    return run(SqlSession::rollback);
+  }
+
+  @Override
+  public CompletableFuture<Void> rollback(boolean force) {
+    return run(session -> session.rollback(force));
+  }
+
+  @Override
+  public CompletableFuture<List<BatchResult>> flushStatements() {
+    return execute(SqlSession::flushStatements);
+  }
+
+  @Override
+  public CompletableFuture<Void> close() {
+    return run(SqlSession::close);
+  }
+
+  @Override
+  public <T> CompletableFuture<T> execute(Function<SqlSession, T> action) {
+    synchronized (lock) {
+      // 前一个调用结束（无论成功与否）后，才在 executor 上执行下一个调用，以保证同一会话内的顺序
+      CompletableFuture<T> future = tail.handle((result, error) -> null)
+          .thenApplyAsync(ignored -> apply(action), executor);
+      tail = future;
+      return future;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T getMapper(Class<T> type) {
+    final T mapper = sqlSession.getMapper(type);
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[] { type }, new AsyncMapperHandler(mapper));
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return sqlSession.getConfiguration();
+  }
+
+  private <T> T apply(Function<SqlSession, T> action) {
+    final DefaultAsyncSqlSession previous = RUNNING.get();
+    RUNNING.set(this);
+    try {
+      return action.apply(sqlSession);
+    } finally {
+      if (previous == null) {
+        RUNNING.remove();
+      } else {
+        RUNNING.set(previous);
+      }
+    }
+  }
+
+  private CompletableFuture<Void> run(Consumer<SqlSession> action) {
+    return execute(session -> {
+      action.accept(session);
+      return null;
+    });
+  }
+
+  private class AsyncMapperHandler implements InvocationHandler {
+
+    private final Object mapper;
+
+    AsyncMapperHandler(Object mapper) {
+      this.mapper = mapper;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      if (Object.class.equals(method.getDeclaringClass())) {
+        try {
+          return method.invoke(this, args);
+        } catch (Throwable t) {
+          throw ExceptionUtil.unwrapThrowable(t);
+        }
+      }
+      final boolean returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+      final DefaultAsyncSqlSession running = RUNNING.get();
+      if (!returnsFuture && running == DefaultAsyncSqlSession.this) {
+        // 已在本会话的调用中，直接执行，等待自己会死锁
+        return invokeMapper(method, args);
+      }
+      if (!returnsFuture && running != null) {
+        throw new SqlSessionException("Blocking mapper method " + method.getName() + " of an AsyncSqlSession called from "
+            + "within a call of another AsyncSqlSession. Use a method returning CompletableFuture instead.");
+      }
+      CompletableFuture<Object> result = execute(session -> invokeMapper(method, args));
+      if (returnsFuture) {
+        // 同步 Mapper 返回已完成的 CompletableFuture
+        return result.thenCompose(future -> (CompletableFuture<Object>) future);
+      }
+      try {
+        return result.join();
+      } catch (CompletionException e) {
+        throw e.getCause();
+      }
+    }
+
+    private Object invokeMapper(Method method, Object[] args) {
+      try {
+        return method.invoke(mapper, args);
+      } catch (InvocationTargetException | IllegalAccessException e) {
+        Throwable cause = ExceptionUtil.unwrapThrowable(e);
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new CompletionException(cause);
+      }
+    }
+  }
+
+  /**
+   * Executor used when none is configured: a cached pool of daemon threads, as statements block on I/O.
+   */
+  private static final class DefaultExecutorHolder {
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+      private final AtomicInteger counter = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable runnable) {
+        Thread thread = new Thread(runnable, "mybatis-async-" + counter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }
+    });
+  }
+
+}
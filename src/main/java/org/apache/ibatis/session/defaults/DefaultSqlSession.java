@@ -21,11 +21,18 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.defaults.DefaultCursorPublisher;
+import org.apache.ibatis.cursor.defaults.PrefetchingCursor;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
@@ -33,11 +40,15 @@ import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.MultiSelect;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
 
 /**
  * The default implementation for {@link SqlSession}.
@@ -53,6 +64,9 @@ public class DefaultSqlSession implements SqlSession {
   private final boolean autoCommit;
   private boolean dirty;
   private List<Cursor<?>> cursorList;
+  // 订阅者的线程也会检查此列表
+  private final List<DefaultCursorPublisher<?>> publisherList = new CopyOnWriteArrayList<>();
+  private final Set<MappedStatement> uncommittedWrites = new HashSet<>();
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
     this.configuration = configuration;
@@ -83,6 +97,36 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    checkNotPrefetching();
+    try {
+      MappedStatement countStatement = configuration.getCountStatement(configuration.getMappedStatement(statement));
+      Object parameterObject = wrapCollection(parameter);
+      BoundSql boundSql = countStatement.getBoundSql(parameterObject);
+      CacheKey key = executor.createCacheKey(countStatement, parameterObject, RowBounds.DEFAULT, boundSql);
+      // 在有效期内，直接返回缓存的计数；本会话有未提交的写入时不使用共享的计数
+      Integer ttl = configuration.getCountCacheTtl();
+      boolean cacheable = ttl != null && uncommittedWrites.isEmpty();
+      if (cacheable) {
+        Long count = configuration.getCountCache().get(key);
+        if (count != null) {
+          return count;
+        }
+      }
+      List<Long> list = executor.query(countStatement, parameterObject, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER, key, boundSql);
+      long count = list.isEmpty() || list.get(0) == null ? 0 : list.get(0);
+      if (cacheable) {
+        configuration.getCountCache().put(key, countStatement, count, ttl);
+      }
+      return count;
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
   @Override
   public <K, V> Map<K, V> selectMap(String statement, String mapKey) {
     return this.selectMap(statement, null, mapKey, RowBounds.DEFAULT);
@@ -118,9 +162,14 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+    checkNotPrefetching();
     try {
       MappedStatement ms = configuration.getMappedStatement(statement);
       Cursor<T> cursor = executor.queryCursor(ms, wrapCollection(parameter), rowBounds);
+      if (configuration.getCursorPrefetchSize() > 0) {
+        // 后台线程预读并映射后续的行
+        cursor = new PrefetchingCursor<>(cursor, configuration.getCursorPrefetchSize(), configuration.getCursorPrefetchExecutor());
+      }
       registerCursor(cursor);
       return cursor;
     } catch (Exception e) {
@@ -130,6 +179,15 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    // 查询在订阅者请求数据后，才在 cursorPublisherExecutor 的线程上执行
+    DefaultCursorPublisher<T> publisher = new DefaultCursorPublisher<>(() -> selectCursor(statement, parameter, rowBounds),
+        configuration.getCursorPublisherExecutor());
+    publisherList.add(publisher);
+    return publisher;
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return this.selectList(statement, null);
@@ -142,6 +200,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    checkNotPrefetching();
     try {
       MappedStatement ms = configuration.getMappedStatement(statement);
       return executor.query(ms, wrapCollection(parameter), rowBounds, Executor.NO_RESULT_HANDLER);
@@ -152,6 +211,24 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public List<List<?>> selectMultiple(MultiSelect selects) {
+    checkNotPrefetching();
+    try {
+      List<MappedStatement> mappedStatements = new ArrayList<>(selects.size());
+      List<Object> parameters = new ArrayList<>(selects.size());
+      for (int i = 0; i < selects.size(); i++) {
+        mappedStatements.add(configuration.getMappedStatement(selects.getStatements().get(i)));
+        parameters.add(wrapCollection(selects.getParameters().get(i)));
+      }
+      return new ArrayList<>(executor.queryMultiple(mappedStatements, parameters));
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
   @Override
   public void select(String statement, Object parameter, ResultHandler handler) {
     select(statement, parameter, RowBounds.DEFAULT, handler);
@@ -164,6 +241,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+    checkNotPrefetching();
     try {
       MappedStatement ms = configuration.getMappedStatement(statement);
       executor.query(ms, wrapCollection(parameter), rowBounds, handler);
@@ -191,10 +269,19 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public int update(String statement, Object parameter) {
+    checkNotPrefetching();
     try {
       dirty = true;
       MappedStatement ms = configuration.getMappedStatement(statement);
-      return executor.update(ms, wrapCollection(parameter));
+      int result = executor.update(ms, wrapCollection(parameter));
+      if (configuration.getCountCacheTtl() != null) {
+        if (autoCommit) {
+          configuration.getCountCache().invalidate(ms);
+        } else {
+          uncommittedWrites.add(ms);
+        }
+      }
+      return result;
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
     } finally {
@@ -219,9 +306,14 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void commit(boolean force) {
+    checkNotPrefetching();
     try {
       executor.commit(isCommitOrRollbackRequired(force));
       dirty = false;
+      for (MappedStatement ms : uncommittedWrites) {
+        configuration.getCountCache().invalidate(ms);
+      }
+      uncommittedWrites.clear();
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error committing transaction.  Cause: " + e, e);
     } finally {
@@ -236,9 +328,11 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public void rollback(boolean force) {
+    checkNotPrefetching();
     try {
       executor.rollback(isCommitOrRollbackRequired(force));
       dirty = false;
+      uncommittedWrites.clear();
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error rolling back transaction.  Cause: " + e, e);
     } finally {
@@ -248,6 +342,7 @@ public class DefaultSqlSession implements SqlSession {
 
   @Override
   public List<BatchResult> flushStatements() {
+    checkNotPrefetching();
     try {
       return executor.flushStatements();
     } catch (Exception e) {
@@ -260,15 +355,21 @@ public class DefaultSqlSession implements SqlSession {
   @Override
   public void close() {
     try {
-      executor.close(isCommitOrRollbackRequired(false));
-      closeCursors();
+      // 先关闭 Cursor ，等待预读结束后再关闭连接
+      try {
+        closeCursors();
+      } finally {
+        executor.close(isCommitOrRollbackRequired(false));
+      }
       dirty = false;
+      uncommittedWrites.clear();
     } finally {
       ErrorContext.instance().reset();
     }
   }
 
   private void closeCursors() {
+    publisherList.clear();
     if (cursorList != null && cursorList.size() != 0) {
       for (Cursor<?> cursor : cursorList) {
         try {
@@ -305,6 +406,36 @@ public class DefaultSqlSession implements SqlSession {
     executor.clearLocalCache();
   }
 
+  @Override
+  public void setDeadline(Deadline deadline) {
+    executor.setDeadline(deadline);
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    return executor.getDeadline();
+  }
+
+  /**
+   * 预读的 Cursor 或 CursorPublisher 的订阅在其它线程使用 Executor 和连接时，拒绝执行其它语句
+   */
+  private void checkNotPrefetching() {
+    for (DefaultCursorPublisher<?> publisher : publisherList) {
+      if (publisher.isActive() && !publisher.isReadingOnCurrentThread()) {
+        throw new SqlSessionException("A cursor publisher of this session is still reading rows. "
+            + "Wait for its subscription to complete or cancel it before running other statements.");
+      }
+    }
+    if (cursorList != null) {
+      for (Cursor<?> cursor : cursorList) {
+        if (cursor instanceof PrefetchingCursor && ((PrefetchingCursor<?>) cursor).isPrefetching()) {
+          throw new SqlSessionException("A cursor of this session is still prefetching rows. "
+              + "Read it to the end or close it before running other statements.");
+        }
+      }
+    }
+  }
+
   private <T> void registerCursor(Cursor<T> cursor) {
     if (cursorList == null) {
       cursorList = new ArrayList<>();
@@ -0,0 +1,125 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.sharding;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.ibatis.cursor.Cursor;
+
+/**
+ * The results of the cursors of several shards, as one cursor.
+ */
+class MergedCursor<T> implements Cursor<T> {
+
+  private final List<Cursor<T>> cursors;
+  private final Comparator<? super T> comparator;
+  private final int offset;
+  private final int limit;
+  private boolean iteratorRetrieved;
+  private boolean consumed;
+  private boolean closed;
+  private int currentIndex = -1;
+
+  MergedCursor(List<Cursor<T>> cursors, Comparator<? super T> comparator, int offset, int limit) {
+    this.cursors = cursors;
+    this.comparator = comparator;
+    this.offset = offset;
+    this.limit = limit;
+  }
+
+  @Override
+  public boolean isOpen() {
+    return !closed;
+  }
+
+  @Override
+  public boolean isConsumed() {
+    return consumed;
+  }
+
+  @Override
+  public int getCurrentIndex() {
+    return currentIndex;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    if (iteratorRetrieved) {
+      throw new IllegalStateException("Cannot open more than one iterator on a Cursor");
+    }
+    if (closed) {
+      throw new IllegalStateException("A Cursor is already closed.");
+    }
+    iteratorRetrieved = true;
+    List<Iterator<T>> iterators = new ArrayList<>(cursors.size());
+    for (Cursor<T> cursor : cursors) {
+      iterators.add(cursor.iterator());
+    }
+    MergingIterator<T> merged = new MergingIterator<>(iterators, comparator);
+    for (int i = 0; i < offset && merged.hasNext(); i++) {
+      merged.next();
+    }
+    return new Iterator<T>() {
+      private int returned;
+
+      @Override
+      public boolean hasNext() {
+        boolean hasNext = !closed && returned < limit && merged.hasNext();
+        if (!hasNext) {
+          consumed = true;
+        }
+        return hasNext;
+      }
+
+      @Override
+      public T next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        returned++;
+        currentIndex++;
+        return merged.next();
+      }
+    };
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    IOException failure = null;
+    for (Cursor<T> cursor : cursors) {
+      try {
+        cursor.close();
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+}
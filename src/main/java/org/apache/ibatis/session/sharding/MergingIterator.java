@@ -0,0 +1,96 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.sharding;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * Iterates over the elements of several iterators: one after the other, or merged in the order of a comparator when
+ * each iterator is sorted by it.
+ */
+class MergingIterator<T> implements Iterator<T> {
+
+  private final Iterator<Iterator<T>> sources;
+  private Iterator<T> current = Collections.emptyIterator();
+  private final PriorityQueue<Head<T>> heads;
+
+  MergingIterator(List<? extends Iterator<T>> iterators, Comparator<? super T> comparator) {
+    if (comparator == null) {
+      this.sources = new ArrayList<Iterator<T>>(iterators).iterator();
+      this.heads = null;
+    } else {
+      this.sources = null;
+      // 相同的值，按分片的顺序返回
+      Comparator<Head<T>> headComparator = (a, b) -> {
+        int result = comparator.compare(a.value, b.value);
+        return result != 0 ? result : Integer.compare(a.index, b.index);
+      };
+      this.heads = new PriorityQueue<>(Math.max(1, iterators.size()), headComparator);
+      for (int i = 0; i < iterators.size(); i++) {
+        Iterator<T> iterator = iterators.get(i);
+        if (iterator.hasNext()) {
+          heads.add(new Head<>(iterator, i));
+        }
+      }
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (heads != null) {
+      return !heads.isEmpty();
+    }
+    while (!current.hasNext() && sources.hasNext()) {
+      current = sources.next();
+    }
+    return current.hasNext();
+  }
+
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    if (heads == null) {
+      return current.next();
+    }
+    Head<T> head = heads.poll();
+    T value = head.value;
+    if (head.iterator.hasNext()) {
+      heads.add(new Head<>(head.iterator, head.index));
+    }
+    return value;
+  }
+
+  private static class Head<T> {
+    private final Iterator<T> iterator;
+    private final int index;
+    private final T value;
+
+    private Head(Iterator<T> iterator, int index) {
+      this.iterator = iterator;
+      this.index = index;
+      this.value = iterator.next();
+    }
+  }
+
+}
@@ -0,0 +1,452 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.sharding;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.result.DefaultResultContext;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.MultiSelect;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+
+/**
+ * A session over the shards of a {@link ShardedSqlSessionFactory}. It opens a session on a shard the first time a
+ * statement is sent to it; commit, rollback and close apply to all of them, one after the other.
+ * <p>
+ * Queries sent to all shards run in parallel and their results are concatenated in the order of the shards, or
+ * merged in the order declared with {@link ShardedSqlSessionFactory#addMergeOrder(String, Comparator)}. Their
+ * {@link RowBounds} apply to the merged results. Updates and deletes run on each shard only when declared with
+ * {@link ShardedSqlSessionFactory#addBroadcastStatement(String)}, and inserts always need a shard.
+ * <p>
+ * This class is not Thread-Safe.
+ */
+public class ShardedSqlSession implements SqlSession {
+
+  private final ShardedSqlSessionFactory factory;
+  private final Configuration configuration;
+  private final ExecutorType execType;
+  private final boolean autoCommit;
+  /**
+   * 已打开的分片的 SqlSession ，KEY 为分片编号
+   */
+  private final Map<String, SqlSession> sessions = new LinkedHashMap<>();
+  private Deadline deadline;
+
+  ShardedSqlSession(ShardedSqlSessionFactory factory, ExecutorType execType, boolean autoCommit) {
+    this.factory = factory;
+    this.configuration = factory.getConfiguration();
+    this.execType = execType;
+    this.autoCommit = autoCommit;
+  }
+
+  /**
+   * Returns the session of a shard, opening it if needed.
+   */
+  public SqlSession getSession(String shardId) {
+    SqlSession session = sessions.get(shardId);
+    if (session == null) {
+      if (factory.getShard(shardId) == null) {
+        throw new PersistenceException("Unknown shard '" + shardId + "'.");
+      }
+      session = factory.getShard(shardId).openSession(execType, autoCommit);
+      session.setDeadline(deadline);
+      sessions.put(shardId, session);
+    }
+    return session;
+  }
+
+  private String route(String statement, Object parameter) {
+    MappedStatement ms = configuration.getMappedStatement(statement);
+    return factory.getShardingStrategy().getShardId(ms, parameter);
+  }
+
+  private List<SqlSession> getAllSessions() {
+    List<SqlSession> all = new ArrayList<>();
+    for (String shardId : factory.getShardIds()) {
+      all.add(getSession(shardId));
+    }
+    return all;
+  }
+
+  /**
+   * Calls all the shards in parallel, each on its own session, and returns their results in the order of the shards.
+   */
+  private <R> List<R> broadcast(Function<SqlSession, R> call) {
+    List<SqlSession> all = getAllSessions();
+    if (all.size() == 1) {
+      return Collections.singletonList(call.apply(all.get(0)));
+    }
+    List<CompletableFuture<R>> futures = new ArrayList<>(all.size());
+    for (SqlSession session : all) {
+      futures.add(CompletableFuture.supplyAsync(() -> call.apply(session), factory.getExecutor()));
+    }
+    // 等待所有分片完成，再抛出第一个异常
+    List<R> results = new ArrayList<>(all.size());
+    RuntimeException failure = null;
+    for (CompletableFuture<R> future : futures) {
+      try {
+        results.add(future.join());
+      } catch (CompletionException e) {
+        if (failure == null) {
+          Throwable cause = e.getCause();
+          if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          failure = cause instanceof RuntimeException ? (RuntimeException) cause
+              : ExceptionFactory.wrapException("Error querying shards.  Cause: " + cause, (Exception) cause);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  /**
+   * The bounds to query each shard with, so that the merged results hold the requested page.
+   */
+  private static RowBounds getShardRowBounds(RowBounds rowBounds) {
+    if (rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET) {
+      return rowBounds;
+    }
+    long limit = rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT ? RowBounds.NO_ROW_LIMIT
+        : Math.min(RowBounds.NO_ROW_LIMIT, (long) rowBounds.getOffset() + rowBounds.getLimit());
+    return new RowBounds(RowBounds.NO_ROW_OFFSET, (int) limit);
+  }
+
+  @Override
+  public <T> T selectOne(String statement) {
+    return selectOne(statement, null);
+  }
+
+  @Override
+  public <T> T selectOne(String statement, Object parameter) {
+    List<T> list = selectList(statement, parameter);
+    if (list.size() == 1) {
+      return list.get(0);
+    } else if (list.size() > 1) {
+      throw new TooManyResultsException("Expected one result (or null) to be returned by selectOne(), but found: " + list.size());
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public long selectCount(String statement) {
+    return selectCount(statement, null);
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    String shardId = route(statement, parameter);
+    if (shardId != null) {
+      return getSession(shardId).selectCount(statement, parameter);
+    }
+    long count = 0;
+    for (Long shardCount : broadcast(session -> session.selectCount(statement, parameter))) {
+      count += shardCount;
+    }
+    return count;
+  }
+
+  @Override
+  public <E> List<E> selectList(String statement) {
+    return selectList(statement, null);
+  }
+
+  @Override
+  public <E> List<E> selectList(String statement, Object parameter) {
+    return selectList(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  @Override
+  public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
+    String shardId = route(statement, parameter);
+    if (shardId != null) {
+      return getSession(shardId).selectList(statement, parameter, rowBounds);
+    }
+    RowBounds shardRowBounds = getShardRowBounds(rowBounds);
+    List<List<E>> shardResults = broadcast(session -> session.selectList(statement, parameter, shardRowBounds));
+    List<Iterator<E>> iterators = new ArrayList<>(shardResults.size());
+    int size = 0;
+    for (List<E> shardResult : shardResults) {
+      iterators.add(shardResult.iterator());
+      size += shardResult.size();
+    }
+    MergingIterator<E> merged = new MergingIterator<>(iterators, factory.getMergeOrder(statement));
+    for (int i = 0; i < rowBounds.getOffset() && merged.hasNext(); i++) {
+      merged.next();
+    }
+    List<E> list = new ArrayList<>(Math.min(size, rowBounds.getLimit()));
+    while (list.size() < rowBounds.getLimit() && merged.hasNext()) {
+      list.add(merged.next());
+    }
+    return list;
+  }
+
+  /**
+   * Executes the selects one after the other, each on its shard or on all shards.
+   */
+  @Override
+  public List<List<?>> selectMultiple(MultiSelect selects) {
+    List<List<?>> results = new ArrayList<>(selects.size());
+    for (int i = 0; i < selects.size(); i++) {
+      results.add(selectList(selects.getStatements().get(i), selects.getParameters().get(i)));
+    }
+    return results;
+  }
+
+  @Override
+  public <K, V> Map<K, V> selectMap(String statement, String mapKey) {
+    return selectMap(statement, null, mapKey, RowBounds.DEFAULT);
+  }
+
+  @Override
+  public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey) {
+    return selectMap(statement, parameter, mapKey, RowBounds.DEFAULT);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey, RowBounds rowBounds) {
+    String shardId = route(statement, parameter);
+    if (shardId != null) {
+      return getSession(shardId).selectMap(statement, parameter, mapKey, rowBounds);
+    }
+    // 与 DefaultMapResultHandler 一致
+    Map<K, V> map = configuration.getObjectFactory().create(Map.class);
+    for (Object value : selectList(statement, parameter, rowBounds)) {
+      MetaObject metaObject = configuration.newMetaObject(value);
+      map.put((K) metaObject.getValue(mapKey), (V) value);
+    }
+    return map;
+  }
+
+  @Override
+  public <T> Cursor<T> selectCursor(String statement) {
+    return selectCursor(statement, null);
+  }
+
+  @Override
+  public <T> Cursor<T> selectCursor(String statement, Object parameter) {
+    return selectCursor(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  @Override
+  public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
+    String shardId = route(statement, parameter);
+    if (shardId != null) {
+      return getSession(shardId).selectCursor(statement, parameter, rowBounds);
+    }
+    RowBounds shardRowBounds = getShardRowBounds(rowBounds);
+    List<Cursor<T>> cursors = broadcast(session -> session.selectCursor(statement, parameter, shardRowBounds));
+    return new MergedCursor<>(cursors, factory.getMergeOrder(statement), rowBounds.getOffset(), rowBounds.getLimit());
+  }
+
+  @Override
+  public void select(String statement, Object parameter, ResultHandler handler) {
+    select(statement, parameter, RowBounds.DEFAULT, handler);
+  }
+
+  @Override
+  public void select(String statement, ResultHandler handler) {
+    select(statement, null, RowBounds.DEFAULT, handler);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
+    String shardId = route(statement, parameter);
+    if (shardId != null) {
+      getSession(shardId).select(statement, parameter, rowBounds, handler);
+      return;
+    }
+    DefaultResultContext<Object> context = new DefaultResultContext<>();
+    for (Object value : selectList(statement, parameter, rowBounds)) {
+      context.nextResultObject(value);
+      handler.handleResult(context);
+      if (context.isStopped()) {
+        break;
+      }
+    }
+  }
+
+  @Override
+  public int insert(String statement) {
+    return update(statement, null);
+  }
+
+  @Override
+  public int insert(String statement, Object parameter) {
+    return update(statement, parameter);
+  }
+
+  @Override
+  public int update(String statement) {
+    return update(statement, null);
+  }
+
+  @Override
+  public int update(String statement, Object parameter) {
+    MappedStatement ms = configuration.getMappedStatement(statement);
+    String shardId = factory.getShardingStrategy().getShardId(ms, parameter);
+    if (shardId != null) {
+      return getSession(shardId).update(statement, parameter);
+    }
+    // 未路由的写操作：插入必须指定分片，更新和删除需显式声明才广播到所有分片
+    if (ms.getSqlCommandType() == SqlCommandType.INSERT) {
+      throw new PersistenceException("No shard for insert '" + statement + "'. The sharding strategy must route inserts.");
+    }
+    if (!factory.isBroadcastStatement(statement)) {
+      throw new PersistenceException("No shard for statement '" + statement
+          + "'. Declare it with ShardedSqlSessionFactory.addBroadcastStatement to run it on all shards.");
+    }
+    int count = 0;
+    for (SqlSession session : getAllSessions()) {
+      int shardCount = session.update(statement, parameter);
+      if (shardCount == BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        count = BatchExecutor.BATCH_UPDATE_RETURN_VALUE;
+      } else if (count != BatchExecutor.BATCH_UPDATE_RETURN_VALUE) {
+        count += shardCount;
+      }
+    }
+    return count;
+  }
+
+  @Override
+  public int delete(String statement) {
+    return update(statement, null);
+  }
+
+  @Override
+  public int delete(String statement, Object parameter) {
+    return update(statement, parameter);
+  }
+
+  @Override
+  public void commit() {
+    commit(false);
+  }
+
+  @Override
+  public void commit(boolean force) {
+    for (SqlSession session : sessions.values()) {
+      session.commit(force);
+    }
+  }
+
+  @Override
+  public void rollback() {
+    rollback(false);
+  }
+
+  @Override
+  public void rollback(boolean force) {
+    for (SqlSession session : sessions.values()) {
+      session.rollback(force);
+    }
+  }
+
+  @Override
+  public List<BatchResult> flushStatements() {
+    List<BatchResult> results = new ArrayList<>();
+    for (SqlSession session : sessions.values()) {
+      results.addAll(session.flushStatements());
+    }
+    return results;
+  }
+
+  @Override
+  public void close() {
+    RuntimeException failure = null;
+    for (SqlSession session : sessions.values()) {
+      try {
+        session.close();
+      } catch (RuntimeException e) {
+        if (failure == null) {
+          failure = e;
+        }
+      }
+    }
+    sessions.clear();
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  @Override
+  public void clearCache() {
+    for (SqlSession session : sessions.values()) {
+      session.clearCache();
+    }
+  }
+
+  @Override
+  public void setDeadline(Deadline deadline) {
+    this.deadline = deadline;
+    for (SqlSession session : sessions.values()) {
+      session.setDeadline(deadline);
+    }
+  }
+
+  @Override
+  public Deadline getDeadline() {
+    return deadline;
+  }
+
+  @Override
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+  @Override
+  public <T> T getMapper(Class<T> type) {
+    return configuration.getMapper(type, this);
+  }
+
+  /**
+   * A sharded session has a connection per shard, use {@link #getSession(String)} to get one of them.
+   */
+  @Override
+  public Connection getConnection() {
+    throw new PersistenceException("A sharded session has no single connection, use getSession(shardId).getConnection().");
+  }
+
+}
@@ -0,0 +1,174 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.sharding;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.exceptions.ExceptionFactory;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+
+/**
+ * Opens sessions over several databases, the shards, each with its own {@link SqlSessionFactory}. The
+ * {@link ShardingStrategy} sends a statement to one shard, or to all of them: queries are then executed in parallel,
+ * on a session per shard, and their results are merged.
+ * <p>
+ * The shards are usually the environments of the same configuration file, see {@link #build(String, List,
+ * ShardingStrategy)}. Each has its own {@link Configuration}, so that their caches are kept apart.
+ */
+public class ShardedSqlSessionFactory {
+
+  private final Map<String, SqlSessionFactory> shards;
+  private final ShardingStrategy shardingStrategy;
+  private final Executor executor;
+  private final Map<String, Comparator<?>> mergeOrders = new ConcurrentHashMap<>();
+  private final Set<String> broadcastStatements = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param shards the session factories of the shards by shard id, in the order results are concatenated in
+   */
+  public ShardedSqlSessionFactory(Map<String, SqlSessionFactory> shards, ShardingStrategy shardingStrategy) {
+    this(shards, shardingStrategy, null);
+  }
+
+  /**
+   * @param executor runs the queries sent to all shards, a pool of daemon threads when {@code null}
+   */
+  public ShardedSqlSessionFactory(Map<String, SqlSessionFactory> shards, ShardingStrategy shardingStrategy, Executor executor) {
+    if (shards == null || shards.isEmpty()) {
+      throw new IllegalArgumentException("Parameter 'shards' must not be empty");
+    }
+    if (shardingStrategy == null) {
+      throw new IllegalArgumentException("Parameter 'shardingStrategy' must not be null");
+    }
+    this.shards = Collections.unmodifiableMap(new LinkedHashMap<>(shards));
+    this.shardingStrategy = shardingStrategy;
+    this.executor = executor != null ? executor : DefaultExecutorHolder.EXECUTOR;
+  }
+
+  /**
+   * Builds a shard for each of the given environments of a configuration file. The environment ids are the shard ids.
+   */
+  public static ShardedSqlSessionFactory build(String resource, List<String> environments, ShardingStrategy shardingStrategy) {
+    return build(resource, environments, null, shardingStrategy);
+  }
+
+  public static ShardedSqlSessionFactory build(String resource, List<String> environments, Properties properties,
+      ShardingStrategy shardingStrategy) {
+    Map<String, SqlSessionFactory> shards = new LinkedHashMap<>();
+    for (String environment : environments) {
+      Reader reader;
+      try {
+        reader = Resources.getResourceAsReader(resource);
+      } catch (IOException e) {
+        throw ExceptionFactory.wrapException("Error building SqlSession.", e);
+      }
+      shards.put(environment, new SqlSessionFactoryBuilder().build(reader, environment, properties));
+    }
+    return new ShardedSqlSessionFactory(shards, shardingStrategy);
+  }
+
+  /**
+   * Merges the results of a query executed on all shards in the order of the comparator, instead of concatenating
+   * them. The query must return its rows in this order, with an {@code ORDER BY}.
+   */
+  public <T> void addMergeOrder(String statement, Comparator<? super T> comparator) {
+    mergeOrders.put(statement, comparator);
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> Comparator<? super T> getMergeOrder(String statement) {
+    return (Comparator<? super T>) mergeOrders.get(statement);
+  }
+
+  /**
+   * Allows an update or a delete the sharding strategy sends to no shard in particular to run on all shards. Without
+   * it, such a statement fails, so that a strategy missing a parameter does not change the rows of every shard.
+   */
+  public void addBroadcastStatement(String statement) {
+    broadcastStatements.add(statement);
+  }
+
+  boolean isBroadcastStatement(String statement) {
+    return broadcastStatements.contains(statement);
+  }
+
+  public ShardedSqlSession openSession() {
+    return openSession(getConfiguration().getDefaultExecutorType(), false);
+  }
+
+  public ShardedSqlSession openSession(boolean autoCommit) {
+    return openSession(getConfiguration().getDefaultExecutorType(), autoCommit);
+  }
+
+  public ShardedSqlSession openSession(ExecutorType execType) {
+    return openSession(execType, false);
+  }
+
+  public ShardedSqlSession openSession(ExecutorType execType, boolean autoCommit) {
+    return new ShardedSqlSession(this, execType, autoCommit);
+  }
+
+  public List<String> getShardIds() {
+    return new ArrayList<>(shards.keySet());
+  }
+
+  public SqlSessionFactory getShard(String shardId) {
+    return shards.get(shardId);
+  }
+
+  public ShardingStrategy getShardingStrategy() {
+    return shardingStrategy;
+  }
+
+  Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * @return the configuration of the first shard, used to resolve statements and mappers
+   */
+  public Configuration getConfiguration() {
+    return shards.values().iterator().next().getConfiguration();
+  }
+
+  private static class DefaultExecutorHolder {
+    private static final AtomicInteger COUNTER = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-shard-" + COUNTER.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+}
@@ -0,0 +1,36 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.sharding;
+
+import org.apache.ibatis.mapping.MappedStatement;
+
+/**
+ * Chooses the shard a statement is executed on.
+ *
+ * @see ShardedSqlSessionFactory
+ */
+@FunctionalInterface
+public interface ShardingStrategy {
+
+  /**
+   * @param ms the statement to execute
+   * @param parameter the parameter object passed to the session, a {@code ParamMap} for mapper methods with several
+   *          parameters
+   * @return the id of the shard to execute the statement on, or {@code null} to execute it on all shards
+   */
+  String getShardId(MappedStatement ms, Object parameter);
+
+}
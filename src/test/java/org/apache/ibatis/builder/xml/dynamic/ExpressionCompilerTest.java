@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml.dynamic;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
+import org.apache.ibatis.scripting.xmltags.ExpressionCompiler;
+import org.apache.ibatis.scripting.xmltags.OgnlCache;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class ExpressionCompilerTest {
+
+  private static final String[] EXPRESSIONS = {
+      "username",
+      "password",
+      "username != null",
+      "password == null",
+      "null == password",
+      "username == 'cbegin'",
+      "username eq \"cbegin\"",
+      "username != 'cbegin'",
+      "username neq 'norm'",
+      "username > 'a'",
+      "username lt 'a'",
+      "id == 1",
+      "id == 1.0",
+      "id != 2",
+      "id > 0 and id < 10",
+      "id >= 1 && id <= 1",
+      "id gt 5 or id lte -1",
+      "id > 5 || username != null",
+      "!(id > 5)",
+      "not (username == null)",
+      "!password",
+      "username != null and username.length() > 3",
+      "username.trim().isEmpty()",
+      "username.empty",
+      "section == null",
+      "favouriteSection != null",
+      "favouriteSection == 'NEWS'",
+      "_parameter != null",
+      "_databaseId == null",
+      "ids != null and ids.size > 0",
+      "ids.size() == 3",
+      "!ids.isEmpty()",
+      "names.length == 2",
+      "flag",
+      "flag == true",
+      "!flag or false",
+      "text",
+      "zero",
+      "zero == 0",
+      "big == 10000000000",
+      "username == 'c'",
+      "id + 1 > 1",
+      "ids[0] == 1",
+      "ids.{? #this > 1}.size() == 2",
+      "@java.lang.Math@max(id, 2) == 2",
+      "section == 'NEWS'",
+      "username == 1 or true",
+      "missing == null"
+  };
+
+  @Test
+  void shouldEvaluateAsOgnl() {
+    Configuration configuration = new Configuration();
+    Author author = new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS);
+    DynamicContext context = new DynamicContext(configuration, author);
+    Map<String, Object> bindings = context.getBindings();
+    bindings.put("ids", new ArrayList<>(Arrays.asList(1, 2, 3)));
+    bindings.put("names", new String[] { "a", "b" });
+    bindings.put("flag", Boolean.TRUE);
+    bindings.put("text", "false");
+    bindings.put("zero", 0.0d);
+    bindings.put("big", 10000000000L);
+    bindings.put("missing", null);
+    for (String expression : EXPRESSIONS) {
+      assertEquals(ognlValue(expression, bindings), compiledValue(expression, bindings), expression);
+      // evaluated again from the cache
+      assertEquals(ognlValue(expression, bindings), compiledValue(expression, bindings), expression);
+    }
+  }
+
+  @Test
+  void shouldEvaluateParameterMap() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("name", "cbegin");
+    parameter.put("tags", Collections.emptySet());
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+    for (String expression : new String[] { "name == 'cbegin'", "_parameter.name != null", "tags.size == 0",
+        "_parameter.size == 2", "other == null" }) {
+      assertEquals(ognlValue(expression, bindings), compiledValue(expression, bindings), expression);
+      assertEquals(ognlValue(expression, parameter), compiledValue(expression, parameter), expression);
+    }
+  }
+
+  @Test
+  void shouldInvokeMethodsOfNonPublicClassesThroughTheirInterface() {
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("ids", Arrays.asList(1, 2, 3));
+    assertTrue((Boolean) ExpressionCompiler.getValue("ids.size() == 3 and !ids.isEmpty()", parameter));
+  }
+
+  @Test
+  void shouldFailAsOgnl() {
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), null).getBindings();
+    BuilderException ognl = assertThrows(BuilderException.class, () -> OgnlCache.getValue("author.name != null", bindings));
+    BuilderException compiled = assertThrows(BuilderException.class, () -> ExpressionCompiler.getValue("author.name != null", bindings));
+    assertEquals(ognl.getMessage(), compiled.getMessage());
+  }
+
+  @Test
+  void shouldWrapExceptionOfGetterWithoutEvaluatingAgain() {
+    FailingBean bean = new FailingBean();
+    BuilderException e = assertThrows(BuilderException.class, () -> ExpressionCompiler.getValue("value != null", bean));
+    assertTrue(e.getMessage().startsWith("Error evaluating expression 'value != null'. Cause: "));
+    assertTrue(e.getCause() instanceof IllegalStateException);
+    assertEquals(1, bean.calls);
+  }
+
+  public static class FailingBean {
+    private int calls;
+
+    public String getValue() {
+      calls++;
+      throw new IllegalStateException("boom");
+    }
+  }
+
+  private static Object ognlValue(String expression, Object root) {
+    try {
+      return OgnlCache.getValue(expression, root);
+    } catch (RuntimeException e) {
+      return e.getClass();
+    }
+  }
+
+  private static Object compiledValue(String expression, Object root) {
+    try {
+      return ExpressionCompiler.getValue(expression, root);
+    } catch (RuntimeException e) {
+      return e.getClass();
+    }
+  }
+
+}
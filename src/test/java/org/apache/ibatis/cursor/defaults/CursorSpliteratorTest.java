@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.Test;
+
+class CursorSpliteratorTest {
+
+  @Test
+  void shouldSplitInGrowingBatches() {
+    List<Integer> rows = rows(100);
+    CursorSpliterator<Integer> spliterator = new CursorSpliterator<>(rows.iterator(), Long.MAX_VALUE, 4);
+
+    assertEquals(4, spliterator.trySplit().estimateSize());
+    assertEquals(8, spliterator.trySplit().estimateSize());
+    Spliterator<Integer> third = spliterator.trySplit();
+    assertEquals(16, third.estimateSize());
+    assertTrue(third.hasCharacteristics(Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED));
+
+    List<Integer> rest = new ArrayList<>();
+    spliterator.forEachRemaining(rest::add);
+    assertEquals(72, rest.size());
+    assertEquals(28, rest.get(0).intValue());
+    assertNull(spliterator.trySplit());
+  }
+
+  @Test
+  void shouldReportCharacteristicsAndEstimate() {
+    CursorSpliterator<Integer> spliterator = new CursorSpliterator<>(rows(10).iterator(), 10, 4);
+    assertEquals(Spliterator.ORDERED | Spliterator.NONNULL, spliterator.characteristics());
+    assertEquals(10, spliterator.estimateSize());
+
+    spliterator.trySplit();
+    assertEquals(6, spliterator.estimateSize());
+    spliterator.tryAdvance(row -> assertEquals(4, row.intValue()));
+    assertEquals(5, spliterator.estimateSize());
+
+    // a batch never exceeds the estimate
+    assertEquals(5, spliterator.trySplit().estimateSize());
+    assertEquals(0, spliterator.estimateSize());
+  }
+
+  @Test
+  void shouldKeepSplittingWhenEstimateRunsOut() {
+    // the estimate comes from a row limit that turns out to be too low
+    CursorSpliterator<Integer> spliterator = new CursorSpliterator<>(rows(10).iterator(), 4, 4);
+    assertEquals(4, spliterator.trySplit().estimateSize());
+    assertEquals(0, spliterator.estimateSize());
+
+    Spliterator<Integer> next = spliterator.trySplit();
+    assertEquals(1, next.estimateSize());
+    next.tryAdvance(row -> assertEquals(4, row.intValue()));
+
+    List<Integer> rest = new ArrayList<>();
+    spliterator.forEachRemaining(rest::add);
+    assertEquals(5, rest.size());
+  }
+
+  @Test
+  void shouldKeepEncounterOrderInParallelStreams() {
+    List<Integer> rows = rows(10000);
+    List<Integer> result = StreamSupport.stream(new CursorSpliterator<>(rows.iterator(), Long.MAX_VALUE), true)
+        .map(row -> row * 2)
+        .collect(Collectors.toList());
+    assertEquals(10000, result.size());
+    for (int i = 0; i < result.size(); i++) {
+      assertEquals(i * 2, result.get(i).intValue());
+    }
+  }
+
+  private static List<Integer> rows(int count) {
+    return IntStream.range(0, count).boxed().collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.Test;
+
+class PrefetchingCursorTest {
+
+  @Test
+  void shouldReturnAllRowsInOrder() {
+    CountingCursor source = new CountingCursor(20, -1);
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(source, 3)) {
+      assertFalse(cursor.isOpen());
+      int expected = 0;
+      for (Integer row : cursor) {
+        assertEquals(expected, row.intValue());
+        assertEquals(expected, cursor.getCurrentIndex());
+        expected++;
+      }
+      assertEquals(20, expected);
+      assertTrue(cursor.isConsumed());
+      assertFalse(cursor.isOpen());
+    }
+  }
+
+  @Test
+  void shouldNotReadMoreThanPrefetchSizeAhead() throws Exception {
+    CountingCursor source = new CountingCursor(100, -1);
+    PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(source, 5);
+    Iterator<Integer> iterator = cursor.iterator();
+    assertEquals(0, iterator.next().intValue());
+    // the queue holds 5 rows and the producer blocks with one more in hand
+    Thread.sleep(200);
+    assertTrue(source.fetched.get() <= 7);
+    cursor.close();
+    assertTrue(source.closed);
+    assertFalse(cursor.isOpen());
+    assertFalse(iterator.hasNext());
+  }
+
+  @Test
+  void shouldPropagateErrorAfterPrecedingRows() {
+    CountingCursor source = new CountingCursor(10, 4);
+    PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(source, 2);
+    Iterator<Integer> iterator = cursor.iterator();
+    for (int i = 0; i < 4; i++) {
+      assertEquals(i, iterator.next().intValue());
+    }
+    IllegalStateException e = assertThrows(IllegalStateException.class, iterator::hasNext);
+    assertSame(CountingCursor.FAILURE, e);
+    assertTrue(source.closed);
+    assertFalse(cursor.isConsumed());
+    assertThrows(NoSuchElementException.class, iterator::next);
+  }
+
+  @Test
+  void shouldRejectSecondIterator() {
+    try (PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(new CountingCursor(1, -1), 1)) {
+      cursor.iterator();
+      assertThrows(IllegalStateException.class, cursor::iterator);
+    }
+  }
+
+  @Test
+  void shouldReadOnConfiguredExecutor() {
+    List<Runnable> tasks = new ArrayList<>();
+    PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(new CountingCursor(3, -1), 5, tasks::add);
+    Iterator<Integer> iterator = cursor.iterator();
+    assertEquals(1, tasks.size());
+    assertTrue(cursor.isPrefetching());
+
+    tasks.get(0).run();
+    assertFalse(cursor.isPrefetching());
+    assertEquals(0, iterator.next().intValue());
+    cursor.close();
+  }
+
+  @Test
+  void shouldNotReadOnceClosedBeforeTaskStarts() {
+    List<Runnable> tasks = new ArrayList<>();
+    CountingCursor source = new CountingCursor(3, -1);
+    PrefetchingCursor<Integer> cursor = new PrefetchingCursor<>(source, 5, tasks::add);
+    cursor.iterator();
+    // does not wait for a task that has not started
+    cursor.close();
+    assertFalse(cursor.isPrefetching());
+
+    tasks.get(0).run();
+    assertEquals(0, source.fetched.get());
+    assertTrue(source.closed);
+  }
+
+  private static class CountingCursor implements Cursor<Integer> {
+    static final IllegalStateException FAILURE = new IllegalStateException("broken row");
+
+    final AtomicInteger fetched = new AtomicInteger();
+    final int size;
+    final int failAt;
+    volatile boolean closed;
+
+    CountingCursor(int size, int failAt) {
+      this.size = size;
+      this.failAt = failAt;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return !closed;
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return fetched.get() == size;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return fetched.get() - 1;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return new Iterator<Integer>() {
+        @Override
+        public boolean hasNext() {
+          return !closed && fetched.get() < size;
+        }
+
+        @Override
+        public Integer next() {
+          int row = fetched.getAndIncrement();
+          if (row == failAt) {
+            throw FAILURE;
+          }
+          return row;
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+    }
+  }
+
+}
@@ -0,0 +1,169 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class MultiRowInsertTest {
+
+  private static final String SQL = "insert into t (a, b) values (?, ?)";
+
+  @Mock
+  Connection connection;
+
+  @Mock
+  PreparedStatement ps;
+
+  @Test
+  void shouldFindSingleValuesTuple() {
+    assertEquals(28, MultiRowInsert.findValuesTuple("insert into t (a, b) values (?, ?)"));
+    assertEquals(26, MultiRowInsert.findValuesTuple("INSERT INTO t (a) VALUES\n (coalesce(?, 0))"));
+    assertEquals(25, MultiRowInsert.findValuesTuple("insert into t (a) values ('values (x)')"));
+    assertEquals(35, MultiRowInsert.findValuesTuple("insert into t (a, values_x) values (?, ?)"));
+  }
+
+  @Test
+  void shouldRejectOtherStatements() {
+    assertEquals(-1, MultiRowInsert.findValuesTuple("insert into t (a) values (?), (?)"));
+    assertEquals(-1, MultiRowInsert.findValuesTuple("insert into t (a) values (?) on duplicate key update a = ?"));
+    assertEquals(-1, MultiRowInsert.findValuesTuple("insert into t (a) select a from u"));
+    assertEquals(-1, MultiRowInsert.findValuesTuple("insert into t (a) values (?"));
+    assertEquals(-1, MultiRowInsert.findValuesTuple("insert into t (a) values (')"));
+  }
+
+  @Test
+  void shouldBindRowsWithOffsetInChunksLimitedByParameters() throws SQLException {
+    Configuration configuration = new Configuration();
+    MappedStatement ms = insertStatement(configuration);
+    doReturn(ps).when(connection).prepareStatement(SQL + ", (?, ?)");
+    doReturn(ps).when(connection).prepareStatement(SQL);
+    doReturn(2, 2, 1).when(ps).executeUpdate();
+
+    MultiRowInsert insert = null;
+    for (int i = 0; i < 5; i++) {
+      BoundSql boundSql = ms.getBoundSql(row(i));
+      if (insert == null) {
+        insert = MultiRowInsert.create(ms, boundSql);
+      }
+      insert.addRow(boundSql);
+    }
+    // at most 4 parameters per statement: 2 rows, 2 rows, then 1 row
+    assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, insert.execute(connection, null, null, 100, 4));
+
+    verify(connection, times(2)).prepareStatement(SQL + ", (?, ?)");
+    verify(connection).prepareStatement(SQL);
+    verify(ps).setInt(1, 0);
+    verify(ps).setString(2, "b0");
+    verify(ps).setInt(3, 1);
+    verify(ps).setString(4, "b1");
+    verify(ps).setInt(1, 2);
+    verify(ps).setInt(3, 3);
+    verify(ps).setInt(1, 4);
+    verify(ps).setString(2, "b4");
+  }
+
+  @Test
+  void shouldBindRowsThroughParameterHandlerPlugins() throws SQLException {
+    Configuration configuration = new Configuration();
+    ParameterCounter counter = new ParameterCounter();
+    configuration.addInterceptor(counter);
+    MappedStatement ms = insertStatement(configuration);
+    doReturn(ps).when(connection).prepareStatement(SQL + ", (?, ?), (?, ?)");
+    doReturn(3).when(ps).executeUpdate();
+
+    MultiRowInsert insert = null;
+    for (int i = 0; i < 3; i++) {
+      BoundSql boundSql = ms.getBoundSql(row(i));
+      if (insert == null) {
+        insert = MultiRowInsert.create(ms, boundSql);
+      }
+      insert.addRow(boundSql);
+    }
+    insert.execute(connection, null, null, 10, null);
+
+    assertEquals(3, counter.count);
+    verify(ps).setString(6, "b2");
+  }
+
+  private static MappedStatement insertStatement(Configuration configuration) {
+    List<ParameterMapping> parameterMappings = Arrays.asList(
+        new ParameterMapping.Builder(configuration, "a", Integer.class).build(),
+        new ParameterMapping.Builder(configuration, "b", String.class).build());
+    return new MappedStatement.Builder(configuration, "insert", new StaticSqlSource(configuration, SQL, parameterMappings),
+        SqlCommandType.INSERT).build();
+  }
+
+  private static Map<String, Object> row(int i) {
+    Map<String, Object> row = new HashMap<>();
+    row.put("a", i);
+    row.put("b", "b" + i);
+    return row;
+  }
+
+  @Intercepts(@Signature(type = ParameterHandler.class, method = "setParameters", args = PreparedStatement.class))
+  public static class ParameterCounter implements Interceptor {
+
+    private int count;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      count++;
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+}
@@ -0,0 +1,45 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class CountQueryTest {
+
+  @Test
+  void shouldStripLastOrderBy() {
+    assertEquals("select * from users", CountQuery.stripOrderBy("select * from users order by id"));
+    assertEquals("select * from users where name = 'order by'",
+        CountQuery.stripOrderBy("select * from users where name = 'order by' ORDER  BY name, id desc"));
+    assertEquals("select * from (select * from users order by id) u",
+        CountQuery.stripOrderBy("select * from (select * from users order by id) u"));
+  }
+
+  @Test
+  void shouldKeepOrderByWhenRowsAreLimited() {
+    assertEquals("select * from users order by id limit 10", CountQuery.stripOrderBy("select * from users order by id limit 10"));
+    assertEquals("select * from users order by id fetch first 10 rows only",
+        CountQuery.stripOrderBy("select * from users order by id fetch first 10 rows only"));
+  }
+
+  @Test
+  void shouldWrapQuery() {
+    assertEquals("SELECT COUNT(*) FROM (select * from users) COUNT_", CountQuery.getCountSql(" select * from users order by id "));
+  }
+
+}
@@ -0,0 +1,61 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+class StandardPaginationDialectTest {
+
+  private static final String SQL = "select * from users";
+
+  @Test
+  void shouldLimitWithLimitOffset() {
+    assertEquals(SQL + " LIMIT 10", StandardPaginationDialect.LIMIT_OFFSET.getLimitSql(SQL, 0, 10));
+    assertEquals(SQL + " LIMIT 10 OFFSET 20", StandardPaginationDialect.LIMIT_OFFSET.getLimitSql(SQL, 20, 10));
+  }
+
+  @Test
+  void shouldLimitWithOffsetFetch() {
+    assertEquals(SQL + " OFFSET 20 ROWS FETCH NEXT 10 ROWS ONLY", StandardPaginationDialect.OFFSET_FETCH.getLimitSql(SQL, 20, 10));
+    assertEquals(SQL + " OFFSET 20 ROWS", StandardPaginationDialect.OFFSET_FETCH.getLimitSql(SQL, 20, RowBounds.NO_ROW_LIMIT));
+  }
+
+  @Test
+  void shouldLimitWithRownum() {
+    assertEquals("SELECT * FROM (" + SQL + ") WHERE ROWNUM <= 10", StandardPaginationDialect.ROWNUM.getLimitSql(SQL, 0, 10));
+    assertEquals("SELECT * FROM (SELECT ROW_.*, ROWNUM ROWNUM_ FROM (" + SQL + ") ROW_ WHERE ROWNUM <= 30) WHERE ROWNUM_ > 20",
+        StandardPaginationDialect.ROWNUM.getLimitSql(SQL, 20, 10));
+    assertEquals("SELECT * FROM (SELECT ROW_.*, ROWNUM ROWNUM_ FROM (" + SQL + ") ROW_) WHERE ROWNUM_ > 20",
+        StandardPaginationDialect.ROWNUM.getLimitSql(SQL, 20, RowBounds.NO_ROW_LIMIT));
+  }
+
+  @Test
+  void shouldChooseDialectByDatabaseId() {
+    assertEquals(StandardPaginationDialect.LIMIT_OFFSET, StandardPaginationDialect.forDatabaseId("MySQL"));
+    assertEquals(StandardPaginationDialect.LIMIT_OFFSET, StandardPaginationDialect.forDatabaseId("HSQL Database Engine"));
+    assertEquals(StandardPaginationDialect.LIMIT_OFFSET, StandardPaginationDialect.forDatabaseId("PostgreSQL"));
+    assertEquals(StandardPaginationDialect.ROWNUM, StandardPaginationDialect.forDatabaseId("Oracle"));
+    assertEquals(StandardPaginationDialect.OFFSET_FETCH, StandardPaginationDialect.forDatabaseId("Microsoft SQL Server"));
+    assertEquals(StandardPaginationDialect.OFFSET_FETCH, StandardPaginationDialect.forDatabaseId("Apache Derby"));
+    assertNull(StandardPaginationDialect.forDatabaseId("unknown"));
+    assertNull(StandardPaginationDialect.forDatabaseId(null));
+  }
+
+}
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class CompactRowMapTest {
+
+  private final CompactRowMap.Keys keys = new CompactRowMap.Keys(Arrays.asList("ID", "NAME", "SCORE"));
+
+  @Test
+  void shouldBehaveLikeHashMap() {
+    CompactRowMap map = new CompactRowMap(keys);
+    Map<String, Object> expected = new HashMap<>();
+    assertTrue(map.isEmpty());
+
+    assertNull(map.put("ID", 1));
+    expected.put("ID", 1);
+    assertNull(map.put("SCORE", null));
+    expected.put("SCORE", null);
+    assertNull(map.put("EXTRA", "x"));
+    expected.put("EXTRA", "x");
+
+    assertEquals(3, map.size());
+    assertTrue(map.containsKey("SCORE"));
+    assertFalse(map.containsKey("NAME"));
+    assertNull(map.get("NAME"));
+    assertEquals("x", map.get("EXTRA"));
+    assertEquals(expected, map);
+    assertEquals(map, expected);
+    assertEquals(expected.hashCode(), map.hashCode());
+
+    assertEquals(1, map.put("ID", 2));
+    assertEquals(2, map.remove("ID"));
+    assertNull(map.remove("ID"));
+    assertEquals("x", map.remove("EXTRA"));
+    assertEquals(1, map.size());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  void shouldIterateAndRemoveThroughEntrySet() {
+    CompactRowMap map = new CompactRowMap(keys);
+    map.put("ID", 1);
+    map.put("NAME", "a");
+    map.put("EXTRA", "x");
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      if ("NAME".equals(entry.getKey())) {
+        entry.setValue("b");
+      }
+    }
+    assertEquals("b", map.get("NAME"));
+
+    Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
+    while (iterator.hasNext()) {
+      String key = iterator.next().getKey();
+      if (!"NAME".equals(key)) {
+        iterator.remove();
+      }
+    }
+    assertEquals(1, map.size());
+    assertEquals("b", map.get("NAME"));
+    assertEquals("{NAME=b}", map.toString());
+  }
+
+  @Test
+  void shouldSerializeAsRegularMap() throws Exception {
+    CompactRowMap map = new CompactRowMap(keys);
+    map.put("ID", 1);
+    map.put("EXTRA", "x");
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(map);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(map, in.readObject());
+    }
+  }
+
+}
@@ -0,0 +1,90 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+
+import org.apache.ibatis.executor.resultset.ResultSetMetadataCache.ColumnLayout;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.Test;
+
+class ResultSetMetadataCacheTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldReuseLayoutForSameColumns() throws SQLException {
+    ResultSetMetadataCache cache = new ResultSetMetadataCache();
+    ColumnLayout layout = cache.getLayout(0, mockResultSet(new String[] { "ID", "NAME" }, new int[] { Types.INTEGER, Types.VARCHAR }), configuration);
+    assertEquals(2, layout.columnNames.size());
+    assertEquals(JdbcType.VARCHAR, layout.jdbcTypes.get(1));
+
+    ColumnLayout reused = cache.getLayout(0, mockResultSet(new String[] { "ID", "NAME" }, new int[] { Types.INTEGER, Types.VARCHAR }), configuration);
+    assertSame(layout, reused);
+  }
+
+  @Test
+  void shouldReplaceLayoutWhenColumnsChange() throws SQLException {
+    ResultSetMetadataCache cache = new ResultSetMetadataCache();
+    ColumnLayout layout = cache.getLayout(0, mockResultSet(new String[] { "ID", "NAME" }, new int[] { Types.INTEGER, Types.VARCHAR }), configuration);
+
+    assertNotSame(layout, cache.getLayout(0, mockResultSet(new String[] { "ID" }, new int[] { Types.INTEGER }), configuration));
+    assertNotSame(layout, cache.getLayout(0, mockResultSet(new String[] { "ID", "TITLE" }, new int[] { Types.INTEGER, Types.VARCHAR }), configuration));
+    ColumnLayout changedType = cache.getLayout(0, mockResultSet(new String[] { "ID", "TITLE" }, new int[] { Types.BIGINT, Types.VARCHAR }), configuration);
+    assertEquals(JdbcType.BIGINT, changedType.jdbcTypes.get(0));
+  }
+
+  @Test
+  void shouldKeepLayoutPerResultSet() throws SQLException {
+    ResultSetMetadataCache cache = new ResultSetMetadataCache();
+    ColumnLayout first = cache.getLayout(0, mockResultSet(new String[] { "ID" }, new int[] { Types.INTEGER }), configuration);
+    ColumnLayout second = cache.getLayout(1, mockResultSet(new String[] { "NAME" }, new int[] { Types.VARCHAR }), configuration);
+    assertNotSame(first, second);
+    assertSame(first, cache.getLayout(0, mockResultSet(new String[] { "ID" }, new int[] { Types.INTEGER }), configuration));
+    assertSame(second, cache.getLayout(1, mockResultSet(new String[] { "NAME" }, new int[] { Types.VARCHAR }), configuration));
+  }
+
+  @Test
+  void shouldShareDerivedMappingsBetweenWrappers() throws SQLException {
+    ResultSetMetadataCache cache = new ResultSetMetadataCache();
+    ResultSet rs = mockResultSet(new String[] { "ID" }, new int[] { Types.INTEGER });
+    ResultSetWrapper first = new ResultSetWrapper(rs, configuration, cache.getLayout(0, rs, configuration));
+    ResultSetWrapper second = new ResultSetWrapper(rs, configuration, cache.getLayout(0, rs, configuration));
+    assertSame(first.getTypeHandler(Integer.class, "ID"), second.getTypeHandler(Integer.class, "ID"));
+    assertSame(first.getAutoMappings(), second.getAutoMappings());
+  }
+
+  private ResultSet mockResultSet(String[] labels, int[] types) throws SQLException {
+    ResultSet rs = mock(ResultSet.class);
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(rs.getMetaData()).thenReturn(metaData);
+    when(metaData.getColumnCount()).thenReturn(labels.length);
+    for (int i = 0; i < labels.length; i++) {
+      when(metaData.getColumnLabel(i + 1)).thenReturn(labels[i]);
+      when(metaData.getColumnType(i + 1)).thenReturn(types[i]);
+    }
+    return rs;
+  }
+
+}
@@ -0,0 +1,95 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RowKeyTest {
+
+  @Test
+  void shouldBeEqualToCopyAfterHolderIsReset() {
+    RowKey holder = new RowKey();
+    holder.update("map");
+    holder.update("ID");
+    holder.update(1);
+    RowKey copy = holder.copy();
+    assertEquals(holder, copy);
+    assertEquals(holder.hashCode(), copy.hashCode());
+
+    holder.reset();
+    holder.update("map");
+    holder.update("ID");
+    holder.update(2);
+    assertNotEquals(holder, copy);
+    assertEquals(3, copy.getUpdateCount());
+  }
+
+  @Test
+  void shouldGrowBeyondInitialCapacity() {
+    RowKey key1 = new RowKey();
+    RowKey key2 = new RowKey();
+    for (int i = 0; i < 20; i++) {
+      key1.update(i);
+      key2.update(i);
+    }
+    assertEquals(20, key1.getUpdateCount());
+    assertEquals(key1, key2);
+  }
+
+  @Test
+  void shouldDistinguishCombinedKeysBySegment() {
+    RowKey parent = new RowKey();
+    parent.update("parent");
+    parent.update("ID");
+    parent.update(1);
+
+    RowKey combined = new RowKey();
+    combined.update("child");
+    combined.update("ID");
+    combined.update(1);
+    combined.append(parent);
+
+    RowKey flat = new RowKey();
+    flat.update("child");
+    flat.update("ID");
+    flat.update(1);
+    flat.update("parent");
+    flat.update("ID");
+    flat.update(1);
+
+    assertNotEquals(combined, flat);
+    assertEquals(7, combined.getUpdateCount());
+  }
+
+  @Test
+  void shouldCompareArrayValuesByContent() {
+    RowKey key1 = new RowKey();
+    key1.update(new byte[] { 1, 2 });
+    RowKey key2 = new RowKey();
+    key2.update(new byte[] { 1, 2 });
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+  }
+
+  @Test
+  void shouldNotUpdateNullRowKey() {
+    assertThrows(IllegalStateException.class, () -> RowKey.NULL_ROW_KEY.update("value"));
+    assertSame(RowKey.NULL_ROW_KEY, RowKey.NULL_ROW_KEY.copy());
+  }
+
+}
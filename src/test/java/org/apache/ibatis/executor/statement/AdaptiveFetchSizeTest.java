@@ -0,0 +1,70 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveFetchSizeTest {
+
+  @Test
+  void shouldFollowSmoothedRowCountWithinBounds() {
+    AdaptiveFetchSize adaptiveFetchSize = new AdaptiveFetchSize();
+    assertNull(adaptiveFetchSize.getFetchSize());
+
+    adaptiveFetchSize.record(3, 16, 10, 1000);
+    assertEquals(10, adaptiveFetchSize.getFetchSize().intValue());
+
+    adaptiveFetchSize.record(200, 16, 10, 1000);
+    // 3 + (200 - 3) / 4 = 52.25 rows on average
+    assertEquals(52.25, adaptiveFetchSize.getAverageRowCount(), 0.001);
+    assertEquals(67, adaptiveFetchSize.getFetchSize().intValue());
+
+    adaptiveFetchSize.record(100000, 16, 10, 1000);
+    assertEquals(1000, adaptiveFetchSize.getFetchSize().intValue());
+    assertEquals(3, adaptiveFetchSize.getExecutionCount());
+  }
+
+  @Test
+  void shouldLimitBytesPerFetch() {
+    AdaptiveFetchSize adaptiveFetchSize = new AdaptiveFetchSize();
+    adaptiveFetchSize.record(5000, 4096, 10, 10000);
+    assertEquals(256, adaptiveFetchSize.getFetchSize().intValue());
+
+    adaptiveFetchSize.reset();
+    assertNull(adaptiveFetchSize.getFetchSize());
+  }
+
+  @Test
+  void shouldEstimateRowWidthFromMetaData() throws Exception {
+    ResultSetMetaData metaData = mock(ResultSetMetaData.class);
+    when(metaData.getColumnCount()).thenReturn(3);
+    when(metaData.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(metaData.getColumnType(2)).thenReturn(Types.VARCHAR);
+    when(metaData.getColumnDisplaySize(2)).thenReturn(20);
+    when(metaData.getColumnType(3)).thenReturn(Types.CLOB);
+    when(metaData.getColumnDisplaySize(3)).thenReturn(Integer.MAX_VALUE);
+    assertEquals(4 + 20 + 4096, AdaptiveFetchSize.estimateRowWidth(metaData));
+  }
+
+}
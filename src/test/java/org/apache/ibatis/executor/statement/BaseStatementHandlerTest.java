@@ -15,18 +15,24 @@
  */
 package org.apache.ibatis.executor.statement;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.DeadlineExceededException;
+import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Deadline;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -44,6 +50,12 @@ class BaseStatementHandlerTest {
     @Mock
     Statement statement;
 
+    @Mock
+    Executor executor;
+
+    @Mock
+    Connection connection;
+
     private MappedStatement.Builder mappedStatementBuilder;
 
     @BeforeEach
@@ -53,7 +65,7 @@ class BaseStatementHandlerTest {
 
     @AfterEach
     void resetMocks() {
-        reset(configuration, statement);
+        reset(configuration, statement, executor, connection);
     }
 
     @Test
@@ -145,4 +157,79 @@ class BaseStatementHandlerTest {
         verify(statement).setQueryTimeout(10);
     }
 
+    @Test
+    void specifyDeadlineShorterThanTimeout() throws SQLException {
+        mappedStatementBuilder.timeout(10);
+        doReturn(Deadline.after(3, TimeUnit.SECONDS)).when(executor).getDeadline();
+        doReturn(10).when(statement).getQueryTimeout();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(executor, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setStatementTimeout(statement, null);
+
+        verify(statement).setQueryTimeout(10);
+        verify(statement).setQueryTimeout(3); // apply the remaining time of the deadline
+    }
+
+    @Test
+    void specifyDeadlineLongerThanTimeout() throws SQLException {
+        mappedStatementBuilder.timeout(10);
+        doReturn(Deadline.after(1, TimeUnit.MINUTES)).when(executor).getDeadline();
+        doReturn(10).when(statement).getQueryTimeout();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(executor, mappedStatementBuilder.build(), null, null, null, null);
+        handler.setStatementTimeout(statement, null);
+
+        verify(statement).setQueryTimeout(10);
+        verify(statement, never()).setQueryTimeout(60);
+    }
+
+    @Test
+    void specifyExpiredDeadline() throws SQLException {
+        doReturn(Deadline.after(0, TimeUnit.MILLISECONDS)).when(executor).getDeadline();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(executor, mappedStatementBuilder.build(), null, null, null, null);
+        assertThrows(DeadlineExceededException.class, () -> handler.prepare(connection, null));
+
+        verifyZeroInteractions(connection); // no statement is created
+    }
+
+    @Test
+    void specifyDeadlineExpiringWhilePreparing() throws SQLException {
+        doReturn(Deadline.after(1, TimeUnit.MINUTES)).doReturn(Deadline.after(0, TimeUnit.MILLISECONDS)).when(executor).getDeadline();
+        doReturn(statement).when(connection).createStatement();
+
+        BaseStatementHandler handler = new SimpleStatementHandler(executor, mappedStatementBuilder.build(), null, null, null, null);
+        assertThrows(DeadlineExceededException.class, () -> handler.prepare(connection, null)); // not wrapped
+
+        verify(statement).close();
+    }
+
+    @Test
+    void applyAdaptiveFetchSizeOnceRecorded() throws SQLException {
+        doReturn(true).when(configuration).isAdaptiveFetchSizeEnabled();
+        doReturn(100).when(configuration).getDefaultFetchSize();
+
+        MappedStatement mappedStatement = mappedStatementBuilder.build();
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatement, null, null, null, null);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(100); // nothing observed yet, apply the default fetch size
+
+        mappedStatement.getAdaptiveFetchSize().record(400, 20, 10, 1000);
+        handler.setFetchSize(statement);
+        verify(statement).setFetchSize(501); // apply the observed row count plus a margin
+    }
+
+    @Test
+    void mappedStatementFetchSizeOverridesAdaptiveFetchSize() throws SQLException {
+        mappedStatementBuilder.fetchSize(50);
+
+        MappedStatement mappedStatement = mappedStatementBuilder.build();
+        mappedStatement.getAdaptiveFetchSize().record(400, 20, 10, 1000);
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatement, null, null, null, null);
+        handler.setFetchSize(statement);
+
+        verify(statement).setFetchSize(50);
+        verify(configuration, never()).isAdaptiveFetchSizeEnabled();
+    }
+
 }
@@ -0,0 +1,65 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.DeadlineExceededException;
+import org.apache.ibatis.session.Deadline;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class StatementUtilTest {
+
+  @Mock
+  Statement statement;
+
+  @Test
+  void applyExpiredDeadline() throws SQLException {
+    Deadline deadline = Deadline.after(0, TimeUnit.SECONDS);
+
+    assertThrows(DeadlineExceededException.class, () -> StatementUtil.applyDeadline(statement, deadline));
+    verify(statement, never()).setQueryTimeout(anyInt());
+  }
+
+  @Test
+  void applyDeadlineRoundedUpToSeconds() throws SQLException {
+    when(statement.getQueryTimeout()).thenReturn(0);
+
+    StatementUtil.applyDeadline(statement, Deadline.after(1500, TimeUnit.MILLISECONDS));
+    verify(statement).setQueryTimeout(2);
+  }
+
+  @Test
+  void applyDeadlineLaterThanQueryTimeout() throws SQLException {
+    when(statement.getQueryTimeout()).thenReturn(10);
+
+    StatementUtil.applyDeadline(statement, Deadline.after(1, TimeUnit.HOURS));
+    verify(statement, never()).setQueryTimeout(anyInt());
+  }
+
+}
@@ -0,0 +1,71 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.adaptive_fetch_size;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.statement.AdaptiveFetchSize;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AdaptiveFetchSizeTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/adaptive_fetch_size/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/adaptive_fetch_size/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRecordRowsReadPerStatement() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertTrue(configuration.isAdaptiveFetchSizeEnabled());
+    AdaptiveFetchSize all = configuration.getMappedStatement(Mapper.class.getName() + ".getAllUsers").getAdaptiveFetchSize();
+    AdaptiveFetchSize below = configuration.getMappedStatement(Mapper.class.getName() + ".getUsersBelow").getAdaptiveFetchSize();
+    assertNull(all.getFetchSize());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(5, mapper.getAllUsers().size());
+      assertEquals(1, mapper.getUsersBelow(2).size());
+    }
+
+    assertEquals(1, all.getExecutionCount());
+    assertEquals(5, all.getAverageRowCount(), 0.001);
+    assertTrue(all.getAverageRowWidth() > 0);
+    assertEquals(4, all.getFetchSize().intValue());
+
+    assertEquals(1, below.getAverageRowCount(), 0.001);
+    assertEquals(3, below.getFetchSize().intValue());
+  }
+
+}
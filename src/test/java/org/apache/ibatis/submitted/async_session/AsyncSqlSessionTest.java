@@ -0,0 +1,178 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.AsyncSqlSession;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncSqlSessionTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+  private static ExecutorService executor;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    executor = Executors.newFixedThreadPool(4, runnable -> new Thread(runnable, "async-test"));
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(executor);
+  }
+
+  @BeforeEach
+  void populateDatabase() throws Exception {
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_session/CreateDB.sql");
+  }
+
+  @AfterAll
+  static void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  void shouldRunStatementsInCallOrder() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    try {
+      Mapper mapper = asyncSession.getMapper(Mapper.class);
+      CompletableFuture<Integer> inserted = mapper.insertUser(user(6, "User6"));
+      CompletableFuture<List<User>> users = mapper.getAllUsers();
+      CompletableFuture<Void> rolledBack = asyncSession.rollback(true);
+      CompletableFuture<Integer> count = asyncSession.selectOne(Mapper.class.getName() + ".countUsers");
+
+      assertEquals(1, inserted.join().intValue());
+      assertEquals(6, users.join().size());
+      assertEquals("User6", users.join().get(5).getName());
+      rolledBack.join();
+      assertEquals(5, count.join().intValue());
+    } finally {
+      asyncSession.close().join();
+    }
+  }
+
+  @Test
+  void shouldRunStatementsOnConfiguredExecutor() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    try {
+      String thread = asyncSession.execute(session -> Thread.currentThread().getName()).join();
+      assertEquals("async-test", thread);
+
+      Optional<User> user = asyncSession.getMapper(Mapper.class).getUser(3).join();
+      assertEquals("User3", user.get().getName());
+      assertFalse(asyncSession.getMapper(Mapper.class).getUser(42).join().isPresent());
+    } finally {
+      asyncSession.close().join();
+    }
+  }
+
+  @Test
+  void shouldWaitForTurnOfBlockingMapperMethods() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    try {
+      Mapper mapper = asyncSession.getMapper(Mapper.class);
+      mapper.insertUser(user(7, "User7"));
+      // runs after the insert although it does not return a future
+      assertEquals(6, mapper.countUsers());
+    } finally {
+      asyncSession.rollback(true);
+      asyncSession.close().join();
+    }
+  }
+
+  @Test
+  void shouldRunBlockingMapperMethodsDirectlyWithinCallOfSameSession() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    try {
+      Mapper mapper = asyncSession.getMapper(Mapper.class);
+      // waiting for its own turn would never complete
+      assertEquals(5, asyncSession.execute(session -> mapper.countUsers()).join().intValue());
+    } finally {
+      asyncSession.close().join();
+    }
+  }
+
+  @Test
+  void shouldRejectBlockingMapperMethodsWithinCallOfAnotherSession() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    AsyncSqlSession otherSession = sqlSessionFactory.openAsyncSession();
+    try {
+      Mapper otherMapper = otherSession.getMapper(Mapper.class);
+      CompletionException e = assertThrows(CompletionException.class,
+          () -> asyncSession.execute(session -> otherMapper.countUsers()).join());
+      assertTrue(e.getCause() instanceof SqlSessionException);
+      assertEquals(5, asyncSession.execute(session -> otherMapper.getAllUsers()).join().join().size());
+    } finally {
+      asyncSession.close().join();
+      otherSession.close().join();
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyAndKeepSessionUsable() {
+    AsyncSqlSession asyncSession = sqlSessionFactory.openAsyncSession();
+    try {
+      Mapper mapper = asyncSession.getMapper(Mapper.class);
+      CompletableFuture<List<User>> failed = mapper.selectFromMissingTable();
+      CompletableFuture<List<User>> users = mapper.getAllUsers();
+
+      CompletionException e = assertThrows(CompletionException.class, failed::join);
+      assertTrue(e.getCause() instanceof PersistenceException);
+      assertEquals(5, users.join().size());
+    } finally {
+      asyncSession.close().join();
+    }
+  }
+
+  @Test
+  void shouldReturnCompletedFutureFromSynchronousSession() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CompletableFuture<List<User>> users = sqlSession.getMapper(Mapper.class).getAllUsers();
+      assertTrue(users.isDone());
+      assertEquals(5, users.join().size());
+    }
+  }
+
+  private static User user(int id, String name) {
+    User user = new User();
+    user.setId(id);
+    user.setName(name);
+    return user;
+  }
+
+}
@@ -0,0 +1,135 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchAutoFlushTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_grouping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_grouping/CreateDB.sql");
+  }
+
+  @Test
+  void shouldFlushWhenParameterCountIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchMaxPendingParameters(4);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 10; i++) {
+        mapper.insertNote("note" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(4, results.get(0).getBatchSize());
+      assertEquals(4, results.get(1).getBatchSize());
+      assertEquals(2, results.get(2).getBatchSize());
+      assertEquals(10, mapper.countNotes());
+    }
+  }
+
+  @Test
+  void shouldFlushWhenStatementCountIsReached() {
+    sqlSessionFactory.getConfiguration().setBatchStatementGrouping(false);
+    sqlSessionFactory.getConfiguration().setBatchMaxPendingStatements(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertNote("a");
+      mapper.insertLine(1, "a");
+      mapper.insertNote("b");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertTrue(sqlSession.flushStatements().isEmpty());
+    }
+  }
+
+  @Test
+  void shouldFlushWhenEstimatedBytesAreReached() {
+    sqlSessionFactory.getConfiguration().setBatchMaxPendingBytes(300);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 20; i++) {
+        mapper.insertNote("note" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertTrue(results.size() > 1);
+      int total = 0;
+      for (BatchResult result : results) {
+        total += result.getBatchSize();
+      }
+      assertEquals(20, total);
+    }
+  }
+
+  @Test
+  void shouldReleaseParameterObjectsOnceKeysAreAssigned() {
+    sqlSessionFactory.getConfiguration().setBatchRetainParameterObjects(false);
+    sqlSessionFactory.getConfiguration().setBatchMaxPendingParameters(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        Order order = new Order("order" + i);
+        orders.add(order);
+        mapper.insertOrder(order);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getBatchSize());
+      assertTrue(results.get(0).getParameterObjects().isEmpty());
+      for (Order order : orders) {
+        assertNotNull(order.getId());
+      }
+    }
+  }
+
+  @Test
+  void shouldDiscardAutoFlushedResultsOnRollback() {
+    sqlSessionFactory.getConfiguration().setBatchMaxPendingParameters(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        mapper.insertNote("note" + i);
+      }
+      sqlSession.rollback(true);
+      assertTrue(sqlSession.flushStatements().isEmpty());
+      assertEquals(0, mapper.countNotes());
+    }
+  }
+
+}
@@ -0,0 +1,169 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.Reader;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchGroupingTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_grouping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_grouping/CreateDB.sql");
+  }
+
+  @Test
+  void shouldGroupInterleavedStatements() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        mapper.insertNote("note" + i);
+        mapper.insertLine(1, "line" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(3, results.get(0).getBatchSize());
+      assertEquals(3, results.get(0).getUpdateCounts().length);
+      assertEquals(3, results.get(1).getBatchSize());
+
+      assertEquals(3, mapper.countNotes());
+      assertEquals(3, mapper.countLines());
+    }
+  }
+
+  @Test
+  void shouldGroupStatementsFollowingKeyGeneratingStatements() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Order first = new Order("first");
+      Order second = new Order("second");
+      mapper.insertOrder(first);
+      mapper.insertLine(1, "a");
+      mapper.insertOrder(second);
+      mapper.insertLine(2, "b");
+      List<BatchResult> results = sqlSession.flushStatements();
+
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getBatchSize());
+      assertEquals(2, results.get(1).getBatchSize());
+      assertNotNull(first.getId());
+      assertEquals(first.getId() + 1, second.getId().intValue());
+    }
+  }
+
+  @Test
+  void shouldNotMoveStatementsBeforeKeyGeneratingStatements() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertLine(1, "a");
+      mapper.insertOrder(new Order("first"));
+      mapper.insertLine(1, "b");
+      mapper.insertNote("note");
+      mapper.insertLine(1, "c");
+      List<BatchResult> results = sqlSession.flushStatements();
+
+      // the lines after the order stay after it, the note and the last line are grouped
+      assertEquals(4, results.size());
+      assertEquals(1, results.get(0).getBatchSize());
+      assertEquals(1, results.get(1).getBatchSize());
+      assertEquals(2, results.get(2).getBatchSize());
+      assertEquals(1, results.get(3).getBatchSize());
+    }
+  }
+
+  @Test
+  void shouldNotMoveInsertsPastStatementsOnSameTable() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertLine(1, "a");
+      mapper.insertNote("a");
+      mapper.deleteLines();
+      mapper.insertLine(1, "b");
+      mapper.insertNote("b");
+      List<BatchResult> results = sqlSession.flushStatements();
+
+      // the second line stays after the delete, the second note is grouped past it
+      assertEquals(4, results.size());
+      assertEquals(1, results.get(0).getBatchSize());
+      assertEquals(2, results.get(1).getBatchSize());
+      assertEquals(1, results.get(3).getBatchSize());
+      assertEquals(1, mapper.countLines());
+      assertEquals(2, mapper.countNotes());
+    }
+  }
+
+  @Test
+  void shouldNotMoveInsertsPastWritesToReferencedTables() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertLineOfOrder(101, "a");
+      mapper.insertOrderWithId(102, "second");
+      mapper.insertLineOfOrder(102, "b");
+      List<BatchResult> results = sqlSession.flushStatements();
+
+      // the second line references the table of the order inserted before it
+      assertEquals(3, results.size());
+      assertEquals("org.apache.ibatis.submitted.batch_grouping.Mapper.insertOrderWithId", results.get(1).getMappedStatement().getId());
+    }
+  }
+
+  @Test
+  void shouldNotMoveInsertsWithoutTables() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertNoteWithoutTables("a");
+      mapper.insertLine(1, "a");
+      mapper.insertNoteWithoutTables("b");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+    }
+  }
+
+  @Test
+  void shouldOnlyReuseLastStatementWithoutGrouping() {
+    sqlSessionFactory.getConfiguration().setBatchStatementGrouping(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertNote("a");
+      mapper.insertNote("b");
+      mapper.insertLine(1, "a");
+      mapper.insertNote("c");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(2, results.get(0).getBatchSize());
+    }
+  }
+
+}
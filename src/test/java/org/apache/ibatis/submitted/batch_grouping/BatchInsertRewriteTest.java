@@ -0,0 +1,172 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.Reader;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchInsertRewriteTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private BatchCounter batchCounter;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_grouping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_grouping/CreateDB.sql");
+    batchCounter = new BatchCounter();
+    sqlSessionFactory.getConfiguration().addInterceptor(batchCounter);
+  }
+
+  @Test
+  void shouldInsertRowsInChunks() {
+    sqlSessionFactory.getConfiguration().setBatchInsertRewriteSize(4);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 10; i++) {
+        mapper.insertNote("note" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals("insert into notes (text) values (?)", results.get(0).getSql());
+      assertEquals(10, results.get(0).getBatchSize());
+      int[] expected = new int[10];
+      Arrays.fill(expected, 1);
+      assertArrayEquals(expected, results.get(0).getUpdateCounts());
+      assertEquals(0, batchCounter.count.get());
+      assertEquals(10, mapper.countNotes());
+    }
+  }
+
+  @Test
+  void shouldLimitRowsByParameterCount() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setBatchInsertRewriteSize(100);
+    configuration.setBatchInsertMaxParameters(5);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 7; i++) {
+        mapper.insertLine(1, "line" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(7, results.get(0).getUpdateCounts().length);
+      assertEquals(7, mapper.countLines());
+    }
+  }
+
+  @Test
+  void shouldAssignGeneratedKeysInOrder() {
+    sqlSessionFactory.getConfiguration().setBatchInsertRewriteSize(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = new ArrayList<>();
+      for (int i = 0; i < 5; i++) {
+        Order order = new Order("order" + i);
+        orders.add(order);
+        mapper.insertOrder(order);
+      }
+      sqlSession.flushStatements();
+      for (Order order : orders) {
+        assertEquals(order.getName(), mapper.selectOrderName(order.getId()));
+      }
+      assertEquals(0, batchCounter.count.get());
+    }
+  }
+
+  @Test
+  void shouldKeepGroupingBarriers() {
+    sqlSessionFactory.getConfiguration().setBatchInsertRewriteSize(10);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertLine(1, "a");
+      mapper.insertOrder(new Order("first"));
+      mapper.insertLine(1, "b");
+      mapper.insertNote("note");
+      mapper.insertLine(1, "c");
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(4, results.size());
+      assertEquals(2, results.get(2).getBatchSize());
+      assertEquals(2, results.get(2).getUpdateCounts().length);
+      assertEquals(3, mapper.countLines());
+      assertEquals(1, mapper.countNotes());
+    }
+  }
+
+  @Test
+  void shouldNotRewriteWhenDisabled() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        mapper.insertNote("note" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.get(0).getUpdateCounts().length);
+      assertEquals(3, batchCounter.count.get());
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "batch", args = Statement.class))
+  public static class BatchCounter implements Interceptor {
+
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      count.incrementAndGet();
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+}
@@ -0,0 +1,200 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchExecutorException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchPipelinedTest {
+
+  private static final String TOO_LONG = "a note longer than sixteen characters";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_grouping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_grouping/CreateDB.sql");
+    sqlSessionFactory.getConfiguration().setBatchPipelined(true);
+    sqlSessionFactory.getConfiguration().setBatchMaxPendingParameters(4);
+  }
+
+  @Test
+  void shouldReturnResultsOfBackgroundBatches() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 10; i++) {
+        mapper.insertNote("note" + i);
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(4, results.get(0).getBatchSize());
+      assertEquals(4, results.get(1).getBatchSize());
+      assertEquals(2, results.get(2).getBatchSize());
+      assertEquals(10, mapper.countNotes());
+    }
+  }
+
+  @Test
+  void shouldAssignGeneratedKeys() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Order> orders = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        Order order = new Order("order" + i);
+        orders.add(order);
+        mapper.insertOrder(order);
+      }
+      sqlSession.commit();
+      for (Order order : orders) {
+        assertNotNull(order.getId());
+        assertEquals(order.getName(), mapper.selectOrderName(order.getId()));
+      }
+    }
+  }
+
+  @Test
+  void shouldBindNextStatementsWhileBatchIsInFlight() throws Exception {
+    CountDownLatch executing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    blockExecuteBatch(executing, release);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      try {
+        for (int i = 0; i < 4; i++) {
+          mapper.insertNote("note" + i);
+        }
+        assertTrue(executing.await(5, TimeUnit.SECONDS));
+        // the first batch is still executing
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+          for (int i = 4; i < 7; i++) {
+            mapper.insertNote("note" + i);
+          }
+        });
+      } finally {
+        release.countDown();
+      }
+      List<BatchResult> results = sqlSession.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(4, results.get(0).getBatchSize());
+      assertEquals(3, results.get(1).getBatchSize());
+      assertEquals(7, mapper.countNotes());
+    }
+  }
+
+  @Test
+  void shouldThrowFailureOnNextStatement() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertNote("a");
+      mapper.insertNote("b");
+      mapper.insertNote(TOO_LONG);
+      // the batch fails in the background
+      mapper.insertNote("c");
+      PersistenceException e = assertThrows(PersistenceException.class, () -> {
+        // statements are deferred until the batch in flight has completed
+        for (int i = 0; i < 100; i++) {
+          mapper.insertNote("d");
+          Thread.sleep(10);
+        }
+      });
+      assertTrue(e.getCause() instanceof BatchExecutorException);
+    }
+  }
+
+  @Test
+  void shouldThrowFailureOnCommit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (int i = 0; i < 3; i++) {
+        mapper.insertNote("note" + i);
+      }
+      mapper.insertNote(TOO_LONG);
+      assertThrows(PersistenceException.class, sqlSession::commit);
+    }
+  }
+
+  /**
+   * Blocks the batches executed on the connections opened afterwards until released.
+   */
+  private void blockExecuteBatch(CountDownLatch executing, CountDownLatch release) {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    ResultWrapper blockBatch = (method, result) -> {
+      if ("executeBatch".equals(method.getName())) {
+        executing.countDown();
+        release.await();
+      }
+      return result;
+    };
+    ResultWrapper wrapStatement = (method, result) -> "prepareStatement".equals(method.getName())
+        ? wrap(PreparedStatement.class, result, blockBatch) : result;
+    ResultWrapper wrapConnection = (method, result) -> "getConnection".equals(method.getName())
+        ? wrap(Connection.class, result, wrapStatement) : result;
+    DataSource dataSource = wrap(DataSource.class, environment.getDataSource(), wrapConnection);
+    configuration.setEnvironment(new Environment(environment.getId(), environment.getTransactionFactory(), dataSource));
+  }
+
+  private static <T> T wrap(Class<T> type, Object target, ResultWrapper resultWrapper) {
+    return type.cast(Proxy.newProxyInstance(BatchPipelinedTest.class.getClassLoader(), new Class<?>[] { type },
+        (proxy, method, args) -> {
+          try {
+            return resultWrapper.wrap(method, method.invoke(target, args));
+          } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+          }
+        }));
+  }
+
+  private interface ResultWrapper {
+    Object wrap(Method method, Object result) throws Exception;
+  }
+
+}
@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_grouping;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Insert("insert into orders (name) values (#{name})")
+  @Options(useGeneratedKeys = true, keyProperty = "id", tables = "orders")
+  void insertOrder(Order order);
+
+  @Insert("insert into orders (id, name) values (#{id}, #{name})")
+  @Options(tables = "orders")
+  void insertOrderWithId(@Param("id") int id, @Param("name") String name);
+
+  @Insert("insert into order_lines (order_id, name) values (#{orderId}, #{name})")
+  @Options(tables = "order_lines")
+  void insertLine(@Param("orderId") int orderId, @Param("name") String name);
+
+  @Insert("insert into order_lines (order_id, name) values (#{orderId}, #{name})")
+  @Options(tables = "order_lines, orders")
+  void insertLineOfOrder(@Param("orderId") int orderId, @Param("name") String name);
+
+  @Insert("insert into notes (text) values (#{text})")
+  @Options(tables = "notes")
+  void insertNote(String text);
+
+  @Insert("insert into notes (text) values (#{text})")
+  void insertNoteWithoutTables(String text);
+
+  @Delete("delete from order_lines")
+  @Options(tables = "order_lines")
+  void deleteLines();
+
+  @Select("select name from orders where id = #{id}")
+  String selectOrderName(int id);
+
+  @Select("select count(*) from order_lines")
+  int countLines();
+
+  @Select("select count(*) from notes")
+  int countNotes();
+
+}
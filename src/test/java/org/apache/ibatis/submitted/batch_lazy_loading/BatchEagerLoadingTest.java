@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_lazy_loading;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchEagerLoadingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_lazy_loading/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_lazy_loading/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounter() {
+    QueryCounter.reset();
+  }
+
+  @Test
+  void shouldLoadNestedSelectsInBatchesAfterParentRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.selectBlogsEagerly();
+      // blogs, two chunks of authors and one for posts
+      assertEquals(4, QueryCounter.getQueries().size());
+      assertBlogs(blogs);
+      assertSame(blogs.get(0).getAuthor(), blogs.get(2).getAuthor());
+      assertEquals(4, QueryCounter.getQueries().size());
+    }
+  }
+
+  @Test
+  void shouldLoadRowByRowWithResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = new ArrayList<>();
+      mapper.selectBlogsEagerly(context -> {
+        // the handler must see fully loaded blogs
+        assertNotNull(context.getResultObject().getPosts());
+        blogs.add(context.getResultObject());
+      });
+      assertBlogs(blogs);
+      assertTrue(QueryCounter.getQueries().size() > 4);
+    }
+  }
+
+  private void assertBlogs(List<Blog> blogs) {
+    assertEquals(5, blogs.size());
+    assertEquals("Author1", blogs.get(0).getAuthor().getName());
+    assertEquals("Author2", blogs.get(1).getAuthor().getName());
+    assertEquals("Author1", blogs.get(2).getAuthor().getName());
+    assertEquals("Author3", blogs.get(3).getAuthor().getName());
+    assertNull(blogs.get(4).getAuthor());
+    assertEquals(2, blogs.get(0).getPosts().size());
+    assertEquals(1, blogs.get(1).getPosts().size());
+    assertTrue(blogs.get(2).getPosts().isEmpty());
+    assertEquals("Post4", blogs.get(3).getPosts().get(0).getSubject());
+    assertTrue(blogs.get(4).getPosts().isEmpty());
+  }
+
+}
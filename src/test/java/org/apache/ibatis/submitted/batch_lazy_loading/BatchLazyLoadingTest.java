@@ -0,0 +1,148 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.batch_lazy_loading;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BatchLazyLoadingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/batch_lazy_loading/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/batch_lazy_loading/CreateDB.sql");
+  }
+
+  @BeforeEach
+  void resetCounter() {
+    QueryCounter.reset();
+  }
+
+  @Test
+  void shouldLoadAssociationsOfAllSiblingsInChunks() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.selectBlogs();
+      assertEquals(1, QueryCounter.getQueries().size());
+
+      assertEquals("Author1", blogs.get(0).getAuthor().getName());
+      // 4 distinct keys with batchSize 2
+      assertEquals(3, QueryCounter.getQueries().size());
+      assertTrue(QueryCounter.getQueries().get(1).startsWith("select * from authors where id in"));
+
+      assertEquals("Author2", blogs.get(1).getAuthor().getName());
+      assertEquals("Author1", blogs.get(2).getAuthor().getName());
+      assertEquals("Author3", blogs.get(3).getAuthor().getName());
+      assertNull(blogs.get(4).getAuthor());
+      assertEquals(3, QueryCounter.getQueries().size());
+    }
+  }
+
+  @Test
+  void shouldLoadCollectionsOfAllSiblingsAtOnce() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.selectBlogs();
+
+      assertEquals(2, blogs.get(0).getPosts().size());
+      assertEquals(2, QueryCounter.getQueries().size());
+
+      assertEquals("Post1", blogs.get(0).getPosts().get(0).getSubject());
+      assertEquals("Post2", blogs.get(0).getPosts().get(1).getSubject());
+      assertEquals(1, blogs.get(1).getPosts().size());
+      assertTrue(blogs.get(2).getPosts().isEmpty());
+      assertEquals("Post4", blogs.get(3).getPosts().get(0).getSubject());
+      assertTrue(blogs.get(4).getPosts().isEmpty());
+      assertEquals(2, QueryCounter.getQueries().size());
+    }
+  }
+
+  @Test
+  void shouldLoadSiblingsAgainAfterFailedBatch() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Blog> blogs = mapper.selectBlogs();
+
+      QueryCounter.failNextQuery();
+      assertThrows(SQLException.class, () -> blogs.get(0).getAuthor());
+      assertEquals(2, QueryCounter.getQueries().size());
+
+      // the keys of the failed chunk are still pending
+      assertEquals("Author2", blogs.get(1).getAuthor().getName());
+      assertEquals("Author3", blogs.get(3).getAuthor().getName());
+      assertEquals(4, QueryCounter.getQueries().size());
+    }
+  }
+
+  @Test
+  void shouldLoadRemainingPropertiesAfterSessionIsClosed() {
+    List<Blog> blogs;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+    }
+    assertEquals("Author3", blogs.get(3).getAuthor().getName());
+    assertEquals("Author1", blogs.get(2).getAuthor().getName());
+    assertEquals(1, blogs.get(1).getPosts().size());
+    assertEquals(4, QueryCounter.getQueries().size());
+  }
+
+  @Test
+  void shouldLoadSiblingsOnceFromConcurrentThreads() throws Exception {
+    List<Blog> blogs;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      blogs = sqlSession.getMapper(Mapper.class).selectBlogs();
+    }
+    ExecutorService executorService = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<String>> names = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        Blog blog = blogs.get(i);
+        names.add(executorService.submit(() -> blog.getAuthor().getName()));
+      }
+      assertEquals("Author1", names.get(0).get());
+      assertEquals("Author2", names.get(1).get());
+      assertEquals("Author1", names.get(2).get());
+      assertEquals("Author3", names.get(3).get());
+    } finally {
+      executorService.shutdown();
+    }
+    // the keys of all siblings are loaded by one thread, in chunks of 2
+    assertEquals(3, QueryCounter.getQueries().size());
+  }
+
+}
@@ -0,0 +1,114 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.bulk_load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.BulkLoadOptions;
+import org.apache.ibatis.session.BulkLoadResult;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class BulkLoadTest {
+
+  private static final String INSERT_ORDER = "org.apache.ibatis.submitted.bulk_load.Mapper.insertOrder";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/bulk_load/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/bulk_load/CreateDB.sql");
+  }
+
+  @Test
+  void shouldLoadStreamInBatches() {
+    List<BulkLoadResult> progress = new ArrayList<>();
+    BulkLoadOptions options = new BulkLoadOptions.Builder().batchSize(10).progressListener(progress::add).build();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      BulkLoadResult result = sqlSession.bulkLoad(INSERT_ORDER, IntStream.range(0, 25).mapToObj(i -> new Order("order" + i)), options);
+      assertEquals(25, result.getRowCount());
+      assertEquals(25, result.getUpdateCount());
+      assertEquals(3, result.getBatchCount());
+      assertEquals(0, result.getCommitCount());
+      assertTrue(result.getThroughput() > 0);
+      assertEquals(3, progress.size());
+      assertEquals(10, progress.get(0).getRowCount());
+      assertEquals(20, progress.get(1).getRowCount());
+      assertEquals(25, sqlSession.getMapper(Mapper.class).countOrders());
+    }
+  }
+
+  @Test
+  void shouldHandOverGeneratedKeys() {
+    List<Order> orders = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      orders.add(new Order("order" + i));
+    }
+    List<Object> inserted = new ArrayList<>();
+    BulkLoadOptions options = new BulkLoadOptions.Builder().batchSize(3).generatedKeyHandler(inserted::add).build();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      sqlSession.bulkLoad(INSERT_ORDER, orders.iterator(), options);
+      assertEquals(orders, inserted);
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      for (Order order : orders) {
+        assertNotNull(order.getId());
+        assertEquals(order.getName(), mapper.selectOrderName(order.getId()));
+      }
+    }
+  }
+
+  @Test
+  void shouldCommitEveryInterval() {
+    BulkLoadOptions options = new BulkLoadOptions.Builder().batchSize(4).commitInterval(10).build();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      BulkLoadResult result = sqlSession.bulkLoad(INSERT_ORDER, IntStream.range(0, 25).mapToObj(i -> new Order("order" + i)), options);
+      assertEquals(3, result.getCommitCount());
+      // 4, 8, 10, 14, 18, 20, 24, 25
+      assertEquals(8, result.getBatchCount());
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(25, sqlSession.getMapper(Mapper.class).countOrders());
+    }
+  }
+
+  @Test
+  void shouldCountUpdatesWithSimpleExecutor() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.SIMPLE)) {
+      BulkLoadResult result = sqlSession.bulkLoad(INSERT_ORDER, IntStream.range(0, 5).mapToObj(i -> new Order("order" + i)));
+      assertEquals(5, result.getRowCount());
+      assertEquals(5, result.getUpdateCount());
+      assertEquals(5, sqlSession.getMapper(Mapper.class).countOrders());
+    }
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.result.ColumnarResult;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ColumnarResultTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/columnar/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/columnar/CreateDB.sql");
+  }
+
+  @Test
+  void shouldReadColumnsIntoArrays() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      ColumnarResult result = mapper.getItems();
+      assertEquals(5, result.getRowCount());
+      assertEquals(Arrays.asList("ID", "NAME", "QUANTITY", "PRICE", "AVAILABLE"), result.getColumnNames());
+
+      assertEquals(int.class, result.getColumnType("id"));
+      assertArrayEquals(new int[] { 1, 2, 3, 4, 5 }, result.getIntColumn("id"));
+      assertEquals(long.class, result.getColumnType("quantity"));
+      assertArrayEquals(new long[] { 100, 0, 300, 400, 500 }, result.getLongColumn("quantity"));
+      assertEquals(double.class, result.getColumnType("price"));
+      assertArrayEquals(new double[] { 1.5, 2.5, 0, 4.5, 5.5 }, result.getDoubleColumn("price"));
+      assertEquals(boolean.class, result.getColumnType("available"));
+      assertArrayEquals(new boolean[] { true, false, true, false, true }, result.getBooleanColumn("available"));
+      assertEquals(Object.class, result.getColumnType("name"));
+      assertArrayEquals(new Object[] { "Item1", "Item2", "Item3", null, "Item5" }, result.getObjectColumn("name"));
+    }
+  }
+
+  @Test
+  void shouldTrackNullValues() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ColumnarResult result = sqlSession.selectOne("org.apache.ibatis.submitted.columnar.Mapper.getItems");
+      assertFalse(result.isNull("quantity", 0));
+      assertTrue(result.isNull("quantity", 1));
+      assertTrue(result.isNull("price", 2));
+      assertTrue(result.isNull("available", 3));
+      assertTrue(result.isNull("name", 3));
+      assertNull(result.getValue("quantity", 1));
+      assertEquals(Long.valueOf(300), result.getValue("quantity", 2));
+      assertArrayEquals(new Object[] { 1.5, 2.5, null, 4.5, 5.5 }, result.getObjectColumn("price"));
+    }
+  }
+
+  @Test
+  void shouldApplyRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<ColumnarResult> results = sqlSession.selectList("org.apache.ibatis.submitted.columnar.Mapper.getItems", null, new RowBounds(1, 3));
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 2, 3, 4 }, results.get(0).getIntColumn("ID"));
+    }
+  }
+
+  @Test
+  void shouldReturnColumnarResultFromAnnotatedMethod() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      ColumnarResult result = mapper.getItemsAfter(3);
+      assertEquals(2, result.getRowCount());
+      assertArrayEquals(new long[] { 4, 5 }, result.getLongColumn("id"));
+      assertArrayEquals(new double[] { 4, 5 }, result.getDoubleColumn("id"));
+
+      ColumnarResult empty = mapper.getItemsAfter(5);
+      assertEquals(0, empty.getRowCount());
+      assertEquals(0, empty.getIntColumn("id").length);
+    }
+  }
+
+  @Test
+  void shouldKeepDecimalColumnsAsObjects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      ColumnarResult result = sqlSession.getMapper(Mapper.class).getAmounts();
+      assertEquals(Object.class, result.getColumnType("amount"));
+      assertArrayEquals(new Object[] { new BigDecimal("1.50"), new BigDecimal("2.50") }, result.getObjectColumn("amount"));
+      assertThrows(ExecutorException.class, () -> result.getDoubleColumn("amount"));
+    }
+  }
+
+  @Test
+  void shouldRejectUnknownOrMismatchedColumns() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      ColumnarResult result = mapper.getItems();
+      assertThrows(ExecutorException.class, () -> result.getIntColumn("missing"));
+      assertThrows(ExecutorException.class, () -> result.getIntColumn("price"));
+    }
+  }
+
+}
@@ -0,0 +1,32 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table items if exists;
+
+create table items (
+  id int,
+  name varchar(20),
+  quantity bigint,
+  price double,
+  available boolean
+);
+
+insert into items (id, name, quantity, price, available) values(1, 'Item1', 100, 1.5, true);
+insert into items (id, name, quantity, price, available) values(2, 'Item2', null, 2.5, false);
+insert into items (id, name, quantity, price, available) values(3, 'Item3', 300, null, true);
+insert into items (id, name, quantity, price, available) values(4, null, 400, 4.5, null);
+insert into items (id, name, quantity, price, available) values(5, 'Item5', 500, 5.5, true);
@@ -0,0 +1,31 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.columnar;
+
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.result.ColumnarResult;
+
+public interface Mapper {
+
+  ColumnarResult getItems();
+
+  @Select("select id, price from items where id > #{id} order by id")
+  ColumnarResult getItemsAfter(int id);
+
+  @Select("select id, cast(price as decimal(10, 2)) as amount from items where id < 3 order by id")
+  ColumnarResult getAmounts();
+
+}
@@ -0,0 +1,78 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compact_map_results;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.result.CompactRowMap;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompactMapResultsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compact_map_results/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compact_map_results/CreateDB.sql");
+  }
+
+  @Test
+  void shouldReturnCompactRows() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsers();
+      assertEquals(10, users.size());
+      Map<String, Object> user = users.get(0);
+      assertTrue(user instanceof CompactRowMap);
+      Map<String, Object> expected = new HashMap<>();
+      expected.put("ID", 1);
+      expected.put("NAME", "User1");
+      expected.put("SCORE", 10);
+      assertEquals(expected, user);
+      // null columns are not set, as with HashMap rows
+      assertFalse(users.get(2).containsKey("SCORE"));
+      assertEquals(2, users.get(2).size());
+    }
+  }
+
+  @Test
+  void shouldKeepExplicitMappings() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Map<String, Object>> users = sqlSession.getMapper(Mapper.class).getUsersWithResultMap();
+      Map<String, Object> user = users.get(1);
+      assertEquals(2, user.get("userId"));
+      assertEquals("User2", user.get("NAME"));
+      user.put("other", "value");
+      assertEquals("value", user.get("other"));
+    }
+  }
+
+}
@@ -0,0 +1,35 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table users if exists;
+
+create table users (
+  id int,
+  name varchar(20),
+  score int
+);
+
+insert into users (id, name, score) values(1, 'User1', 10);
+insert into users (id, name, score) values(2, 'User2', 20);
+insert into users (id, name, score) values(3, 'User3', null);
+insert into users (id, name, score) values(4, 'User4', 40);
+insert into users (id, name, score) values(5, 'User5', 50);
+insert into users (id, name, score) values(6, 'User6', 60);
+insert into users (id, name, score) values(7, 'User7', 70);
+insert into users (id, name, score) values(8, 'User8', 80);
+insert into users (id, name, score) values(9, 'User9', 90);
+insert into users (id, name, score) values(10, 'User10', 100);
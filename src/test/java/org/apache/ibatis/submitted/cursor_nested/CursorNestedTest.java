@@ -27,7 +27,9 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 class CursorNestedTest {
 
@@ -105,4 +107,21 @@ class CursorNestedTest {
       Assertions.assertTrue(usersCursor.isConsumed());
     }
   }
+
+  @Test
+  void shouldHandEachCompletedUserToResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<String> handled = new ArrayList<>();
+      mapper.getAllUsersOrdered(context -> {
+        User user = context.getResultObject();
+        handled.add(user.getName() + ":" + user.getGroups().size() + ":" + user.getRoles().size());
+      });
+      Assertions.assertEquals(4, handled.size());
+      Assertions.assertEquals("User1:2:3", handled.get(0));
+      Assertions.assertEquals("User2:1:3", handled.get(1));
+      Assertions.assertEquals("User3:3:1", handled.get(2));
+      Assertions.assertEquals("User4:2:2", handled.get(3));
+    }
+  }
 }
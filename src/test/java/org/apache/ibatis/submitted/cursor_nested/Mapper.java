@@ -15,10 +15,19 @@
  */
 package org.apache.ibatis.submitted.cursor_nested;
 
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.ResultHandler;
 
 public interface Mapper {
 
   Cursor<User> getAllUsers();
 
+  @Select("select * from users order by id")
+  @ResultMap("results")
+  @Options(resultOrdered = true)
+  void getAllUsersOrdered(ResultHandler<User> handler);
+
 }
@@ -0,0 +1,274 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_publisher;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.CursorPublisher.Subscriber;
+import org.apache.ibatis.cursor.CursorPublisher.Subscription;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionException;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_publisher/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_publisher/CreateDB.sql");
+  }
+
+  @AfterEach
+  void resetExecutor() {
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(null);
+  }
+
+  @Test
+  void shouldEmitOnlyRequestedRows() {
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(Runnable::run);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).getAllUsers();
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      publisher.subscribe(subscriber);
+      assertEquals(0, subscriber.names.size());
+
+      subscriber.subscription.request(2);
+      assertEquals(2, subscriber.names.size());
+      assertEquals("User2", subscriber.names.get(1));
+      assertFalse(subscriber.isCompleted());
+
+      subscriber.subscription.request(10);
+      assertEquals(5, subscriber.names.size());
+      assertTrue(subscriber.isCompleted());
+      assertNull(subscriber.error);
+    }
+  }
+
+  @Test
+  void shouldStopAndReleaseCursorOnCancel() {
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(Runnable::run);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.selectPublisher("org.apache.ibatis.submitted.cursor_publisher.Mapper.getAllUsers");
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        @Override
+        public void onNext(User item) {
+          super.onNext(item);
+          if (names.size() == 3) {
+            subscription.cancel();
+          }
+        }
+      };
+      publisher.subscribe(subscriber);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertEquals(3, subscriber.names.size());
+      assertFalse(subscriber.isCompleted());
+
+      // the session can run other statements after the cursor was released
+      List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.cursor_publisher.Mapper.getAllUsers");
+      assertEquals(5, users.size());
+    }
+  }
+
+  @Test
+  void shouldRejectSecondSubscriber() {
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(Runnable::run);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).getAllUsers();
+      publisher.subscribe(new RecordingSubscriber());
+      RecordingSubscriber second = new RecordingSubscriber();
+      publisher.subscribe(second);
+      assertTrue(second.error instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  void shouldSignalErrorOnInvalidDemand() {
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(Runnable::run);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      sqlSession.getMapper(Mapper.class).getAllUsers().subscribe(subscriber);
+      subscriber.subscription.request(0);
+      assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+  }
+
+  @Test
+  void shouldReadRowsOnExecutorThread() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(executor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        @Override
+        public void onNext(User item) {
+          super.onNext(item);
+          // one row at a time, requested from the executor thread
+          subscription.request(1);
+        }
+      };
+      sqlSession.getMapper(Mapper.class).getAllUsers().subscribe(subscriber);
+      subscriber.subscription.request(1);
+      assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+      assertEquals(5, subscriber.names.size());
+      assertEquals("User5", subscriber.names.get(4));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldReadRowsOnDaemonThreadsByDefault() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Thread> threads = new ArrayList<>();
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        @Override
+        public void onNext(User item) {
+          super.onNext(item);
+          threads.add(Thread.currentThread());
+        }
+      };
+      sqlSession.getMapper(Mapper.class).getAllUsers().subscribe(subscriber);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+      assertEquals(5, threads.size());
+      assertTrue(threads.get(0).getName().startsWith("mybatis-cursor-publisher-"));
+      assertTrue(threads.get(0).isDaemon());
+    }
+  }
+
+  @Test
+  void shouldRejectOtherStatementsWhileSubscriptionIsActive() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(executor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CountDownLatch reading = new CountDownLatch(1);
+      CountDownLatch release = new CountDownLatch(1);
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        @Override
+        public void onNext(User item) {
+          super.onNext(item);
+          reading.countDown();
+          try {
+            release.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      };
+      sqlSession.getMapper(Mapper.class).getAllUsers().subscribe(subscriber);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertTrue(reading.await(10, TimeUnit.SECONDS));
+
+      // the executor thread is using the session
+      assertThrows(SqlSessionException.class,
+          () -> sqlSession.selectList("org.apache.ibatis.submitted.cursor_publisher.Mapper.getAllUsers"));
+
+      release.countDown();
+      assertTrue(subscriber.completed.await(10, TimeUnit.SECONDS));
+      assertEquals(5, subscriber.names.size());
+      List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.cursor_publisher.Mapper.getAllUsers");
+      assertEquals(5, users.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldAllowStatementsFromSubscriber() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    sqlSessionFactory.getConfiguration().setCursorPublisherExecutor(executor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Integer> counts = new ArrayList<>();
+      CountDownLatch cancelled = new CountDownLatch(1);
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        @Override
+        public void onNext(User item) {
+          super.onNext(item);
+          List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.cursor_publisher.Mapper.getAllUsers");
+          counts.add(users.size());
+          if (counts.size() == 2) {
+            subscription.cancel();
+            cancelled.countDown();
+          }
+        }
+      };
+      sqlSession.getMapper(Mapper.class).getAllUsers().subscribe(subscriber);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      assertTrue(cancelled.await(10, TimeUnit.SECONDS));
+      assertNull(subscriber.error);
+      assertEquals(2, counts.size());
+      assertEquals(5, counts.get(0).intValue());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static class RecordingSubscriber implements Subscriber<User> {
+    final List<String> names = new ArrayList<>();
+    final CountDownLatch completed = new CountDownLatch(1);
+    volatile Subscription subscription;
+    volatile Throwable error;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(User item) {
+      names.add(item.getName());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed.countDown();
+    }
+
+    boolean isCompleted() {
+      return completed.getCount() == 0;
+    }
+  }
+
+}
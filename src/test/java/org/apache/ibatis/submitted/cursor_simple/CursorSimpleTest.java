@@ -20,6 +20,7 @@ import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionException;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
 import org.junit.jupiter.api.Assertions;
@@ -29,9 +30,13 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
 class CursorSimpleTest {
 
@@ -157,6 +162,66 @@ class CursorSimpleTest {
     }
   }
 
+  @Test
+  void testPrefetchingCursorWithRowBound() {
+    sqlSessionFactory.getConfiguration().setCursorPrefetchSize(2);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(1, 3));
+      Iterator<User> iterator = usersCursor.iterator();
+
+      Assertions.assertEquals("User2", iterator.next().getName());
+      Assertions.assertEquals(1, usersCursor.getCurrentIndex());
+      Assertions.assertEquals("User3", iterator.next().getName());
+      Assertions.assertEquals("User4", iterator.next().getName());
+      Assertions.assertEquals(3, usersCursor.getCurrentIndex());
+
+      Assertions.assertFalse(iterator.hasNext());
+      Assertions.assertFalse(usersCursor.isOpen());
+      Assertions.assertTrue(usersCursor.isConsumed());
+    } finally {
+      sqlSessionFactory.getConfiguration().setCursorPrefetchSize(0);
+    }
+  }
+
+  @Test
+  void testPrefetchingCursorOnConfiguredExecutor() throws IOException {
+    List<String> threads = new ArrayList<>();
+    sqlSessionFactory.getConfiguration().setCursorPrefetchSize(1);
+    sqlSessionFactory.getConfiguration().setCursorPrefetchExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "prefetch-test");
+      threads.add(thread.getName());
+      thread.start();
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers");
+      Iterator<User> iterator = usersCursor.iterator();
+      Assertions.assertEquals("User1", iterator.next().getName());
+      Assertions.assertEquals(Arrays.asList("prefetch-test"), threads);
+
+      // the session is in use by the prefetching thread
+      Assertions.assertThrows(SqlSessionException.class, () -> sqlSession.selectList("getAllUsers"));
+      usersCursor.close();
+      Assertions.assertEquals(5, sqlSession.selectList("getAllUsers").size());
+    } finally {
+      sqlSessionFactory.getConfiguration().setCursorPrefetchSize(0);
+      sqlSessionFactory.getConfiguration().setCursorPrefetchExecutor(null);
+    }
+  }
+
+  @Test
+  void testCursorParallelStream() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(1, 3));
+      Spliterator<User> spliterator = usersCursor.spliterator();
+      Assertions.assertEquals(3, spliterator.estimateSize());
+      Assertions.assertTrue(spliterator.hasCharacteristics(Spliterator.ORDERED | Spliterator.NONNULL));
+
+      List<String> names = StreamSupport.stream(spliterator, true).map(User::getName).collect(Collectors.toList());
+      Assertions.assertEquals(Arrays.asList("User2", "User3", "User4"), names);
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
   @Test
   void testCursorIteratorNoSuchElementExceptionWithHasNext() throws IOException {
 
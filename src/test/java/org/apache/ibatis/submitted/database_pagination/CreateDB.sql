@@ -0,0 +1,57 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table users if exists;
+
+create table users (
+  id int,
+  name varchar(20)
+);
+
+insert into users (id, name) values (1, 'User1');
+insert into users (id, name) values (2, 'User2');
+insert into users (id, name) values (3, 'User3');
+insert into users (id, name) values (4, 'User4');
+insert into users (id, name) values (5, 'User5');
+insert into users (id, name) values (6, 'User6');
+insert into users (id, name) values (7, 'User7');
+insert into users (id, name) values (8, 'User8');
+insert into users (id, name) values (9, 'User9');
+insert into users (id, name) values (10, 'User10');
+insert into users (id, name) values (11, 'User11');
+insert into users (id, name) values (12, 'User12');
+insert into users (id, name) values (13, 'User13');
+insert into users (id, name) values (14, 'User14');
+insert into users (id, name) values (15, 'User15');
+insert into users (id, name) values (16, 'User16');
+insert into users (id, name) values (17, 'User17');
+insert into users (id, name) values (18, 'User18');
+insert into users (id, name) values (19, 'User19');
+insert into users (id, name) values (20, 'User20');
+
+drop table user_roles if exists;
+
+create table user_roles (
+  user_id int,
+  role varchar(20)
+);
+
+insert into user_roles (user_id, role) values (1, 'admin');
+insert into user_roles (user_id, role) values (1, 'user');
+insert into user_roles (user_id, role) values (2, 'admin');
+insert into user_roles (user_id, role) values (2, 'user');
+insert into user_roles (user_id, role) values (3, 'user');
@@ -0,0 +1,216 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.database_pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.StandardPaginationDialect;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DatabasePaginationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private SqlRecorder sqlRecorder;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/database_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/database_pagination/CreateDB.sql");
+    sqlRecorder = new SqlRecorder();
+    sqlSessionFactory.getConfiguration().addInterceptor(sqlRecorder);
+  }
+
+  @Test
+  void shouldLimitRowsWithDialectOfDatabaseId() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsers(new RowBounds(5, 3));
+      assertIds(users, 6, 7, 8);
+      assertEquals("select id, name from users order by id LIMIT 3 OFFSET 5", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldUseConfiguredDialect() {
+    sqlSessionFactory.getConfiguration().setPaginationDialect(StandardPaginationDialect.OFFSET_FETCH);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsers(new RowBounds(18, 5));
+      assertIds(users, 19, 20);
+      assertTrue(sqlRecorder.sqls.get(0).endsWith("OFFSET 18 ROWS FETCH NEXT 5 ROWS ONLY"));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsOfQueryWithLimit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectFirstUsers(new RowBounds(5, 3));
+      assertIds(users, 6, 7, 8);
+      assertEquals("select id, name from users order by id limit 10", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsOfQueryWithFetchUsingOffsetFetch() {
+    sqlSessionFactory.getConfiguration().setPaginationDialect(StandardPaginationDialect.OFFSET_FETCH);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectFirstUsersWithFetch(new RowBounds(8, 5));
+      assertIds(users, 9, 10);
+      assertEquals("select id, name from users order by id fetch first 10 rows only", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsOfQueryForUpdate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsersForUpdate(new RowBounds(5, 3));
+      assertIds(users, 6, 7, 8);
+      assertEquals("select id, name from users order by id for update", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsOfQueryForUpdateUsingOffsetFetch() {
+    sqlSessionFactory.getConfiguration().setPaginationDialect(StandardPaginationDialect.OFFSET_FETCH);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsersForUpdate(new RowBounds(18, 5));
+      assertIds(users, 19, 20);
+      assertEquals("select id, name from users order by id for update", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldLimitRowsOfQueryWithLimitInSubquery() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectFirstUsersInSubquery(new RowBounds(5, 3));
+      assertIds(users, 6, 7, 8);
+      assertTrue(sqlRecorder.sqls.get(0).endsWith("LIMIT 3 OFFSET 5"));
+    }
+  }
+
+  @Test
+  void shouldLimitCursorRows() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession();
+         Cursor<User> cursor = sqlSession.getMapper(Mapper.class).selectUsersCursor(new RowBounds(10, 2))) {
+      Iterator<User> iterator = cursor.iterator();
+      assertEquals(11, iterator.next().getId());
+      assertEquals(12, iterator.next().getId());
+      assertFalse(iterator.hasNext());
+      assertTrue(sqlRecorder.sqls.get(0).endsWith("LIMIT 2 OFFSET 10"));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsWhenDisabled() {
+    sqlSessionFactory.getConfiguration().setDatabasePagination(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsers(new RowBounds(5, 3));
+      assertIds(users, 6, 7, 8);
+      assertEquals("select id, name from users order by id", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldSeekAfterLastKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> first = mapper.selectUsersAbove(2, new KeysetRowBounds("id", null, 4));
+      assertIds(first, 3, 4, 5, 6);
+      List<User> second = mapper.selectUsersAbove(2, new KeysetRowBounds("id", 6, 4));
+      assertIds(second, 7, 8, 9, 10);
+      List<User> last = mapper.selectUsersAbove(2, new KeysetRowBounds("id", 18, 4));
+      assertIds(last, 19, 20);
+      assertEquals("SELECT * FROM (select id, name from users where id > ?) SEEK_ WHERE id > ? ORDER BY id LIMIT 4",
+          sqlRecorder.sqls.get(1));
+    }
+  }
+
+  @Test
+  void shouldSeekDescendingWithoutDialect() {
+    sqlSessionFactory.getConfiguration().setDatabasePagination(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsersAbove(0, new KeysetRowBounds("id", 10, true, 3));
+      assertIds(users, 9, 8, 7);
+      assertTrue(sqlRecorder.sqls.get(0).endsWith("WHERE id < ? ORDER BY id DESC"));
+    }
+  }
+
+  @Test
+  void shouldLimitParentsOfNestedResultMapWhileReading() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.getMapper(Mapper.class).selectUsersWithRoles(new RowBounds(0, 2));
+      // a limit on the joined rows would return the first user only
+      assertIds(users, 1, 2);
+      assertEquals(Arrays.asList("admin", "user"), users.get(0).getRoles());
+      assertFalse(sqlRecorder.sqls.get(0).contains("LIMIT"));
+    }
+  }
+
+  private static void assertIds(List<User> users, Integer... ids) {
+    List<Integer> actual = new ArrayList<>();
+    users.forEach(user -> actual.add(user.getId()));
+    assertEquals(Arrays.asList(ids), actual);
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class SqlRecorder implements Interceptor {
+
+    private final List<String> sqls = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      sqls.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+}
@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.database_pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.RowBounds;
+
+public interface Mapper {
+
+  @Select("select id, name from users order by id")
+  List<User> selectUsers(RowBounds rowBounds);
+
+  @Select("select id, name from users order by id")
+  Cursor<User> selectUsersCursor(RowBounds rowBounds);
+
+  @Select("select id, name from users order by id limit 10")
+  List<User> selectFirstUsers(RowBounds rowBounds);
+
+  @Select("select id, name from users order by id fetch first 10 rows only")
+  List<User> selectFirstUsersWithFetch(RowBounds rowBounds);
+
+  @Select("select id, name from users order by id for update")
+  List<User> selectUsersForUpdate(RowBounds rowBounds);
+
+  @Select("select id, name from (select id, name from users order by id limit 10) first_users where name <> 'for update'")
+  List<User> selectFirstUsersInSubquery(RowBounds rowBounds);
+
+  @Select("select id, name from users where id > #{minId}")
+  List<User> selectUsersAbove(@Param("minId") int minId, RowBounds rowBounds);
+
+  List<User> selectUsersWithRoles(RowBounds rowBounds);
+
+  @Insert("insert into users (id, name) values (#{id}, #{name})")
+  void insertUser(User user);
+
+}
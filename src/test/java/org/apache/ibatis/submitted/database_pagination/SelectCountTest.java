@@ -0,0 +1,144 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.database_pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Collections;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SelectCountTest {
+
+  private static final String SELECT_USERS = "org.apache.ibatis.submitted.database_pagination.Mapper.selectUsers";
+  private static final String SELECT_USERS_ABOVE = "org.apache.ibatis.submitted.database_pagination.Mapper.selectUsersAbove";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/database_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/database_pagination/CreateDB.sql");
+  }
+
+  @Test
+  void shouldCountRowsOfQuery() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(20, sqlSession.selectCount(SELECT_USERS));
+      assertEquals(5, sqlSession.selectCount(SELECT_USERS_ABOVE, Collections.singletonMap("minId", 15)));
+    }
+  }
+
+  @Test
+  void shouldKeepCountForTtl() throws Exception {
+    sqlSessionFactory.getConfiguration().setCountCacheTtl(60000);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(20, sqlSession.selectCount(SELECT_USERS));
+      assertEquals(10, sqlSession.selectCount(SELECT_USERS_ABOVE, Collections.singletonMap("minId", 10)));
+    }
+    // written outside of MyBatis, so the cached counts are kept
+    try (Connection connection = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.executeUpdate("insert into users (id, name) values (21, 'User21')");
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(20, sqlSession.selectCount(SELECT_USERS));
+      // 不同的参数，重新计数
+      assertEquals(6, sqlSession.selectCount(SELECT_USERS_ABOVE, Collections.singletonMap("minId", 15)));
+    }
+    sqlSessionFactory.getConfiguration().getCountCache().clear();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(21, sqlSession.selectCount(SELECT_USERS));
+    }
+  }
+
+  @Test
+  void shouldDropCachedCountOnCommittedWrite() {
+    sqlSessionFactory.getConfiguration().setCountCacheTtl(60000);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(20, sqlSession.selectCount(SELECT_USERS));
+    }
+    insertUser();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(21, sqlSession.selectCount(SELECT_USERS));
+    }
+  }
+
+  @Test
+  void shouldNotUseCachedCountWithUncommittedWrites() {
+    sqlSessionFactory.getConfiguration().setCountCacheTtl(60000);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(20, sqlSession.selectCount(SELECT_USERS));
+      User user = new User();
+      user.setId(21);
+      user.setName("User21");
+      sqlSession.getMapper(Mapper.class).insertUser(user);
+      assertEquals(21, sqlSession.selectCount(SELECT_USERS));
+      // other sessions keep the committed count until this session commits
+      try (SqlSession other = sqlSessionFactory.openSession()) {
+        assertEquals(20, other.selectCount(SELECT_USERS));
+      }
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(21, sqlSession.selectCount(SELECT_USERS));
+    }
+  }
+
+  @Test
+  void shouldCountAgainWithoutTtl() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(20, sqlSession.selectCount(SELECT_USERS));
+    }
+    insertUser();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(21, sqlSession.selectCount(SELECT_USERS));
+    }
+    assertEquals(0, sqlSessionFactory.getConfiguration().getCountCache().size());
+  }
+
+  @Test
+  void shouldRejectNonSelectStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThrows(PersistenceException.class,
+          () -> sqlSession.selectCount("org.apache.ibatis.submitted.database_pagination.Mapper.insertUser"));
+    }
+  }
+
+  private void insertUser() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      User user = new User();
+      user.setId(21);
+      user.setName("User21");
+      sqlSession.getMapper(Mapper.class).insertUser(user);
+    }
+  }
+
+}
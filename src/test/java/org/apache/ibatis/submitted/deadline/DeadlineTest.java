@@ -0,0 +1,161 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.deadline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.DeadlineExceededException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Deadline;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private TimeoutRecorder timeoutRecorder;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/deadline/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/deadline/CreateDB.sql");
+    timeoutRecorder = new TimeoutRecorder();
+    sqlSessionFactory.getConfiguration().addInterceptor(timeoutRecorder);
+  }
+
+  @Test
+  void shouldUseStatementTimeoutWithoutDeadline() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Parent parent = sqlSession.getMapper(Mapper.class).selectParent(1);
+      assertEquals("child1", parent.getChild().getName());
+      assertEquals(Arrays.asList(25, 25), timeoutRecorder.timeouts);
+    }
+  }
+
+  @Test
+  void shouldBoundTimeoutOfMainAndNestedSelects() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.setDeadline(Deadline.after(3, TimeUnit.SECONDS));
+      Parent parent = sqlSession.getMapper(Mapper.class).selectParent(1);
+      assertEquals("child1", parent.getChild().getName());
+      assertEquals(2, timeoutRecorder.timeouts.size());
+      for (int timeout : timeoutRecorder.timeouts) {
+        assertTrue(timeout > 0 && timeout <= 3, "timeout " + timeout);
+      }
+    }
+  }
+
+  @Test
+  void shouldNotRunStatementOnceDeadlinePassed() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.setDeadline(Deadline.after(0, TimeUnit.MILLISECONDS));
+      PersistenceException e = assertThrows(PersistenceException.class, () -> sqlSession.getMapper(Mapper.class).selectParent(1));
+      assertTrue(e.getCause() instanceof DeadlineExceededException);
+      assertEquals(Collections.emptyList(), timeoutRecorder.timeouts);
+    }
+  }
+
+  @Test
+  void shouldFailNestedSelectOnceDeadlinePassed() {
+    timeoutRecorder.delayMillis = 200;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.setDeadline(Deadline.after(100, TimeUnit.MILLISECONDS));
+      PersistenceException e = assertThrows(PersistenceException.class, () -> sqlSession.getMapper(Mapper.class).selectParent(1));
+      assertTrue(e.getCause() instanceof DeadlineExceededException);
+      // only the main query was prepared
+      assertEquals(Arrays.asList(1), timeoutRecorder.timeouts);
+    }
+  }
+
+  @Test
+  void shouldApplyDeadlineOfCallToLazyLoads() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.setDeadline(Deadline.after(3, TimeUnit.SECONDS));
+      Parent parent = sqlSession.getMapper(Mapper.class).selectParentLazily(1);
+      sqlSession.setDeadline(null);
+      assertEquals("child1", parent.getChild().getName());
+      assertEquals(2, timeoutRecorder.timeouts.size());
+      assertTrue(timeoutRecorder.timeouts.get(1) <= 3);
+      assertEquals(null, sqlSession.getDeadline());
+    }
+  }
+
+  @Test
+  void shouldFailLazyLoadOnceDeadlinePassed() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.setDeadline(Deadline.after(100, TimeUnit.MILLISECONDS));
+      Parent parent = sqlSession.getMapper(Mapper.class).selectParentLazily(1);
+      sqlSession.setDeadline(null);
+      Thread.sleep(200);
+      assertThrows(DeadlineExceededException.class, parent::getChild);
+      assertEquals(1, timeoutRecorder.timeouts.size());
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class TimeoutRecorder implements Interceptor {
+
+    private final List<Integer> timeouts = new ArrayList<>();
+    private long delayMillis;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      Statement statement = (Statement) invocation.proceed();
+      timeouts.add(statement.getQueryTimeout());
+      if (delayMillis > 0) {
+        Thread.sleep(delayMillis);
+      }
+      return statement;
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+}
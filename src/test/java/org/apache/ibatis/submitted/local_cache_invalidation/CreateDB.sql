@@ -0,0 +1,39 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table audit_log if exists;
+drop table orders if exists;
+drop table customers if exists;
+
+create table customers (
+  id int,
+  name varchar(16)
+);
+
+create table orders (
+  id int,
+  customer_id int,
+  customer_name varchar(16)
+);
+
+create table audit_log (
+  id int IDENTITY,
+  message varchar(32)
+);
+
+insert into customers (id, name) values (1, 'customer1');
+insert into orders (id, customer_id, customer_name) values (1, 1, 'customer1');
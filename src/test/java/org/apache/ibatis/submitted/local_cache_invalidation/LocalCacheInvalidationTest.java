@@ -0,0 +1,115 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.local_cache_invalidation;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.LocalCacheInvalidation;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LocalCacheInvalidationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/local_cache_invalidation/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/local_cache_invalidation/CreateDB.sql");
+  }
+
+  @Test
+  void shouldReadSettingAndDeclaredTables() {
+    assertEquals(LocalCacheInvalidation.SELECTIVE, sqlSessionFactory.getConfiguration().getLocalCacheInvalidation());
+    assertArrayEquals(new String[] { "audit_log" }, sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.local_cache_invalidation.AuditMapper.insertAudit").getTables());
+    assertArrayEquals(new String[] { "orders", "customers" }, sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.local_cache_invalidation.OrderMapper.selectOrderIdsOfCustomer").getTables());
+  }
+
+  @Test
+  void shouldClearWholeLocalCacheByDefault() {
+    sqlSessionFactory.getConfiguration().setLocalCacheInvalidation(LocalCacheInvalidation.ALL);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      List<String> names = customerMapper.selectCustomerNames();
+      sqlSession.getMapper(AuditMapper.class).insertAudit("audit");
+      assertNotSame(names, customerMapper.selectCustomerNames());
+    }
+  }
+
+  @Test
+  void shouldKeepUnrelatedEntries() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+      List<String> names = customerMapper.selectCustomerNames();
+      List<Integer> orderIds = orderMapper.selectOrderIds();
+      sqlSession.getMapper(AuditMapper.class).insertAudit("audit");
+      assertSame(names, customerMapper.selectCustomerNames());
+      assertSame(orderIds, orderMapper.selectOrderIds());
+    }
+  }
+
+  @Test
+  void shouldInvalidateEntriesOfSameNamespace() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      AuditMapper auditMapper = sqlSession.getMapper(AuditMapper.class);
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      assertEquals(Collections.emptyList(), auditMapper.selectAuditMessages());
+      List<String> names = customerMapper.selectCustomerNames();
+      auditMapper.insertAudit("audit");
+      assertEquals(Collections.singletonList("audit"), auditMapper.selectAuditMessages());
+      customerMapper.updateCustomerName(1, "renamed");
+      assertEquals(Collections.singletonList("renamed"), customerMapper.selectCustomerNames());
+      assertNotSame(names, customerMapper.selectCustomerNames());
+    }
+  }
+
+  @Test
+  void shouldInvalidateEntriesDeclaringSameTable() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CustomerMapper customerMapper = sqlSession.getMapper(CustomerMapper.class);
+      OrderMapper orderMapper = sqlSession.getMapper(OrderMapper.class);
+      assertEquals(Collections.singletonList(1), orderMapper.selectOrderIdsOfCustomer("customer1"));
+      List<String> names = customerMapper.selectCustomerNames();
+      // declares the orders table: invalidates the order queries, not the customer query
+      orderMapper.updateCustomerName(1, "customer1");
+      assertSame(names, customerMapper.selectCustomerNames());
+      List<Integer> orderIds = orderMapper.selectOrderIds();
+      // declares the customers table: invalidates the join of orders and customers only
+      customerMapper.updateCustomerName(1, "renamed");
+      assertEquals(Collections.emptyList(), orderMapper.selectOrderIdsOfCustomer("customer1"));
+      assertSame(orderIds, orderMapper.selectOrderIds());
+    }
+  }
+
+}
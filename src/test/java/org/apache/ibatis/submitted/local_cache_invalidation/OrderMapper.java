@@ -0,0 +1,39 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.local_cache_invalidation;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+public interface OrderMapper {
+
+  @Select("select o.id from orders o join customers c on c.id = o.customer_id where c.name = #{name}")
+  @Options(tables = "orders, customers")
+  List<Integer> selectOrderIdsOfCustomer(String name);
+
+  @Select("select id from orders order by id")
+  @Options(tables = "orders")
+  List<Integer> selectOrderIds();
+
+  @Update("update orders set customer_name = #{name} where customer_id = #{customerId}")
+  @Options(tables = "orders")
+  int updateCustomerName(@Param("customerId") int customerId, @Param("name") String name);
+
+}
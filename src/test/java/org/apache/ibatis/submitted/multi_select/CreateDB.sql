@@ -0,0 +1,44 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table tag if exists;
+drop table post if exists;
+drop table blog if exists;
+
+create table blog (
+  id int,
+  title varchar(32)
+);
+
+create table post (
+  id int,
+  blog_id int,
+  subject varchar(32)
+);
+
+create table tag (
+  blog_id int,
+  name varchar(16)
+);
+
+insert into blog (id, title) values (1, 'blog1');
+insert into blog (id, title) values (2, 'blog2');
+insert into post (id, blog_id, subject) values (1, 1, 'post1');
+insert into post (id, blog_id, subject) values (2, 1, 'post2');
+insert into post (id, blog_id, subject) values (3, 2, 'post3');
+insert into tag (blog_id, name) values (1, 'java');
+insert into tag (blog_id, name) values (1, 'sql');
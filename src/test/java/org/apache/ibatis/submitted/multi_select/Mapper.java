@@ -0,0 +1,49 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_select;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+
+public interface Mapper {
+
+  @Select("select id as blog_id, title as blog_title from blog where id = #{id}")
+  @Results({
+      @Result(property = "id", column = "blog_id", id = true),
+      @Result(property = "title", column = "blog_title")
+  })
+  Blog selectBlog(int id);
+
+  @Select("select id, subject from post where blog_id = #{blogId} order by id")
+  List<Post> selectPostsOfBlog(int blogId);
+
+  @Select("select name from tag where blog_id = #{blogId} order by name")
+  List<String> selectTagsOfBlog(int blogId);
+
+  @Select("select name from tag where blog_id = #{blogId} order by name")
+  @Options(fetchSize = 100)
+  List<String> selectTagsOfBlogWithFetchSize(int blogId);
+
+  @Insert("insert into tag (blog_id, name) values (#{blogId}, #{name})")
+  int insertTag(@Param("blogId") int blogId, @Param("name") String name);
+
+}
@@ -0,0 +1,229 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_select;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.MultiSelect;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MultiSelectTest {
+
+  private static final String SELECT_BLOG = "org.apache.ibatis.submitted.multi_select.Mapper.selectBlog";
+  private static final String SELECT_POSTS = "org.apache.ibatis.submitted.multi_select.Mapper.selectPostsOfBlog";
+  private static final String SELECT_TAGS = "org.apache.ibatis.submitted.multi_select.Mapper.selectTagsOfBlog";
+  private static final String SELECT_TAGS_WITH_FETCH_SIZE = "org.apache.ibatis.submitted.multi_select.Mapper.selectTagsOfBlogWithFetchSize";
+
+  private SqlSessionFactory sqlSessionFactory;
+  private MultiStatementDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multi_select/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    BaseDataTest.runScript(environment.getDataSource(), "org/apache/ibatis/submitted/multi_select/CreateDB.sql");
+    dataSource = new MultiStatementDataSource(environment.getDataSource());
+    configuration.setEnvironment(new Environment(environment.getId(), environment.getTransactionFactory(), dataSource));
+  }
+
+  private static MultiSelect page(int blogId) {
+    return new MultiSelect()
+        .add(SELECT_BLOG, blogId)
+        .add(SELECT_POSTS, blogId)
+        .add(SELECT_TAGS, blogId);
+  }
+
+  @Test
+  void shouldExecuteSelectsOneAfterTheOtherByDefault() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertPage(sqlSession.selectMultiple(page(1)));
+      assertEquals(3, dataSource.getPreparedSqls().size());
+    }
+  }
+
+  @Test
+  void shouldExecuteSelectsInOneStatement() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertPage(sqlSession.selectMultiple(page(1)));
+      assertEquals(1, dataSource.getPreparedSqls().size());
+      assertEquals(3, dataSource.getPreparedSqls().get(0).split(";").length);
+    }
+  }
+
+  @Test
+  void shouldOnlyCombineSelectsMissingFromLocalCache() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectOne(SELECT_BLOG, 1);
+      assertPage(sqlSession.selectMultiple(page(1)));
+      assertEquals(2, dataSource.getPreparedSqls().size());
+      assertEquals(2, dataSource.getPreparedSqls().get(1).split(";").length);
+      // all cached now
+      assertPage(sqlSession.selectMultiple(page(1)));
+      assertEquals(2, dataSource.getPreparedSqls().size());
+    }
+  }
+
+  @Test
+  void shouldReturnEmptyListsOfSelectsWithoutRows() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<?>> results = sqlSession.selectMultiple(page(2));
+      assertEquals("blog2", ((Blog) results.get(0).get(0)).getTitle());
+      assertEquals(1, results.get(1).size());
+      assertTrue(results.get(2).isEmpty());
+      assertEquals(1, dataSource.getPreparedSqls().size());
+    }
+  }
+
+  @Test
+  void shouldFallBackWhenDriverRejectsCombinedSelects() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    dataSource.setMultiStatementsAccepted(false);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertPage(sqlSession.selectMultiple(page(1)));
+      // the combined statement fails, then each select runs on its own
+      assertEquals(4, dataSource.getPreparedSqls().size());
+      assertEquals(3, dataSource.getPreparedSqls().get(0).split(";").length);
+    }
+  }
+
+  @Test
+  void shouldFallBackWhenDriverDoesNotSupportCombinedSelects() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    dataSource.setMultiStatementFailure(new SQLFeatureNotSupportedException("multiple statements"));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertPage(sqlSession.selectMultiple(page(1)));
+      assertEquals(4, dataSource.getPreparedSqls().size());
+    }
+  }
+
+  @Test
+  void shouldThrowOtherFailuresOfCombinedSelects() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    SQLException failure = new SQLTransientConnectionException("connection reset");
+    dataSource.setMultiStatementFailure(failure);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      PersistenceException e = assertThrows(PersistenceException.class, () -> sqlSession.selectMultiple(page(1)));
+      assertSame(failure, e.getCause());
+      // the selects are not executed again
+      assertEquals(1, dataSource.getPreparedSqls().size());
+    }
+  }
+
+  @Test
+  void shouldSeePendingStatementsOfBatchSession() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      sqlSession.getMapper(Mapper.class).insertTag(1, "mybatis");
+      List<List<?>> results = sqlSession.selectMultiple(page(1));
+      assertEquals(Arrays.asList("java", "mybatis", "sql"), results.get(2));
+    }
+  }
+
+  @Test
+  void shouldOnlyCombineSelectsWithSameStatementSettings() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<?>> results = sqlSession.selectMultiple(new MultiSelect()
+          .add(SELECT_BLOG, 1)
+          .add(SELECT_POSTS, 1)
+          .add(SELECT_TAGS_WITH_FETCH_SIZE, 1));
+      assertEquals(Arrays.asList("java", "sql"), results.get(2));
+      assertEquals(2, dataSource.getPreparedSqls().size());
+      assertEquals(2, dataSource.getPreparedSqls().get(0).split(";").length);
+    }
+  }
+
+  @Test
+  void shouldApplyStatementHandlerPluginsToCombinedSelects() {
+    sqlSessionFactory.getConfiguration().setMultiStatementSelectsEnabled(true);
+    PreparedSqlInterceptor interceptor = new PreparedSqlInterceptor();
+    sqlSessionFactory.getConfiguration().addInterceptor(interceptor);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertPage(sqlSession.selectMultiple(page(1)));
+      assertEquals(dataSource.getPreparedSqls(), interceptor.sqls);
+    }
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class PreparedSqlInterceptor implements Interceptor {
+
+    private final List<String> sqls = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      sqls.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void assertPage(List<List<?>> results) {
+    assertEquals(3, results.size());
+    Blog blog = (Blog) results.get(0).get(0);
+    assertEquals(Integer.valueOf(1), blog.getId());
+    assertEquals("blog1", blog.getTitle());
+    List<Post> posts = (List<Post>) results.get(1);
+    assertEquals(Arrays.asList("post1", "post2"), posts.stream().map(Post::getSubject).collect(Collectors.toList()));
+    assertEquals(Arrays.asList("java", "sql"), results.get(2));
+  }
+
+}
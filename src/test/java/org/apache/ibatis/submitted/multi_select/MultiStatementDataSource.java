@@ -0,0 +1,192 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multi_select;
+
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+/**
+ * Emulates a driver that executes several statements, separated by semicolons, in one prepared statement: each
+ * statement is prepared on the wrapped connection and their results are returned one after the other.
+ */
+class MultiStatementDataSource implements DataSource {
+
+  private final DataSource dataSource;
+  private final List<String> preparedSqls = new ArrayList<>();
+  private boolean multiStatementsAccepted = true;
+  private SQLException multiStatementFailure;
+
+  MultiStatementDataSource(DataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  List<String> getPreparedSqls() {
+    return preparedSqls;
+  }
+
+  void setMultiStatementsAccepted(boolean multiStatementsAccepted) {
+    this.multiStatementsAccepted = multiStatementsAccepted;
+  }
+
+  /**
+   * Fails the statements holding several selects with the given exception.
+   */
+  void setMultiStatementFailure(SQLException multiStatementFailure) {
+    this.multiStatementFailure = multiStatementFailure;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(dataSource.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(dataSource.getConnection(username, password));
+  }
+
+  private Connection wrap(Connection connection) {
+    InvocationHandler handler = (proxy, method, args) -> {
+      if ("prepareStatement".equals(method.getName()) && args.length == 1) {
+        String sql = (String) args[0];
+        preparedSqls.add(sql);
+        if (!multiStatementsAccepted && sql.contains(";")) {
+          throw new SQLSyntaxErrorException("unexpected token: ;");
+        }
+        if (multiStatementFailure != null && sql.contains(";")) {
+          throw multiStatementFailure;
+        }
+        List<PreparedStatement> statements = new ArrayList<>();
+        for (String part : sql.split(";")) {
+          statements.add(connection.prepareStatement(part));
+        }
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { PreparedStatement.class },
+            new MultiStatementHandler((Connection) proxy, statements));
+      }
+      return invoke(connection, method, args);
+    };
+    return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Connection.class }, handler);
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+
+  private static class MultiStatementHandler implements InvocationHandler {
+
+    private final Connection connection;
+    private final List<PreparedStatement> statements;
+    private int current;
+
+    MultiStatementHandler(Connection connection, List<PreparedStatement> statements) {
+      this.connection = connection;
+      this.statements = statements;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+      String name = method.getName();
+      if (name.startsWith("set") && args != null && args.length > 1 && args[0] instanceof Integer) {
+        // map the parameter index to the statement holding it
+        int index = (Integer) args[0];
+        for (PreparedStatement statement : statements) {
+          int count = statement.getParameterMetaData().getParameterCount();
+          if (index <= count) {
+            args[0] = index;
+            return MultiStatementDataSource.invoke(statement, method, args);
+          }
+          index -= count;
+        }
+        throw new SQLException("Invalid parameter index " + args[0]);
+      }
+      switch (name) {
+        case "execute":
+          current = 0;
+          return statements.get(current).execute();
+        case "getResultSet":
+          return current < statements.size() ? statements.get(current).getResultSet() : null;
+        case "getMoreResults":
+          // the next statement runs once the results of the previous one have been read
+          current++;
+          return current < statements.size() && statements.get(current).execute();
+        case "getUpdateCount":
+          return current < statements.size() ? statements.get(current).getUpdateCount() : -1;
+        case "getConnection":
+          return connection;
+        case "setQueryTimeout":
+        case "close":
+          for (PreparedStatement statement : statements) {
+            MultiStatementDataSource.invoke(statement, method, args);
+          }
+          return null;
+        default:
+          return MultiStatementDataSource.invoke(statements.get(0), method, args);
+      }
+    }
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return dataSource.getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    dataSource.setLogWriter(out);
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    dataSource.setLoginTimeout(seconds);
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return dataSource.getLoginTimeout();
+  }
+
+  @Override
+  public Logger getParentLogger() {
+    return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    return dataSource.unwrap(iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return dataSource.isWrapperFor(iface);
+  }
+
+}
@@ -0,0 +1,127 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.parallel_mapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ParallelMappingTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/parallel_mapping/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/parallel_mapping/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapAllRowsInOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getUsers();
+      assertEquals(10, users.size());
+      for (int i = 0; i < users.size(); i++) {
+        User user = users.get(i);
+        assertEquals(Integer.valueOf(i + 1), user.getId());
+        assertEquals("User" + (i + 1), user.getName());
+      }
+      assertEquals(Integer.valueOf(20), users.get(1).getScore());
+      assertNull(users.get(2).getScore());
+    }
+  }
+
+  @Test
+  void shouldApplyRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getUsers(new RowBounds(3, 5));
+      assertEquals(5, users.size());
+      assertEquals(Integer.valueOf(4), users.get(0).getId());
+      assertEquals(Integer.valueOf(8), users.get(4).getId());
+    }
+  }
+
+  @Test
+  void shouldMapRowsToMaps() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Map<String, Object>> users = mapper.getUsersAsMaps();
+      assertEquals(10, users.size());
+      assertEquals("User10", users.get(9).get("NAME"));
+      assertFalse(users.get(2).containsKey("SCORE"));
+    }
+  }
+
+  @Test
+  void shouldStopWhenResultHandlerStops() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Integer> ids = new ArrayList<>();
+      mapper.getUsersWithHandler(context -> {
+        ids.add(context.getResultObject().getId());
+        if (ids.size() == 4) {
+          context.stop();
+        }
+      });
+      assertEquals(4, ids.size());
+      assertEquals(Integer.valueOf(4), ids.get(3));
+    }
+  }
+
+  @Test
+  void shouldMapOnTheConfiguredExecutor() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Executor defaultExecutor = configuration.getMappingExecutor();
+    ExecutorService executorService = Executors.newFixedThreadPool(2);
+    AtomicInteger tasks = new AtomicInteger();
+    configuration.setMappingExecutor(command -> {
+      tasks.incrementAndGet();
+      executorService.execute(command);
+    });
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(10, mapper.getUsers().size());
+      assertTrue(tasks.get() > 0);
+    } finally {
+      configuration.setMappingExecutor(defaultExecutor);
+      executorService.shutdown();
+    }
+  }
+
+}
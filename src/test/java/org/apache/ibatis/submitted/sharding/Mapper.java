@@ -0,0 +1,49 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.sharding;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.RowBounds;
+
+public interface Mapper {
+
+  @Insert("insert into orders (id, customer_id, name) values (#{id}, #{customerId}, #{name})")
+  int insertOrder(Order order);
+
+  @Delete("delete from orders where name like #{pattern}")
+  int deleteOrdersNamedLike(String pattern);
+
+  @Select("select id, customer_id as customerId, name from orders where customer_id = #{customerId} order by id")
+  List<Order> selectOrdersOfCustomer(int customerId);
+
+  @Select("select id, customer_id as customerId, name from orders order by id")
+  List<Order> selectAllOrders();
+
+  @Select("select id, customer_id as customerId, name from orders order by id")
+  List<Order> selectOrders(RowBounds rowBounds);
+
+  @Select("select id, customer_id as customerId, name from orders order by id")
+  Cursor<Order> selectAllOrdersCursor();
+
+  @Select("select count(*) from orders")
+  int countOrders();
+
+}
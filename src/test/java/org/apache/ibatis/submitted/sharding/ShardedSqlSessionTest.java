@@ -0,0 +1,215 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.sharding;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.sharding.ShardedSqlSession;
+import org.apache.ibatis.session.sharding.ShardedSqlSessionFactory;
+import org.apache.ibatis.session.sharding.ShardingStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ShardedSqlSessionTest {
+
+  private static final ShardingStrategy BY_CUSTOMER = (ms, parameter) -> {
+    if (parameter instanceof Order) {
+      return "shard" + ((Order) parameter).getCustomerId() % 2;
+    } else if (parameter instanceof Integer) {
+      return "shard" + (Integer) parameter % 2;
+    }
+    return null;
+  };
+
+  private ShardedSqlSessionFactory sqlSessionFactory;
+  private AtomicInteger submitted;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    ShardedSqlSessionFactory built = ShardedSqlSessionFactory.build("org/apache/ibatis/submitted/sharding/mybatis-config.xml",
+        Arrays.asList("shard0", "shard1"), BY_CUSTOMER);
+    Map<String, SqlSessionFactory> shards = new LinkedHashMap<>();
+    for (String shardId : built.getShardIds()) {
+      shards.put(shardId, built.getShard(shardId));
+      BaseDataTest.runScript(built.getShard(shardId).getConfiguration().getEnvironment().getDataSource(),
+          "org/apache/ibatis/submitted/sharding/CreateDB.sql");
+    }
+    submitted = new AtomicInteger();
+    sqlSessionFactory = new ShardedSqlSessionFactory(shards, BY_CUSTOMER, command -> {
+      submitted.incrementAndGet();
+      new Thread(command).start();
+    });
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      // orders of customer 1 go to shard1 and orders of customer 2 to shard0, with interleaved ids
+      for (int id = 1; id <= 6; id++) {
+        mapper.insertOrder(new Order(id, id % 2 == 0 ? 2 : 1, "order" + id));
+      }
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void shouldRouteToSingleShard() {
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Order> orders = sqlSession.getMapper(Mapper.class).selectOrdersOfCustomer(1);
+      assertEquals(Arrays.asList(1, 3, 5), ids(orders));
+      assertEquals(3, sqlSession.getSession("shard1").getMapper(Mapper.class).countOrders());
+      assertEquals(3, sqlSession.getSession("shard0").getMapper(Mapper.class).countOrders());
+      assertEquals(0, submitted.get());
+    }
+  }
+
+  @Test
+  void shouldConcatenateBroadcastResultsInShardOrder() {
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Order> orders = sqlSession.getMapper(Mapper.class).selectAllOrders();
+      assertEquals(Arrays.asList(2, 4, 6, 1, 3, 5), ids(orders));
+      assertEquals(2, submitted.get());
+    }
+  }
+
+  @Test
+  void shouldMergeBroadcastResultsAndApplyRowBounds() {
+    sqlSessionFactory.addMergeOrder("org.apache.ibatis.submitted.sharding.Mapper.selectAllOrders",
+        Comparator.comparing(Order::getId));
+    sqlSessionFactory.addMergeOrder("org.apache.ibatis.submitted.sharding.Mapper.selectOrders",
+        Comparator.comparing(Order::getId));
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), ids(mapper.selectAllOrders()));
+      assertEquals(Arrays.asList(3, 4, 5), ids(mapper.selectOrders(new RowBounds(2, 3))));
+      assertEquals(Arrays.asList(6), ids(mapper.selectOrders(new RowBounds(5, 3))));
+    }
+  }
+
+  @Test
+  void shouldMergeBroadcastCursors() throws Exception {
+    sqlSessionFactory.addMergeOrder("org.apache.ibatis.submitted.sharding.Mapper.selectAllOrdersCursor",
+        Comparator.comparing(Order::getId));
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Order> orders = new ArrayList<>();
+      try (Cursor<Order> cursor = sqlSession.getMapper(Mapper.class).selectAllOrdersCursor()) {
+        cursor.forEach(orders::add);
+        assertEquals(5, cursor.getCurrentIndex());
+      }
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), ids(orders));
+    }
+  }
+
+  @Test
+  void shouldSumCountsOfAllShards() {
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(6, sqlSession.selectCount("org.apache.ibatis.submitted.sharding.Mapper.selectAllOrders"));
+      assertEquals(3, sqlSession.selectCount("org.apache.ibatis.submitted.sharding.Mapper.selectOrdersOfCustomer", 2));
+      // aggregates are not merged, each shard returns its own row
+      assertEquals(Arrays.asList(3, 3), sqlSession.selectList("org.apache.ibatis.submitted.sharding.Mapper.countOrders"));
+    }
+  }
+
+  @Test
+  void shouldRejectUnknownShard() {
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertThrows(PersistenceException.class, () -> sqlSession.getSession("shard2"));
+      assertThrows(PersistenceException.class, sqlSession::getConnection);
+    }
+  }
+
+  @Test
+  void shouldRejectInsertWithoutShard() {
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> order = new HashMap<>();
+      order.put("id", 7);
+      order.put("customerId", 1);
+      order.put("name", "order7");
+      assertThrows(PersistenceException.class,
+          () -> sqlSession.insert("org.apache.ibatis.submitted.sharding.Mapper.insertOrder", order));
+      assertEquals(6, sqlSession.selectCount("org.apache.ibatis.submitted.sharding.Mapper.selectAllOrders"));
+    }
+  }
+
+  @Test
+  void shouldBroadcastOnlyDeclaredWrites() {
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertThrows(PersistenceException.class, () -> mapper.deleteOrdersNamedLike("order%"));
+      assertEquals(6, sqlSession.selectCount("org.apache.ibatis.submitted.sharding.Mapper.selectAllOrders"));
+
+      sqlSessionFactory.addBroadcastStatement("org.apache.ibatis.submitted.sharding.Mapper.deleteOrdersNamedLike");
+      assertEquals(6, mapper.deleteOrdersNamedLike("order%"));
+      assertEquals(0, sqlSession.selectCount("org.apache.ibatis.submitted.sharding.Mapper.selectAllOrders"));
+    }
+  }
+
+  @Test
+  void shouldRethrowErrorOfShard() {
+    sqlSessionFactory.getShard("shard1").getConfiguration().addInterceptor(new FailingInterceptor());
+    try (ShardedSqlSession sqlSession = sqlSessionFactory.openSession()) {
+      AssertionError error = assertThrows(AssertionError.class, () -> sqlSession.getMapper(Mapper.class).selectAllOrders());
+      assertEquals("shard failure", error.getMessage());
+    }
+  }
+
+  @Intercepts(@Signature(type = Executor.class, method = "query",
+      args = { MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class }))
+  public static class FailingInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) {
+      throw new AssertionError("shard failure");
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+  private static List<Integer> ids(List<Order> orders) {
+    return orders.stream().map(Order::getId).collect(Collectors.toList());
+  }
+
+}